@@ -0,0 +1,108 @@
+package com.slaughtersquad.jmh;
+
+import com.slaughtersquad.collision.ObstacleCoalescer;
+import com.slaughtersquad.collision.ScalarSegmentKernel;
+import com.slaughtersquad.collision.SegmentCollider;
+import com.slaughtersquad.collision.VectorSegmentKernel;
+import com.slaughtersquad.interf.IUIConfiguration;
+import com.slaughtersquad.maps.Maps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways of testing a segment against the obstacles of a map: {@link Rectangle#intersectsLine} for every
+ * obstacle (as in {@code PathDrawingSample}), the scalar and vectorised kernels, and the grid of the
+ * {@link SegmentCollider}. The obstacles are coalesced first, as the genetic planner does, and the segments are at
+ * most {@code length} pixels long in each axis.
+ * <p>
+ * Run with {@code mvn -Pjmh package} followed by {@code java -jar target/benchmarks.jar SegmentKernel}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SegmentKernelBenchmark
+{
+    private static final int SEGMENTS = 1024;
+
+    @Param({ "2", "7", "8", "9", "10" })
+    public int map;
+
+    @Param({ "100", "600" })
+    public int length;
+
+    private List<Rectangle> obstacles;
+    private ScalarSegmentKernel scalar;
+    private VectorSegmentKernel vector;
+    private SegmentCollider collider;
+    private int[] segments;
+
+    @Setup
+    public void setup() throws Exception {
+        IUIConfiguration conf = Maps.getMap(map);
+        obstacles = ObstacleCoalescer.coalesce(conf.getObstacles());
+        scalar = new ScalarSegmentKernel(obstacles);
+        vector = new VectorSegmentKernel(obstacles);
+        collider = new SegmentCollider(conf.getWidth(), conf.getHeight(), obstacles);
+
+        Random rng = new Random(42);
+        segments = new int[SEGMENTS * 4];
+        for (int i = 0; i < segments.length; i += 4)
+        {
+            segments[i] = rng.nextInt(conf.getWidth());
+            segments[i + 1] = rng.nextInt(conf.getHeight());
+            segments[i + 2] = Math.max(0, Math.min(conf.getWidth() - 1, segments[i] + rng.nextInt(2 * length + 1) - length));
+            segments[i + 3] = Math.max(0, Math.min(conf.getHeight() - 1, segments[i + 1] + rng.nextInt(2 * length + 1) - length));
+        }
+    }
+
+    @Benchmark
+    public int intersectsLine() {
+        int hits = 0;
+        for (int i = 0; i < segments.length; i += 4)
+            for (Rectangle r : obstacles)
+                if (r.intersectsLine(segments[i], segments[i + 1], segments[i + 2], segments[i + 3]))
+                    hits++;
+        return hits;
+    }
+
+    @Benchmark
+    public int scalarKernel() {
+        int hits = 0;
+        for (int i = 0; i < segments.length; i += 4)
+            hits += scalar.countHits(segments[i], segments[i + 1], segments[i + 2], segments[i + 3]);
+        return hits;
+    }
+
+    @Benchmark
+    public int vectorKernel() {
+        int hits = 0;
+        for (int i = 0; i < segments.length; i += 4)
+            hits += vector.countHits(segments[i], segments[i + 1], segments[i + 2], segments[i + 3]);
+        return hits;
+    }
+
+    @Benchmark
+    public int gridCollider() {
+        int hits = 0;
+        for (int i = 0; i < segments.length; i += 4)
+            hits += collider.countHits(segments[i], segments[i + 1], segments[i + 2], segments[i + 3]);
+        return hits;
+    }
+}
@@ -14,6 +14,8 @@ import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.nio.file.attribute.FileTime;
 
+import com.slaughtersquad.planning.PlanningServer;
+
 public class Monitor {
     private static final String SIGNAL_ROUND_ENDED_FILE_PATH = "SlaughterSquad/target/classes/com/slaughtersquad/sampleRobots/WriterRobot.data/round_finished_signal.txt";
     private static final String SIGNAL_BATTLE_ENDED_FILE_PATH = "SlaughterSquad/target/classes/com/slaughtersquad/sampleRobots/WriterRobot.data/battle_finished_signal.txt";
@@ -35,6 +37,19 @@ public class Monitor {
 
         roundEndedThread.start();
         battleEndedThread.start();
+
+        startPlanningServer();
+    }
+
+    private static void startPlanningServer() {
+        // Planning service used by the walker robots, which run the genetic algorithm here instead of inside Robocode
+        try {
+            PlanningServer server = new PlanningServer(PlanningServer.DEFAULT_PORT, PlanningServer.createPlanner());
+            server.start();
+            System.out.println("Planning server listening on port " + server.getPort());
+        } catch (IOException e) {
+            System.err.println("Could not start the planning server: " + e.getMessage());
+        }
     }
 
     private static void watchFile(Path signalFilePath, Runnable action, FileTime lastModifiedTime) {
@@ -0,0 +1,260 @@
+package com.slaughtersquad.collision;
+
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Distance from every point of a map to the closest obstacle, computed once per configuration.
+ * <p>
+ * The obstacles are rasterised into a grid of square cells and the Euclidean distance transform of Felzenszwalb and
+ * Huttenlocher (two passes of a linear-time lower envelope of parabolas) gives, for every cell, the distance between
+ * its centre and the centre of the closest blocked cell. Building the field is linear in the number of cells; a
+ * lookup is a single array access. With cells of one pixel the distances are exact; otherwise the error is at
+ * most about the diagonal of a cell.
+ * <p>
+ * The distances are kept in a {@link FloatBuffer}, so a field saved with {@link #writeTo(DataOutputStream)} can be
+ * used straight from a memory-mapped file.
+ */
+public class ClearanceField
+{
+    private final int width, height;
+    private final int cellSize;
+    private final int cols, rows;
+    private final FloatBuffer distances;
+
+    // stands for "no obstacle" in the squared distances: larger than any real one, but small enough to keep the
+    // arithmetic of the transform exact
+    private final double far;
+
+    /**
+     * Builds the clearance field of a configuration.
+     * @param conf the configuration
+     * @param cellSize the side of each cell, in pixels (1 for an exact raster)
+     * @param walls whether the borders of the map also count as obstacles
+     * @return the clearance field
+     */
+    public static ClearanceField of(IUIConfiguration conf, int cellSize, boolean walls) {
+        return new ClearanceField(conf.getWidth(), conf.getHeight(), conf.getObstacles(), cellSize, walls);
+    }
+
+    /**
+     * Builds the clearance field of a map.
+     * @param width the width of the map
+     * @param height the height of the map
+     * @param obstacles the obstacles of the map
+     * @param cellSize the side of each cell, in pixels (1 for an exact raster)
+     * @param walls whether the borders of the map also count as obstacles
+     */
+    public ClearanceField(int width, int height, List<Rectangle> obstacles, int cellSize, boolean walls) {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("cellSize must be positive");
+
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (width + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+        this.distances = FloatBuffer.allocate(cols * rows);
+        this.far = 2.0 * ((double) cols * cols + (double) rows * rows) + 1;
+
+        double[] grid = rasterise(obstacles);
+        transform(grid);
+
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < cols; c++)
+            {
+                int i = r * cols + c;
+                double d = grid[i] >= far ? Double.POSITIVE_INFINITY : Math.sqrt(grid[i]) * cellSize;
+                if (walls)
+                {
+                    // distance from the centre of the cell to the closest border
+                    double cx = (c + 0.5) * cellSize, cy = (r + 0.5) * cellSize;
+                    d = Math.min(d, Math.min(Math.min(cx, width - cx), Math.min(cy, height - cy)));
+                }
+                distances.put(i, (float) Math.max(0, d));
+            }
+    }
+
+    /**
+     * Maps a field written by {@link #writeTo(DataOutputStream)}. The distances are a view of the buffer, not a
+     * copy, so the buffer must not be modified while the field is in use.
+     * @param buffer the buffer, positioned at the start of the field; on return it is positioned just after it
+     * @return the clearance field, or null if the buffer does not hold a whole field (the position is then
+     *         unspecified)
+     */
+    public static ClearanceField read(ByteBuffer buffer) {
+        int at = buffer.position();
+        if (buffer.remaining() < 5 * 4)
+            return null;
+        int cellSize = buffer.getInt(at + 8), cols = buffer.getInt(at + 12), rows = buffer.getInt(at + 16);
+        if (cellSize <= 0 || cols <= 0 || rows <= 0 || 5 * 4 + 4L * cols * rows > buffer.remaining())
+            return null;
+        return new ClearanceField(buffer);
+    }
+
+    private ClearanceField(ByteBuffer buffer) {
+        width = buffer.getInt();
+        height = buffer.getInt();
+        cellSize = buffer.getInt();
+        cols = buffer.getInt();
+        rows = buffer.getInt();
+        far = 2.0 * ((double) cols * cols + (double) rows * rows) + 1;
+
+        ByteBuffer slice = buffer.slice().order(buffer.order());
+        slice.limit(4 * cols * rows);
+        buffer.position(buffer.position() + 4 * cols * rows);
+        distances = slice.asFloatBuffer();
+    }
+
+    /**
+     * Writes the field in the layout expected by {@link #read(ByteBuffer)}: width, height, cell size, columns and
+     * rows as ints, then the distances row by row as floats, all big-endian.
+     * @param out the stream to write to
+     * @throws IOException if the stream fails
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(cellSize);
+        out.writeInt(cols);
+        out.writeInt(rows);
+        for (int i = 0; i < cols * rows; i++)
+            out.writeFloat(distances.get(i));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns the distance from a point to the closest obstacle. Points outside the map get the value of the
+     * closest cell.
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @return the clearance at the point, in pixels (0 inside an obstacle, infinite if there are no obstacles)
+     */
+    public float clearance(int x, int y) {
+        int c = Math.min(cols - 1, Math.max(0, Math.floorDiv(x, cellSize)));
+        int r = Math.min(rows - 1, Math.max(0, Math.floorDiv(y, cellSize)));
+        return distances.get(r * cols + c);
+    }
+
+    /**
+     * Returns the smallest clearance along a segment, sampled once per cell.
+     * @param x1 the x coordinate of the first end of the segment
+     * @param y1 the y coordinate of the first end of the segment
+     * @param x2 the x coordinate of the second end of the segment
+     * @param y2 the y coordinate of the second end of the segment
+     * @return the smallest clearance found along the segment
+     */
+    public float segmentClearance(int x1, int y1, int x2, int y2) {
+        int steps = (int) Math.ceil(Math.hypot(x2 - x1, y2 - y1) / cellSize);
+        float min = Math.min(clearance(x1, y1), clearance(x2, y2));
+
+        for (int i = 1; i < steps && min > 0; i++)
+        {
+            double t = (double) i / steps;
+            min = Math.min(min, clearance((int) Math.round(x1 + t * (x2 - x1)), (int) Math.round(y1 + t * (y2 - y1))));
+        }
+
+        return min;
+    }
+
+    /**
+     * Marks with 0 every cell that overlaps an obstacle (including its border) and with {@code far} every other cell.
+     */
+    private double[] rasterise(List<Rectangle> obstacles) {
+        double[] grid = new double[cols * rows];
+        Arrays.fill(grid, far);
+
+        for (Rectangle o : obstacles)
+        {
+            if (o.width < 0 || o.height < 0 || o.x > width || o.y > height || o.x + o.width < 0 || o.y + o.height < 0)
+                continue;
+
+            int c0 = Math.max(0, Math.floorDiv(o.x, cellSize)), c1 = Math.min(cols - 1, Math.floorDiv(o.x + o.width, cellSize));
+            int r0 = Math.max(0, Math.floorDiv(o.y, cellSize)), r1 = Math.min(rows - 1, Math.floorDiv(o.y + o.height, cellSize));
+            for (int r = r0; r <= r1; r++)
+                Arrays.fill(grid, r * cols + c0, r * cols + c1 + 1, 0);
+        }
+
+        return grid;
+    }
+
+    /**
+     * Replaces the grid by its squared Euclidean distance transform: first along each column, then along each row.
+     */
+    private void transform(double[] grid) {
+        int n = Math.max(cols, rows);
+        double[] f = new double[n], d = new double[n], z = new double[n + 1];
+        int[] v = new int[n];
+
+        for (int c = 0; c < cols; c++)
+        {
+            for (int r = 0; r < rows; r++)
+                f[r] = grid[r * cols + c];
+            transform(f, rows, d, v, z);
+            for (int r = 0; r < rows; r++)
+                grid[r * cols + c] = d[r];
+        }
+
+        for (int r = 0; r < rows; r++)
+        {
+            System.arraycopy(grid, r * cols, f, 0, cols);
+            transform(f, cols, d, v, z);
+            System.arraycopy(d, 0, grid, r * cols, cols);
+        }
+    }
+
+    /**
+     * One-dimensional squared distance transform of f (lower envelope of the parabolas rooted at each sample).
+     */
+    private static void transform(double[] f, int n, double[] d, int[] v, double[] z) {
+        int k = 0;
+        v[0] = 0;
+        z[0] = Double.NEGATIVE_INFINITY;
+        z[1] = Double.POSITIVE_INFINITY;
+
+        for (int q = 1; q < n; q++)
+        {
+            double s = intersection(f, q, v[k]);
+            while (s <= z[k])
+            {
+                k--;
+                s = intersection(f, q, v[k]);
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Double.POSITIVE_INFINITY;
+        }
+
+        k = 0;
+        for (int q = 0; q < n; q++)
+        {
+            while (z[k + 1] < q)
+                k++;
+            double dq = q - v[k];
+            d[q] = dq * dq + f[v[k]];
+        }
+    }
+
+    private static double intersection(double[] f, int q, int p) {
+        return ((f[q] + (double) q * q) - (f[p] + (double) p * p)) / (2.0 * q - 2.0 * p);
+    }
+}
@@ -0,0 +1,131 @@
+package com.slaughtersquad.collision;
+
+import com.slaughtersquad.impl.Point;
+import com.slaughtersquad.impl.UIConfiguration;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration-space view of the obstacles of an {@link ObstacleStore}: every obstacle grown by half the size of the
+ * robot, plus a band along each wall.
+ * <p>
+ * The bounding box of a Robocode robot is an axis-aligned 36×36 square whatever its heading, so the Minkowski sum of
+ * the robot and a rectangle is the rectangle grown by 18 pixels on each side. A robot whose centre follows a segment
+ * touches an obstacle exactly when the segment touches the grown obstacle, so the planners can keep testing
+ * zero-width segments. The grown obstacles are cached and only rebuilt when the store changes.
+ */
+public class ConfigurationSpace
+{
+    /**
+     * Half the side of the bounding box of a Robocode robot.
+     */
+    public static final int ROBOT_HALF_SIZE = 18;
+
+    private final ObstacleStore store;
+    private final int margin;
+    private final boolean walls;
+
+    private long version = -1;
+    private List<Rectangle> inflated;
+
+    /**
+     * Creates the configuration space of a robot of the standard size, walls included.
+     * @param store the obstacles seen by the robot
+     */
+    public ConfigurationSpace(ObstacleStore store) {
+        this(store, ROBOT_HALF_SIZE, true);
+    }
+
+    /**
+     * Creates a configuration space.
+     * @param store the obstacles seen by the robot
+     * @param margin how much each obstacle grows on each side (half the size of the robot)
+     * @param walls whether to add bands along the walls of the battlefield
+     */
+    public ConfigurationSpace(ObstacleStore store, int margin, boolean walls) {
+        this.store = store;
+        this.margin = margin;
+        this.walls = walls;
+    }
+
+    /**
+     * Returns the grown obstacles for the current contents of the store. The list is rebuilt only when the version
+     * of the store changed since the last call.
+     * @return an unmodifiable list of the grown obstacles
+     */
+    public synchronized List<Rectangle> getObstacles() {
+        ObstacleSnapshot snapshot = store.snapshot();
+        if (inflated == null || snapshot.getVersion() != version)
+        {
+            inflated = Collections.unmodifiableList(inflate(snapshot.getObstacles(), store.getWidth(), store.getHeight(), margin, walls));
+            version = snapshot.getVersion();
+        }
+        return inflated;
+    }
+
+    /**
+     * Builds a problem configuration in the configuration space. Since the centre of a robot never gets closer to a
+     * wall than half its size, the end point is moved inside the battlefield by that amount.
+     * @param start the current position of the robot
+     * @param end the destination of the robot
+     * @return a new configuration for the planner
+     */
+    public IUIConfiguration toConfiguration(IPoint start, IPoint end) {
+        UIConfiguration conf = new UIConfiguration(store.getWidth(), store.getHeight(), getObstacles());
+        conf.setStart(start);
+        conf.setEnd(walls ? new Point(clamp(end.getX(), store.getWidth()), clamp(end.getY(), store.getHeight())) : end);
+        return conf;
+    }
+
+    /**
+     * Grows every obstacle of a configuration by the given margin.
+     * @param conf the configuration
+     * @param margin how much each obstacle grows on each side
+     * @param walls whether to add bands along the borders of the map
+     * @return a new configuration with the same size, start and end
+     */
+    public static IUIConfiguration inflate(IUIConfiguration conf, int margin, boolean walls) {
+        UIConfiguration copy = new UIConfiguration(conf.getWidth(), conf.getHeight(),
+                inflate(conf.getObstacles(), conf.getWidth(), conf.getHeight(), margin, walls));
+        copy.setStart(conf.getStart());
+        copy.setEnd(conf.getEnd());
+        return copy;
+    }
+
+    /**
+     * Grows every obstacle by the given margin.
+     * @param obstacles the obstacles
+     * @param width the width of the map
+     * @param height the height of the map
+     * @param margin how much each obstacle grows on each side
+     * @param walls whether to add bands along the borders of the map
+     * @return the grown obstacles (new rectangles)
+     */
+    public static List<Rectangle> inflate(List<Rectangle> obstacles, int width, int height, int margin, boolean walls) {
+        List<Rectangle> result = new ArrayList<>(obstacles.size() + 4);
+        for (Rectangle r : obstacles)
+            if (r.width > 0 && r.height > 0)
+                result.add(new Rectangle(r.x - margin, r.y - margin, r.width + 2 * margin, r.height + 2 * margin));
+
+        // the bands stop one pixel short, so a robot standing against a wall is not inside them
+        int band = margin - 1;
+        if (walls && band > 0)
+        {
+            result.add(new Rectangle(0, 0, width, band));
+            result.add(new Rectangle(0, height - band, width, band));
+            result.add(new Rectangle(0, 0, band, height));
+            result.add(new Rectangle(width - band, 0, band, height));
+        }
+
+        return result;
+    }
+
+    private int clamp(int value, int size) {
+        return Math.max(margin, Math.min(size - margin, value));
+    }
+}
@@ -0,0 +1,326 @@
+package com.slaughtersquad.collision;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Uniform grid over the map that indexes axis-aligned rectangles by an integer id.
+ * Each id is stored in every cell its bounds overlap, so inserting, moving or removing a rectangle of bounded size
+ * only touches a constant number of cells.
+ */
+public class GridIndex
+{
+    private final int cellSize;
+    private final int cols, rows;
+    private final int[][] cells;
+    private final int[] counts;
+
+    // bounds of each id, needed to remove it from its cells and to de-duplicate query results
+    private int[] minX = new int[16], minY = new int[16], maxX = new int[16], maxY = new int[16];
+    private boolean[] present = new boolean[16];
+    private int size;
+
+    /**
+     * Creates an empty index covering a map of the given size.
+     * @param width the width of the map
+     * @param height the height of the map
+     * @param cellSize the side of each (square) cell, in pixels
+     */
+    public GridIndex(int width, int height, int cellSize) {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("cellSize must be positive");
+
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (width + cellSize - 1) / cellSize);
+        this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+        this.cells = new int[cols * rows][];
+        this.counts = new int[cols * rows];
+    }
+
+    /**
+     * Picks a cell size so that an obstacle of average size spans about one cell.
+     * @param width the width of the map
+     * @param height the height of the map
+     * @param obstacles the obstacles that will be indexed
+     * @return a sensible cell size for the given obstacles
+     */
+    public static int suggestCellSize(int width, int height, List<Rectangle> obstacles) {
+        if (obstacles.isEmpty())
+            return Math.max(16, Math.max(width, height) / 16);
+
+        long sum = 0;
+        for (Rectangle r : obstacles)
+            sum += Math.max(r.width, r.height);
+
+        int average = (int) (sum / obstacles.size());
+        int byDensity = (int) Math.sqrt((double) width * height / obstacles.size());
+
+        return Math.max(4, Math.min(Math.max(average, byDensity / 2), Math.max(width, height)));
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of ids currently stored in the index.
+     * @return the number of ids in the index
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a rectangle to the index. If the id is already present it is moved to the new bounds.
+     * @param id the (non negative) id of the rectangle
+     * @param r the bounds of the rectangle
+     */
+    public void insert(int id, Rectangle r) {
+        insert(id, r.x, r.y, r.width, r.height);
+    }
+
+    /**
+     * Adds a rectangle to the index. If the id is already present it is moved to the new bounds.
+     * @param id the (non negative) id of the rectangle
+     * @param x the x coordinate of the rectangle
+     * @param y the y coordinate of the rectangle
+     * @param w the width of the rectangle
+     * @param h the height of the rectangle
+     */
+    public void insert(int id, int x, int y, int w, int h) {
+        if (id < 0)
+            throw new IllegalArgumentException("id must not be negative");
+
+        if (id < present.length && present[id])
+            remove(id);
+
+        ensureCapacity(id + 1);
+        minX[id] = x;
+        minY[id] = y;
+        maxX[id] = x + w;
+        maxY[id] = y + h;
+        present[id] = true;
+        size++;
+
+        int c0 = col(x), c1 = col(x + w), r0 = row(y), r1 = row(y + h);
+        for (int r = r0; r <= r1; r++)
+            for (int c = c0; c <= c1; c++)
+                add(r * cols + c, id);
+    }
+
+    /**
+     * Removes a rectangle from the index.
+     * @param id the id of the rectangle
+     * @return true if the id was present
+     */
+    public boolean remove(int id) {
+        if (id < 0 || id >= present.length || !present[id])
+            return false;
+
+        int c0 = col(minX[id]), c1 = col(maxX[id]), r0 = row(minY[id]), r1 = row(maxY[id]);
+        for (int r = r0; r <= r1; r++)
+            for (int c = c0; c <= c1; c++)
+                delete(r * cols + c, id);
+
+        present[id] = false;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes every rectangle from the index.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(present, false);
+        size = 0;
+    }
+
+    /**
+     * Visits, exactly once, the id of every rectangle whose bounds overlap the given area.
+     * The bounds are treated as closed, just like {@link Rectangle#intersectsLine}.
+     * @param x the x coordinate of the area
+     * @param y the y coordinate of the area
+     * @param w the width of the area
+     * @param h the height of the area
+     * @param visitor receives the ids found
+     */
+    public void query(int x, int y, int w, int h, IntConsumer visitor) {
+        int qx1 = x + w, qy1 = y + h;
+        int c0 = col(x), c1 = col(qx1), r0 = row(y), r1 = row(qy1);
+
+        for (int r = r0; r <= r1; r++)
+            for (int c = c0; c <= c1; c++)
+            {
+                int cell = r * cols + c;
+                int[] ids = cells[cell];
+                for (int i = 0; i < counts[cell]; i++)
+                {
+                    int id = ids[i];
+                    if (minX[id] > qx1 || maxX[id] < x || minY[id] > qy1 || maxY[id] < y)
+                        continue;
+
+                    // an id lives in several cells: report it only from the cell holding the corner of the overlap
+                    if (col(Math.max(x, minX[id])) == c && row(Math.max(y, minY[id])) == r)
+                        visitor.accept(id);
+                }
+            }
+    }
+
+    /**
+     * Checks whether any rectangle overlaps the interior of the given area. Unlike {@link #query}, rectangles that
+     * only touch the border of the area do not count.
+     * @param x the x coordinate of the area
+     * @param y the y coordinate of the area
+     * @param w the width of the area
+     * @param h the height of the area
+     * @return true if at least one rectangle overlaps the interior of the area
+     */
+    public boolean overlapsInterior(int x, int y, int w, int h) {
+        int qx1 = x + w, qy1 = y + h;
+        int c0 = col(x), c1 = col(qx1), r0 = row(y), r1 = row(qy1);
+
+        for (int r = r0; r <= r1; r++)
+            for (int c = c0; c <= c1; c++)
+            {
+                int cell = r * cols + c;
+                int[] ids = cells[cell];
+                for (int i = 0; i < counts[cell]; i++)
+                {
+                    int id = ids[i];
+                    if (minX[id] < qx1 && maxX[id] > x && minY[id] < qy1 && maxY[id] > y)
+                        return true;
+                }
+            }
+        return false;
+    }
+
+    /**
+     * Visits the ids stored in the cells crossed by a segment (plus one cell on each side, to cover rounding) until
+     * the visitor returns true. The cells are only a coarse filter: an id may be visited more than once and ids whose
+     * bounds do not touch the segment are visited too, so the visitor has to do the exact test.
+     * @param x1 the x coordinate of the first end of the segment
+     * @param y1 the y coordinate of the first end of the segment
+     * @param x2 the x coordinate of the second end of the segment
+     * @param y2 the y coordinate of the second end of the segment
+     * @param visitor receives the ids found and returns true to stop
+     * @return true if the visitor stopped the search
+     */
+    public boolean anyAlongSegment(int x1, int y1, int x2, int y2, IntPredicate visitor) {
+        int lowY = Math.min(y1, y2), highY = Math.max(y1, y2);
+        int r0 = row(lowY), r1 = row(highY);
+
+        for (int r = r0; r <= r1; r++)
+        {
+            // x range covered by the part of the segment inside this row of cells
+            int xa, xb;
+            if (y1 == y2 || r0 == r1)
+            {
+                xa = x1;
+                xb = x2;
+            }
+            else
+            {
+                // the first and last rows also hold whatever lies outside the map
+                double bandLow = r == r0 ? lowY : r * (double) cellSize;
+                double bandHigh = r == r1 ? highY : (r + 1) * (double) cellSize;
+                double t0 = (bandLow - y1) / (y2 - y1), t1 = (bandHigh - y1) / (y2 - y1);
+                xa = (int) Math.floor(x1 + t0 * (x2 - x1));
+                xb = (int) Math.floor(x1 + t1 * (x2 - x1));
+            }
+
+            int c0 = col(Math.min(xa, xb) - 1), c1 = col(Math.max(xa, xb) + 1);
+            for (int c = c0; c <= c1; c++)
+            {
+                int cell = r * cols + c;
+                int[] ids = cells[cell];
+                for (int i = 0; i < counts[cell]; i++)
+                    if (visitor.test(ids[i]))
+                        return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the ids stored in a single cell. Only the first {@link #cellCount(int)} entries are meaningful.
+     * @param cell the index of the cell (row * cols + col)
+     * @return the backing array of the cell (may be null when the cell was never used)
+     */
+    public int[] cellIds(int cell) {
+        return cells[cell];
+    }
+
+    /**
+     * Returns how many ids are stored in a single cell.
+     * @param cell the index of the cell (row * cols + col)
+     * @return the number of ids in the cell
+     */
+    public int cellCount(int cell) {
+        return counts[cell];
+    }
+
+    /**
+     * Returns the column that contains the given x coordinate, clamped to the grid.
+     * @param x the x coordinate
+     * @return the column of x
+     */
+    public int col(int x) {
+        return Math.min(cols - 1, Math.max(0, Math.floorDiv(x, cellSize)));
+    }
+
+    /**
+     * Returns the row that contains the given y coordinate, clamped to the grid.
+     * @param y the y coordinate
+     * @return the row of y
+     */
+    public int row(int y) {
+        return Math.min(rows - 1, Math.max(0, Math.floorDiv(y, cellSize)));
+    }
+
+    private void add(int cell, int id) {
+        int[] ids = cells[cell];
+        if (ids == null)
+            ids = cells[cell] = new int[4];
+        else if (counts[cell] == ids.length)
+            ids = cells[cell] = Arrays.copyOf(ids, ids.length * 2);
+
+        ids[counts[cell]++] = id;
+    }
+
+    private void delete(int cell, int id) {
+        int[] ids = cells[cell];
+        int n = counts[cell];
+        for (int i = 0; i < n; i++)
+            if (ids[i] == id)
+            {
+                ids[i] = ids[n - 1];
+                counts[cell] = n - 1;
+                return;
+            }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= present.length)
+            return;
+
+        int n = Math.max(capacity, present.length * 2);
+        minX = Arrays.copyOf(minX, n);
+        minY = Arrays.copyOf(minY, n);
+        maxX = Arrays.copyOf(maxX, n);
+        maxY = Arrays.copyOf(maxY, n);
+        present = Arrays.copyOf(present, n);
+    }
+}
@@ -0,0 +1,187 @@
+package com.slaughtersquad.collision;
+
+import com.slaughtersquad.impl.UIConfiguration;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replaces a list of obstacles by a (usually much) smaller list of rectangles that block exactly the same area.
+ * <p>
+ * Maps such as {@code Maps.getMap(7)} build walls out of hundreds of small overlapping squares, and the robots add
+ * one rectangle per enemy, which often overlap too. The coordinates of the edges are compressed into a grid whose
+ * cells are either fully covered by some obstacle or fully free. Each obstacle is then grown to a maximal rectangle
+ * of covered cells and a greedy set cover keeps as few of the grown rectangles as possible (they may overlap).
+ * <p>
+ * Obstacles are closed rectangles (as in {@link Rectangle#intersectsLine}), so a path that misses every original
+ * obstacle also misses every merged one and vice versa. Empty rectangles block nothing and are dropped. The number
+ * of intersections of a path may change, since a run of small obstacles becomes a single one.
+ */
+public final class ObstacleCoalescer
+{
+    private ObstacleCoalescer() {
+    }
+
+    /**
+     * Builds a copy of a configuration with its obstacles coalesced.
+     * @param conf the configuration
+     * @return a new configuration with the same size, start and end
+     */
+    public static IUIConfiguration coalesce(IUIConfiguration conf) {
+        UIConfiguration copy = new UIConfiguration(conf.getWidth(), conf.getHeight(), coalesce(conf.getObstacles()));
+        copy.setStart(conf.getStart());
+        copy.setEnd(conf.getEnd());
+        return copy;
+    }
+
+    /**
+     * Merges touching and overlapping obstacles.
+     * @param obstacles the obstacles
+     * @return new rectangles covering exactly the same area
+     */
+    public static List<Rectangle> coalesce(List<Rectangle> obstacles) {
+        List<Rectangle> solid = new ArrayList<>(obstacles.size());
+        for (Rectangle r : obstacles)
+            if (r.width > 0 && r.height > 0)
+                solid.add(r);
+        if (solid.size() <= 1)
+            return copy(solid);
+
+        int[] xs = compress(solid, true), ys = compress(solid, false);
+        int cols = xs.length - 1, rows = ys.length - 1;
+
+        // 2D difference array: +1/-1 at the corners of each obstacle, then prefix sums give the coverage of each cell
+        int[] coverage = new int[(cols + 1) * (rows + 1)];
+        for (Rectangle r : solid)
+        {
+            int c0 = Arrays.binarySearch(xs, r.x), c1 = Arrays.binarySearch(xs, r.x + r.width);
+            int r0 = Arrays.binarySearch(ys, r.y), r1 = Arrays.binarySearch(ys, r.y + r.height);
+            coverage[r0 * (cols + 1) + c0]++;
+            coverage[r0 * (cols + 1) + c1]--;
+            coverage[r1 * (cols + 1) + c0]--;
+            coverage[r1 * (cols + 1) + c1]++;
+        }
+
+        boolean[] covered = new boolean[cols * rows];
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < cols; c++)
+            {
+                int i = r * (cols + 1) + c;
+                if (c > 0)
+                    coverage[i] += coverage[i - 1];
+                if (r > 0)
+                    coverage[i] += coverage[i - (cols + 1)];
+                if (c > 0 && r > 0)
+                    coverage[i] -= coverage[i - (cols + 1) - 1];
+                covered[r * cols + c] = coverage[i] > 0;
+            }
+
+        // never worse than the original obstacles, which are themselves a cover
+        List<Rectangle> merged = cover(solid, covered, xs, ys);
+        return merged.size() < solid.size() ? merged : copy(solid);
+    }
+
+    /**
+     * Returns the sorted distinct x (or y) coordinates of the edges of the obstacles.
+     */
+    private static int[] compress(List<Rectangle> obstacles, boolean horizontal) {
+        int[] values = new int[obstacles.size() * 2];
+        int n = 0;
+        for (Rectangle r : obstacles)
+        {
+            values[n++] = horizontal ? r.x : r.y;
+            values[n++] = horizontal ? r.x + r.width : r.y + r.height;
+        }
+        Arrays.sort(values);
+
+        int unique = 0;
+        for (int i = 0; i < n; i++)
+            if (unique == 0 || values[i] != values[unique - 1])
+                values[unique++] = values[i];
+        return Arrays.copyOf(values, unique);
+    }
+
+    /**
+     * Covers the covered cells with rectangles. Every obstacle is first grown in the four directions as long as the
+     * cells it grows into are covered (so it still only blocks blocked space); the grown rectangles are then taken
+     * largest first, skipping those that do not cover any cell left uncovered by the previous ones.
+     */
+    private static List<Rectangle> cover(List<Rectangle> obstacles, boolean[] covered, int[] xs, int[] ys) {
+        int cols = xs.length - 1;
+        int[][] grown = new int[obstacles.size()][];
+
+        for (int i = 0; i < grown.length; i++)
+        {
+            Rectangle o = obstacles.get(i);
+            int c0 = Arrays.binarySearch(xs, o.x), c1 = Arrays.binarySearch(xs, o.x + o.width);
+            int r0 = Arrays.binarySearch(ys, o.y), r1 = Arrays.binarySearch(ys, o.y + o.height);
+
+            boolean changed = true;
+            while (changed)
+            {
+                changed = false;
+                if (c1 < cols && isFull(covered, cols, c1, r0, 1, r1 - r0))
+                {
+                    c1++;
+                    changed = true;
+                }
+                if (r1 < ys.length - 1 && isFull(covered, cols, c0, r1, c1 - c0, 1))
+                {
+                    r1++;
+                    changed = true;
+                }
+                if (c0 > 0 && isFull(covered, cols, c0 - 1, r0, 1, r1 - r0))
+                {
+                    c0--;
+                    changed = true;
+                }
+                if (r0 > 0 && isFull(covered, cols, c0, r0 - 1, c1 - c0, 1))
+                {
+                    r0--;
+                    changed = true;
+                }
+            }
+            grown[i] = new int[] { c0, r0, c1, r1 };
+        }
+
+        // the largest rectangles (in cells) first
+        Arrays.sort(grown, (a, b) -> Long.compare((long) (b[2] - b[0]) * (b[3] - b[1]), (long) (a[2] - a[0]) * (a[3] - a[1])));
+
+        boolean[] done = new boolean[covered.length];
+        List<Rectangle> result = new ArrayList<>();
+        for (int[] g : grown)
+        {
+            boolean useful = false;
+            for (int r = g[1]; r < g[3]; r++)
+                for (int c = g[0]; c < g[2]; c++)
+                    if (!done[r * cols + c])
+                    {
+                        done[r * cols + c] = true;
+                        useful = true;
+                    }
+
+            if (useful)
+                result.add(new Rectangle(xs[g[0]], ys[g[1]], xs[g[2]] - xs[g[0]], ys[g[3]] - ys[g[1]]));
+        }
+
+        return result;
+    }
+
+    private static boolean isFull(boolean[] covered, int cols, int c, int r, int w, int h) {
+        for (int y = r; y < r + h; y++)
+            for (int x = c; x < c + w; x++)
+                if (!covered[y * cols + x])
+                    return false;
+        return true;
+    }
+
+    private static List<Rectangle> copy(List<Rectangle> obstacles) {
+        List<Rectangle> result = new ArrayList<>(obstacles.size());
+        for (Rectangle r : obstacles)
+            result.add(new Rectangle(r));
+        return result;
+    }
+}
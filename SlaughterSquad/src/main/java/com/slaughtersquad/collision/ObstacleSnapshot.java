@@ -0,0 +1,84 @@
+package com.slaughtersquad.collision;
+
+import com.slaughtersquad.impl.UIConfiguration;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable view of the contents of an {@link ObstacleStore} at a given version.
+ * Snapshots can be handed to a planner running on another thread without any further synchronisation.
+ */
+public final class ObstacleSnapshot
+{
+    private final long version;
+    private final int width, height;
+    private final String[] names;
+    private final List<Rectangle> obstacles;
+
+    ObstacleSnapshot(long version, int width, int height, String[] names, Rectangle[] obstacles) {
+        this.version = version;
+        this.width = width;
+        this.height = height;
+        this.names = names;
+        this.obstacles = Collections.unmodifiableList(Arrays.asList(obstacles));
+    }
+
+    /**
+     * Returns the version of the store when this snapshot was taken.
+     * @return the version of this snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the obstacles in this snapshot. The rectangles are private copies and must not be modified.
+     * @return an unmodifiable list of the obstacles
+     */
+    public List<Rectangle> getObstacles() {
+        return obstacles;
+    }
+
+    /**
+     * Returns the name of the enemy that owns the i-th obstacle.
+     * @param i the position of the obstacle in {@link #getObstacles()}
+     * @return the name of the owner of the obstacle
+     */
+    public String getName(int i) {
+        return names[i];
+    }
+
+    /**
+     * Returns the number of obstacles in this snapshot.
+     * @return the number of obstacles
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Builds a problem configuration with the obstacles of this snapshot.
+     * @param start the starting point
+     * @param end the finishing point
+     * @return a new configuration for the planner
+     */
+    public IUIConfiguration toConfiguration(IPoint start, IPoint end) {
+        UIConfiguration conf = new UIConfiguration(width, height, obstacles);
+        conf.setStart(start);
+        conf.setEnd(end);
+        return conf;
+    }
+}
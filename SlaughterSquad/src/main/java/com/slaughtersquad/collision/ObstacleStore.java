@@ -0,0 +1,216 @@
+package com.slaughtersquad.collision;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the dynamic obstacles (one rectangle per enemy) seen by a robot.
+ * <p>
+ * Every enemy owns a slot that is reused when the enemy is scanned again, so updates and removals never scan the
+ * whole list of obstacles. The slots are kept in a {@link GridIndex} that is updated incrementally and every change
+ * increments a version number. {@link #snapshot()} returns an immutable copy that is cached until the next change.
+ */
+public class ObstacleStore
+{
+    private final int width, height;
+    private final GridIndex index;
+    private final HashMap<String, Integer> slotsByName = new HashMap<>();
+
+    private Rectangle[] slots = new Rectangle[8];
+    private String[] names = new String[8];
+    // version at which each slot was last placed or moved
+    private long[] modified = new long[8];
+    private int slotCount;
+
+    // slots released by dead enemies, reused before growing the arrays
+    private int[] free = new int[8];
+    private int freeCount;
+
+    private long version;
+    private ObstacleSnapshot snapshot;
+
+    /**
+     * Creates an empty store for a battlefield of the given size.
+     * @param width the width of the battlefield
+     * @param height the height of the battlefield
+     */
+    public ObstacleStore(int width, int height) {
+        this(width, height, 64);
+    }
+
+    /**
+     * Creates an empty store for a battlefield of the given size.
+     * @param width the width of the battlefield
+     * @param height the height of the battlefield
+     * @param cellSize the size of the cells of the spatial index
+     */
+    public ObstacleStore(int width, int height, int cellSize) {
+        this.width = width;
+        this.height = height;
+        this.index = new GridIndex(width, height, cellSize);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the current version. The version increases every time the contents of the store change.
+     * @return the current version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of obstacles in the store.
+     * @return the number of obstacles
+     */
+    public synchronized int size() {
+        return slotsByName.size();
+    }
+
+    /**
+     * Places (or moves) the obstacle associated with an enemy.
+     * @param name the name of the enemy
+     * @param rect the area occupied by the enemy; the store keeps its own copy
+     * @return the new version of the store
+     */
+    public synchronized long update(String name, Rectangle rect) {
+        Integer slot = slotsByName.get(name);
+        if (slot == null)
+        {
+            slot = allocate();
+            slotsByName.put(name, slot);
+            names[slot] = name;
+        }
+
+        slots[slot] = new Rectangle(rect);
+        index.insert(slot, rect);
+
+        modified[slot] = changed();
+        return modified[slot];
+    }
+
+    /**
+     * Removes the obstacle associated with an enemy (e.g. when it dies).
+     * @param name the name of the enemy
+     * @return true if the enemy had an obstacle in the store
+     */
+    public synchronized boolean remove(String name) {
+        Integer slot = slotsByName.remove(name);
+        if (slot == null)
+            return false;
+
+        index.remove(slot);
+        slots[slot] = null;
+        names[slot] = null;
+
+        if (freeCount == free.length)
+            free = Arrays.copyOf(free, free.length * 2);
+        free[freeCount++] = slot;
+
+        changed();
+        return true;
+    }
+
+    /**
+     * Removes every obstacle from the store (e.g. at the beginning of a round).
+     */
+    public synchronized void clear() {
+        slotsByName.clear();
+        index.clear();
+        Arrays.fill(slots, null);
+        Arrays.fill(names, null);
+        slotCount = 0;
+        freeCount = 0;
+        changed();
+    }
+
+    /**
+     * Returns the current obstacle of an enemy.
+     * @param name the name of the enemy
+     * @return a copy of the obstacle of the enemy, or null if there is none
+     */
+    public synchronized Rectangle get(String name) {
+        Integer slot = slotsByName.get(name);
+        return slot == null ? null : new Rectangle(slots[slot]);
+    }
+
+    /**
+     * Visits every obstacle that overlaps the given area, using the spatial index.
+     * The rectangles passed to the visitor belong to the store and must not be modified.
+     * @param area the area to search
+     * @param visitor receives the obstacles found
+     */
+    public synchronized void query(Rectangle area, Consumer<Rectangle> visitor) {
+        index.query(area.x, area.y, area.width, area.height, slot -> visitor.accept(slots[slot]));
+    }
+
+    /**
+     * Visits every obstacle placed or moved after a given version. Obstacles removed since then are not visited,
+     * since removing an obstacle never blocks a path that was clear before.
+     * The rectangles passed to the visitor belong to the store and must not be modified.
+     * @param version a version returned by this store
+     * @param visitor receives the obstacles that changed
+     * @return the current version, up to which the changes were visited
+     */
+    public synchronized long changedSince(long version, Consumer<Rectangle> visitor) {
+        for (int i = 0; i < slotCount; i++)
+            if (slots[i] != null && modified[i] > version)
+                visitor.accept(slots[i]);
+        return this.version;
+    }
+
+    /**
+     * Returns an immutable copy of the store. The copy is only rebuilt after the store changes, so calling this
+     * method every tick is cheap.
+     * @return a snapshot of the current contents of the store
+     */
+    public synchronized ObstacleSnapshot snapshot() {
+        if (snapshot == null)
+        {
+            int n = slotsByName.size();
+            Rectangle[] rects = new Rectangle[n];
+            String[] owners = new String[n];
+
+            int j = 0;
+            for (int i = 0; i < slotCount; i++)
+                if (slots[i] != null)
+                {
+                    rects[j] = new Rectangle(slots[i]);
+                    owners[j] = names[i];
+                    j++;
+                }
+
+            snapshot = new ObstacleSnapshot(version, width, height, owners, rects);
+        }
+
+        return snapshot;
+    }
+
+    private int allocate() {
+        if (freeCount > 0)
+            return free[--freeCount];
+
+        if (slotCount == slots.length)
+        {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+            names = Arrays.copyOf(names, names.length * 2);
+            modified = Arrays.copyOf(modified, modified.length * 2);
+        }
+
+        return slotCount++;
+    }
+
+    private long changed() {
+        snapshot = null;
+        return ++version;
+    }
+}
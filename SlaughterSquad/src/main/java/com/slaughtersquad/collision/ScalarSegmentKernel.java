@@ -0,0 +1,59 @@
+package com.slaughtersquad.collision;
+
+import com.slaughtersquad.interf.ISegmentKernel;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Plain Java implementation of {@link ISegmentKernel}: one obstacle at a time, with the exact test of
+ * {@link SegmentCollider}. Used when the Vector API is not available.
+ */
+public class ScalarSegmentKernel implements ISegmentKernel
+{
+    private final int[] minX, minY, maxX, maxY;
+
+    /**
+     * Creates a kernel for the given obstacles.
+     * @param obstacles the obstacles
+     */
+    public ScalarSegmentKernel(List<Rectangle> obstacles) {
+        int n = obstacles.size();
+        minX = new int[n];
+        minY = new int[n];
+        maxX = new int[n];
+        maxY = new int[n];
+
+        for (int i = 0; i < n; i++)
+        {
+            Rectangle r = obstacles.get(i);
+            minX[i] = r.x;
+            minY[i] = r.y;
+            // empty rectangles never intersect anything, mark them with inverted bounds
+            maxX[i] = r.width <= 0 ? r.x - 1 : r.x + r.width;
+            maxY[i] = r.height <= 0 ? r.y - 1 : r.y + r.height;
+        }
+    }
+
+    @Override
+    public int size() {
+        return minX.length;
+    }
+
+    @Override
+    public int countHits(int x1, int y1, int x2, int y2) {
+        int hits = 0;
+        for (int i = 0; i < minX.length; i++)
+            if (SegmentCollider.intersects(minX[i], minY[i], maxX[i], maxY[i], x1, y1, x2, y2))
+                hits++;
+        return hits;
+    }
+
+    @Override
+    public boolean intersectsAny(int x1, int y1, int x2, int y2) {
+        for (int i = 0; i < minX.length; i++)
+            if (SegmentCollider.intersects(minX[i], minY[i], maxX[i], maxY[i], x1, y1, x2, y2))
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,211 @@
+package com.slaughtersquad.collision;
+
+import com.slaughtersquad.interf.ISegmentKernel;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Answers collision queries between path segments and the (static) obstacles of a map.
+ * <p>
+ * The obstacles are kept in a {@link GridIndex}, so a query only tests the obstacles stored in the cells crossed by
+ * the segment. The result is the same as calling {@link Rectangle#intersectsLine} for every obstacle, as done in
+ * {@code PathDrawingSample}, except that the test uses exact integer arithmetic: a segment that only touches the
+ * corner of an obstacle always counts as a hit. Instances are immutable after construction and can be shared
+ * between threads.
+ */
+public class SegmentCollider implements ISegmentKernel
+{
+    private final int width, height;
+    private final GridIndex index;
+    private final int[] minX, minY, maxX, maxY;
+
+    // visitor that tests each obstacle only once per query, one per thread
+    private final ThreadLocal<Marks> marks;
+
+    /**
+     * Creates a collider for the given obstacles, choosing the cell size automatically.
+     * @param width the width of the map
+     * @param height the height of the map
+     * @param obstacles the obstacles of the map
+     */
+    public SegmentCollider(int width, int height, List<Rectangle> obstacles) {
+        this(width, height, obstacles, GridIndex.suggestCellSize(width, height, obstacles));
+    }
+
+    /**
+     * Creates a collider for the given obstacles.
+     * @param width the width of the map
+     * @param height the height of the map
+     * @param obstacles the obstacles of the map
+     * @param cellSize the cell size of the spatial index
+     */
+    public SegmentCollider(int width, int height, List<Rectangle> obstacles, int cellSize) {
+        int n = obstacles.size();
+
+        this.width = width;
+        this.height = height;
+        this.index = new GridIndex(width, height, cellSize);
+        this.minX = new int[n];
+        this.minY = new int[n];
+        this.maxX = new int[n];
+        this.maxY = new int[n];
+
+        for (int i = 0; i < n; i++)
+        {
+            Rectangle r = obstacles.get(i);
+            minX[i] = r.x;
+            minY[i] = r.y;
+            // empty rectangles never intersect anything, mark them with inverted bounds
+            maxX[i] = r.width <= 0 ? r.x - 1 : r.x + r.width;
+            maxY[i] = r.height <= 0 ? r.y - 1 : r.y + r.height;
+            index.insert(i, r);
+        }
+
+        this.marks = ThreadLocal.withInitial(() -> new Marks(n));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of obstacles known by this collider.
+     * @return the number of obstacles
+     */
+    @Override
+    public int size() {
+        return minX.length;
+    }
+
+    /**
+     * Counts how many obstacles are intersected by a segment.
+     * @param x1 the x coordinate of the first end of the segment
+     * @param y1 the y coordinate of the first end of the segment
+     * @param x2 the x coordinate of the second end of the segment
+     * @param y2 the y coordinate of the second end of the segment
+     * @return the number of obstacles intersected by the segment
+     */
+    @Override
+    public int countHits(int x1, int y1, int x2, int y2) {
+        return scan(x1, y1, x2, y2, false);
+    }
+
+    /**
+     * Checks whether a segment intersects any obstacle. Stops at the first obstacle found.
+     * @param x1 the x coordinate of the first end of the segment
+     * @param y1 the y coordinate of the first end of the segment
+     * @param x2 the x coordinate of the second end of the segment
+     * @param y2 the y coordinate of the second end of the segment
+     * @return true if the segment intersects at least one obstacle
+     */
+    @Override
+    public boolean intersectsAny(int x1, int y1, int x2, int y2) {
+        return scan(x1, y1, x2, y2, true) > 0;
+    }
+
+    /**
+     * Checks whether a point lies inside (or on the border of) any obstacle.
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @return true if the point is blocked
+     */
+    public boolean isBlocked(int x, int y) {
+        int cell = index.row(y) * index.getCols() + index.col(x);
+        int[] ids = index.cellIds(cell);
+        for (int i = 0; i < index.cellCount(cell); i++)
+        {
+            int id = ids[i];
+            if (x >= minX[id] && x <= maxX[id] && y >= minY[id] && y <= maxY[id])
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tests a segment against a closed axis-aligned rectangle, like
+     * {@link Rectangle#intersectsLine(double, double, double, double)} but without rounding errors.
+     * @param minX the smallest x coordinate of the rectangle
+     * @param minY the smallest y coordinate of the rectangle
+     * @param maxX the largest x coordinate of the rectangle
+     * @param maxY the largest y coordinate of the rectangle
+     * @param x1 the x coordinate of the first end of the segment
+     * @param y1 the y coordinate of the first end of the segment
+     * @param x2 the x coordinate of the second end of the segment
+     * @param y2 the y coordinate of the second end of the segment
+     * @return true if the segment touches the rectangle
+     */
+    public static boolean intersects(int minX, int minY, int maxX, int maxY, int x1, int y1, int x2, int y2) {
+        // the bounding boxes must overlap...
+        if (Math.max(x1, x2) < minX || Math.min(x1, x2) > maxX || Math.max(y1, y2) < minY || Math.min(y1, y2) > maxY)
+            return false;
+        if (maxX < minX || maxY < minY)
+            return false;
+
+        // ...and the corners of the rectangle must not all lie on the same side of the line
+        long dx = x2 - x1, dy = y2 - y1;
+        long s0 = dx * (minY - y1) - dy * (minX - x1);
+        long s1 = dx * (minY - y1) - dy * (maxX - x1);
+        long s2 = dx * (maxY - y1) - dy * (minX - x1);
+        long s3 = dx * (maxY - y1) - dy * (maxX - x1);
+
+        return !((s0 > 0 && s1 > 0 && s2 > 0 && s3 > 0) || (s0 < 0 && s1 < 0 && s2 < 0 && s3 < 0));
+    }
+
+    private int scan(int x1, int y1, int x2, int y2, boolean stopAtFirst) {
+        Marks m = marks.get();
+        m.start(x1, y1, x2, y2, stopAtFirst);
+        index.anyAlongSegment(x1, y1, x2, y2, m);
+        return m.hits;
+    }
+
+    /**
+     * Visitor of {@link GridIndex#anyAlongSegment}: tests each obstacle once per query and counts the hits.
+     */
+    private final class Marks implements IntPredicate
+    {
+        private final int[] seen;
+        private int stamp;
+
+        // the query in progress
+        private int x1, y1, x2, y2;
+        private boolean stopAtFirst;
+        private int hits;
+
+        private Marks(int n) {
+            seen = new int[n];
+        }
+
+        private void start(int x1, int y1, int x2, int y2, boolean stopAtFirst) {
+            if (++stamp == 0)
+            {
+                Arrays.fill(seen, 0);
+                stamp = 1;
+            }
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+            this.stopAtFirst = stopAtFirst;
+            this.hits = 0;
+        }
+
+        @Override
+        public boolean test(int id) {
+            if (seen[id] == stamp)
+                return false;
+            seen[id] = stamp;
+
+            if (!intersects(minX[id], minY[id], maxX[id], maxY[id], x1, y1, x2, y2))
+                return false;
+            hits++;
+            return stopAtFirst;
+        }
+    }
+}
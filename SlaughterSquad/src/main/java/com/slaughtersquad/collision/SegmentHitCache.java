@@ -0,0 +1,220 @@
+package com.slaughtersquad.collision;
+
+import com.slaughtersquad.interf.ISegmentKernel;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the number of obstacles hit by a segment, shared by every evaluator of a planner.
+ * <p>
+ * The populations of the genetic planner converge quickly, so the same segments are checked against the obstacles
+ * over and over. Each segment is packed into a {@code long} (16 bits per coordinate, with the ends in a fixed order,
+ * since the number of hits does not depend on the direction) and kept in an open-addressing table of primitives.
+ * When the probe window of a key is full an entry is evicted with the clock (second chance) algorithm.
+ * <p>
+ * The table belongs to a single collider ({@link SegmentCollider} or another {@link ISegmentKernel}): the collider is
+ * immutable, so a different collider means a different list of obstacles and the whole table is replaced. Lookups
+ * never block; an insert claims its slot with a compare-and-set, and a reader that races with it simply misses.
+ */
+public class SegmentHitCache
+{
+    private static final long EMPTY = -1;
+    private static final long LOCKED = -2;
+    // 0xFFFF is left out, so no key is EMPTY or LOCKED
+    private static final int MAX_COORDINATE = 0xFFFE;
+    private static final int PROBES = 8;
+
+    private final int capacity;
+    private volatile Table table;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     * @param capacity the maximum number of segments kept (rounded up to a power of two)
+     */
+    public SegmentHitCache(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+
+        this.capacity = capacity <= PROBES ? PROBES : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns how many lookups were answered by the cache.
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns how many lookups had to ask the collider.
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Counts how many obstacles are intersected by a segment, asking the collider only if the segment is not cached.
+     * @param collider the collider of the current obstacles; if it is not the one the table was filled for, the table
+     *                 is discarded
+     * @param x1 the x coordinate of the first end of the segment
+     * @param y1 the y coordinate of the first end of the segment
+     * @param x2 the x coordinate of the second end of the segment
+     * @param y2 the y coordinate of the second end of the segment
+     * @return the number of obstacles intersected by the segment
+     */
+    public int countHits(ISegmentKernel collider, int x1, int y1, int x2, int y2) {
+        long key = key(x1, y1, x2, y2);
+        if (key == EMPTY)
+            return collider.countHits(x1, y1, x2, y2);
+
+        Table t = table;
+        if (t == null || t.collider != collider)
+            t = install(collider);
+
+        int value = t.get(key);
+        if (value >= 0)
+        {
+            hits.increment();
+            return value;
+        }
+
+        misses.increment();
+        value = collider.countHits(x1, y1, x2, y2);
+        t.put(key, value);
+        return value;
+    }
+
+    /**
+     * Discards every cached segment.
+     */
+    public void clear() {
+        table = null;
+    }
+
+    /**
+     * Packs a segment into a key, or returns {@link #EMPTY} if a coordinate is not in [0, {@link #MAX_COORDINATE}].
+     * Keys above 2^63 are negative, but no key is {@link #EMPTY} or {@link #LOCKED}: both would need a coordinate of
+     * 0xFFFF.
+     */
+    static long key(int x1, int y1, int x2, int y2) {
+        if ((x1 | y1 | x2 | y2) < 0 || Math.max(Math.max(x1, y1), Math.max(x2, y2)) > MAX_COORDINATE)
+            return EMPTY;
+
+        // the same segment in the opposite direction gets the same key
+        if (x1 > x2 || (x1 == x2 && y1 > y2))
+            return (long) x2 << 48 | (long) y2 << 32 | (long) x1 << 16 | y1;
+        return (long) x1 << 48 | (long) y1 << 32 | (long) x2 << 16 | y2;
+    }
+
+    private synchronized Table install(ISegmentKernel collider) {
+        Table t = table;
+        if (t == null || t.collider != collider)
+            table = t = new Table(collider, capacity);
+        return t;
+    }
+
+    private static final class Table
+    {
+        private final ISegmentKernel collider;
+        private final int mask;
+        private final AtomicLongArray keys;
+        private final int[] values;
+        // clock reference bits, set on every hit and cleared when the clock hand passes
+        private final byte[] referenced;
+
+        private Table(ISegmentKernel collider, int capacity) {
+            this.collider = collider;
+            this.mask = capacity - 1;
+            this.keys = new AtomicLongArray(capacity);
+            this.values = new int[capacity];
+            this.referenced = new byte[capacity];
+
+            for (int i = 0; i < capacity; i++)
+                keys.set(i, EMPTY);
+        }
+
+        private int get(long key) {
+            int home = hash(key);
+            for (int i = 0; i < PROBES; i++)
+            {
+                int slot = (home + i) & mask;
+                long k = keys.get(slot);
+                if (k == key)
+                {
+                    int value = values[slot];
+                    // the slot may have been taken by another key while reading the value
+                    if (keys.get(slot) != key)
+                        return -1;
+                    referenced[slot] = 1;
+                    return value;
+                }
+                // slots never become empty again, so the key cannot be further away
+                if (k == EMPTY)
+                    return -1;
+            }
+            return -1;
+        }
+
+        private void put(long key, int value) {
+            int home = hash(key);
+
+            for (int i = 0; i < PROBES; i++)
+            {
+                int slot = (home + i) & mask;
+                long k = keys.get(slot);
+                if (k == key)
+                    return;
+                if (k == EMPTY)
+                {
+                    if (claim(slot, EMPTY, key, value))
+                        return;
+                    k = keys.get(slot);
+                    if (k == key)
+                        return;
+                }
+            }
+
+            // the window is full: the first slot not referenced since the hand last passed it is evicted
+            for (int i = 0; i < 2 * PROBES; i++)
+            {
+                int slot = (home + i % PROBES) & mask;
+                long k = keys.get(slot);
+                if (k == LOCKED)
+                    continue;
+                if (referenced[slot] != 0)
+                {
+                    referenced[slot] = 0;
+                    continue;
+                }
+                if (claim(slot, k, key, value))
+                    return;
+            }
+        }
+
+        private boolean claim(int slot, long expected, long key, int value) {
+            if (!keys.compareAndSet(slot, expected, LOCKED))
+                return false;
+
+            values[slot] = value;
+            referenced[slot] = 0;
+            // publishing the key makes the value visible to the readers
+            keys.set(slot, key);
+            return true;
+        }
+
+        private int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.slaughtersquad.collision;
+
+import com.slaughtersquad.interf.ISegmentKernel;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Chooses the fastest {@link ISegmentKernel} available on the running JVM.
+ * <p>
+ * The vectorised kernel needs the incubating module {@code jdk.incubator.vector}, which is only present when the JVM
+ * is started with {@code --add-modules jdk.incubator.vector} (Robocode does not do it). Whenever the module is
+ * missing, or the obstacles are too far from the origin for 32-bit arithmetic, the scalar kernel is used.
+ */
+public final class SegmentKernels
+{
+    private static final boolean VECTOR_AVAILABLE = detectVector();
+
+    private SegmentKernels() {
+    }
+
+    /**
+     * Returns whether the vectorised kernel can be used on this JVM.
+     * @return true if the Vector API is available
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    private static boolean detectVector() {
+        try
+        {
+            // loading the class fails if the module was not added to the JVM
+            return VectorSegmentKernel.lanes() > 1;
+        }
+        catch (LinkageError | SecurityException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a kernel for the given obstacles.
+     * @param obstacles the obstacles
+     * @return a vectorised kernel if possible, a scalar one otherwise
+     */
+    public static ISegmentKernel create(List<Rectangle> obstacles) {
+        if (VECTOR_AVAILABLE)
+        {
+            try
+            {
+                return new VectorSegmentKernel(obstacles);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // obstacles out of range for the vectorised kernel
+            }
+        }
+        return new ScalarSegmentKernel(obstacles);
+    }
+}
@@ -0,0 +1,140 @@
+package com.slaughtersquad.collision;
+
+import com.slaughtersquad.interf.ISegmentKernel;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * {@link ISegmentKernel} built on the (incubating) Java Vector API: the obstacles are stored as a structure of arrays
+ * and a segment is tested against as many obstacles per instruction as the preferred vector shape of the CPU holds
+ * (4 with SSE or NEON, 8 with AVX2, 16 with AVX-512).
+ * <p>
+ * The test is the same as in {@link SegmentCollider}, computed with 32-bit integers. To keep the products exact the
+ * coordinates of the obstacles and of the segments must stay within ±{@link #MAX_COORDINATE}; segments outside that
+ * range are delegated to a {@link ScalarSegmentKernel}. Use {@link SegmentKernels#create(List)} to get an instance,
+ * since the Vector API is only available when the JVM runs with {@code --add-modules jdk.incubator.vector}.
+ */
+public class VectorSegmentKernel implements ISegmentKernel
+{
+    /**
+     * Largest absolute coordinate handled with 32-bit arithmetic.
+     */
+    public static final int MAX_COORDINATE = 8191;
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    // bounds given to empty obstacles and to the padding: no valid segment can overlap them
+    private static final int NEVER_MIN = 4 * MAX_COORDINATE, NEVER_MAX = -4 * MAX_COORDINATE;
+
+    private final int size;
+    private final int[] minX, minY, maxX, maxY;
+    private final ScalarSegmentKernel fallback;
+
+    /**
+     * Creates a kernel for the given obstacles.
+     * @param obstacles the obstacles, all within ±{@link #MAX_COORDINATE}
+     * @throws IllegalArgumentException if an obstacle is out of range
+     */
+    public VectorSegmentKernel(List<Rectangle> obstacles) {
+        size = obstacles.size();
+        int padded = SPECIES.loopBound(size + SPECIES.length() - 1);
+        minX = new int[padded];
+        minY = new int[padded];
+        maxX = new int[padded];
+        maxY = new int[padded];
+
+        for (int i = 0; i < padded; i++)
+        {
+            Rectangle r = i < size ? obstacles.get(i) : null;
+            if (r == null || r.width <= 0 || r.height <= 0)
+            {
+                minX[i] = minY[i] = NEVER_MIN;
+                maxX[i] = maxY[i] = NEVER_MAX;
+                continue;
+            }
+
+            if (!inRange(r.x) || !inRange(r.y) || !inRange(r.x + r.width) || !inRange(r.y + r.height))
+                throw new IllegalArgumentException("Obstacle out of range: " + r);
+            minX[i] = r.x;
+            minY[i] = r.y;
+            maxX[i] = r.x + r.width;
+            maxY[i] = r.y + r.height;
+        }
+
+        fallback = new ScalarSegmentKernel(obstacles);
+    }
+
+    /**
+     * Returns the number of obstacles tested per instruction.
+     * @return the number of lanes of the vectors used
+     */
+    public static int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int countHits(int x1, int y1, int x2, int y2) {
+        if (!inRange(x1) || !inRange(y1) || !inRange(x2) || !inRange(y2))
+            return fallback.countHits(x1, y1, x2, y2);
+
+        int hits = 0;
+        for (int i = 0; i < minX.length; i += SPECIES.length())
+            hits += hits(i, x1, y1, x2, y2).trueCount();
+        return hits;
+    }
+
+    @Override
+    public boolean intersectsAny(int x1, int y1, int x2, int y2) {
+        if (!inRange(x1) || !inRange(y1) || !inRange(x2) || !inRange(y2))
+            return fallback.intersectsAny(x1, y1, x2, y2);
+
+        for (int i = 0; i < minX.length; i += SPECIES.length())
+            if (hits(i, x1, y1, x2, y2).anyTrue())
+                return true;
+        return false;
+    }
+
+    /**
+     * Tests the segment against the obstacles starting at index i.
+     */
+    private VectorMask<Integer> hits(int i, int x1, int y1, int x2, int y2) {
+        IntVector ax = IntVector.fromArray(SPECIES, minX, i);
+        IntVector ay = IntVector.fromArray(SPECIES, minY, i);
+        IntVector bx = IntVector.fromArray(SPECIES, maxX, i);
+        IntVector by = IntVector.fromArray(SPECIES, maxY, i);
+
+        // the bounding boxes must overlap...
+        VectorMask<Integer> overlap = ax.compare(VectorOperators.LE, Math.max(x1, x2))
+                .and(bx.compare(VectorOperators.GE, Math.min(x1, x2)))
+                .and(ay.compare(VectorOperators.LE, Math.max(y1, y2)))
+                .and(by.compare(VectorOperators.GE, Math.min(y1, y2)));
+        if (!overlap.anyTrue())
+            return overlap;
+
+        // ...and the corners of the rectangles must not all lie on the same side of the line
+        int dx = x2 - x1, dy = y2 - y1;
+        IntVector top = ay.sub(y1).mul(dx), bottom = by.sub(y1).mul(dx);
+        IntVector left = ax.sub(x1).mul(dy), right = bx.sub(x1).mul(dy);
+        IntVector s0 = top.sub(left), s1 = top.sub(right), s2 = bottom.sub(left), s3 = bottom.sub(right);
+
+        VectorMask<Integer> positive = s0.compare(VectorOperators.GT, 0).and(s1.compare(VectorOperators.GT, 0))
+                .and(s2.compare(VectorOperators.GT, 0)).and(s3.compare(VectorOperators.GT, 0));
+        VectorMask<Integer> negative = s0.compare(VectorOperators.LT, 0).and(s1.compare(VectorOperators.LT, 0))
+                .and(s2.compare(VectorOperators.LT, 0)).and(s3.compare(VectorOperators.LT, 0));
+
+        return overlap.andNot(positive.or(negative));
+    }
+
+    private static boolean inRange(int value) {
+        return value >= -MAX_COORDINATE && value <= MAX_COORDINATE;
+    }
+}
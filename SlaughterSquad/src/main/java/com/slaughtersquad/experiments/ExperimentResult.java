@@ -0,0 +1,129 @@
+package com.slaughtersquad.experiments;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of one run of an {@link ExperimentRunner}: a planner on one map with one seed.
+ */
+public class ExperimentResult
+{
+    private final int map;
+    private final long seed;
+    private final long timeToValidNanos;
+    private final int generationToValid;
+    private final double fitness;
+    private final double pathLength;
+    private final int generations;
+    private final long elapsedNanos;
+    private final List<Improvement> improvements;
+
+    ExperimentResult(int map, long seed, double fitness, double pathLength, int generations, long elapsedNanos,
+                     List<Improvement> improvements) {
+        this.map = map;
+        this.seed = seed;
+        this.fitness = fitness;
+        this.pathLength = pathLength;
+        this.generations = generations;
+        this.elapsedNanos = elapsedNanos;
+        this.improvements = Collections.unmodifiableList(improvements);
+        this.timeToValidNanos = improvements.isEmpty() ? -1 : improvements.get(0).getElapsedNanos();
+        this.generationToValid = improvements.isEmpty() ? -1 : improvements.get(0).getGeneration();
+    }
+
+    /**
+     * Returns the number of the map (see {@link com.slaughtersquad.maps.Maps#getMap(int)}).
+     */
+    public int getMap() {
+        return map;
+    }
+
+    /**
+     * Returns the seed given to the planner, which repeats the run on its own.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns how long the run took to find its first valid path, in nanoseconds, or -1 if it found none.
+     */
+    public long getTimeToValidNanos() {
+        return timeToValidNanos;
+    }
+
+    /**
+     * Returns the generation in which the first valid path was found, or -1 if none was found.
+     */
+    public int getGenerationToValid() {
+        return generationToValid;
+    }
+
+    public boolean isValid() {
+        return !improvements.isEmpty();
+    }
+
+    /**
+     * Returns the fitness of the best valid path, or {@link Double#POSITIVE_INFINITY} if there is none.
+     */
+    public double getFitness() {
+        return fitness;
+    }
+
+    /**
+     * Returns the length of the best valid path, in pixels, or {@link Double#NaN} if there is none.
+     */
+    public double getPathLength() {
+        return pathLength;
+    }
+
+    public int getGenerations() {
+        return generations;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getGenerationsPerSecond() {
+        return elapsedNanos == 0 ? 0 : generations / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Returns every improvement of the best valid path, in the order they were found (the convergence curve).
+     */
+    public List<Improvement> getImprovements() {
+        return improvements;
+    }
+
+    /**
+     * A better valid path found during a run.
+     */
+    public static final class Improvement
+    {
+        private final int generation;
+        private final long elapsedNanos;
+        private final double fitness;
+
+        Improvement(int generation, long elapsedNanos, double fitness) {
+            this.generation = generation;
+            this.elapsedNanos = elapsedNanos;
+            this.fitness = fitness;
+        }
+
+        public int getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Returns the time since the run started, in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getFitness() {
+            return fitness;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.slaughtersquad.experiments;
+
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+import com.slaughtersquad.maps.Maps;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * Runs a planner on every map of {@link Maps} with several seeds, in parallel and without a viewer, and records how
+ * each run went (see {@link ExperimentResult}).
+ * <p>
+ * The seeds of the runs are drawn in order from a {@link SplittableRandom} built from {@link #getBaseSeed()} before
+ * any run starts, and every run builds its own planner from its seed and its own copy of the map. The work a run
+ * does therefore does not depend on the number of threads or on the order the runs finish in: a planner that stops
+ * on its own (e.g. {@link com.slaughtersquad.ga.GAConfig#setMaxGenerations(int)}) finds the same paths on every
+ * execution, and only the times change. A run that reaches {@link #getTimeLimitMillis()} first is cut wherever the
+ * clock stops it. Two runners with the same base seed give the same seeds to the same runs, so planners can be
+ * compared on the same problems.
+ */
+public class ExperimentRunner
+{
+    private static final int MAP_COUNT = 11;
+
+    private final LongFunction<IPlanner> plannerFactory;
+
+    private int[] maps = allMaps();
+    private int seeds = 10;
+    private long baseSeed = 12345L;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long timeLimitMillis = 10_000;
+    private long sliceMillis = 10;
+
+    /**
+     * Creates a runner.
+     * @param plannerFactory builds the planner of a run from its seed, e.g. a {@link com.slaughtersquad.ga.GeneticPlanner}
+     *                       whose configuration has that seed; it is called on the thread of the run
+     */
+    public ExperimentRunner(LongFunction<IPlanner> plannerFactory) {
+        this.plannerFactory = plannerFactory;
+    }
+
+    /**
+     * Returns the numbers of the maps the planner is run on (all of them by default).
+     */
+    public int[] getMaps() {
+        return maps.clone();
+    }
+
+    public void setMaps(int... maps) {
+        for (int map : maps)
+            if (map < 0 || map >= MAP_COUNT)
+                throw new IllegalArgumentException("no such map: " + map);
+        this.maps = maps.clone();
+    }
+
+    /**
+     * Returns how many times the planner is run on each map, with a different seed each time.
+     */
+    public int getSeeds() {
+        return seeds;
+    }
+
+    public void setSeeds(int seeds) {
+        if (seeds <= 0)
+            throw new IllegalArgumentException("seeds must be positive: " + seeds);
+        this.seeds = seeds;
+    }
+
+    /**
+     * Returns the seed the seeds of the runs are drawn from.
+     */
+    public long getBaseSeed() {
+        return baseSeed;
+    }
+
+    public void setBaseSeed(long baseSeed) {
+        this.baseSeed = baseSeed;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        this.threads = threads;
+    }
+
+    /**
+     * Returns the longest a run may take, in milliseconds, if its planner does not stop before.
+     */
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        if (timeLimitMillis <= 0)
+            throw new IllegalArgumentException("timeLimitMillis must be positive: " + timeLimitMillis);
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Returns how long each call to {@link IPlanningTask#resume(long)} lasts, in milliseconds.
+     */
+    public long getSliceMillis() {
+        return sliceMillis;
+    }
+
+    public void setSliceMillis(long sliceMillis) {
+        if (sliceMillis <= 0)
+            throw new IllegalArgumentException("sliceMillis must be positive: " + sliceMillis);
+        this.sliceMillis = sliceMillis;
+    }
+
+    /**
+     * Runs the planner on every map with every seed.
+     * @return the results, ordered by map and then by seed
+     * @throws InterruptedException if the thread is interrupted while waiting for the runs
+     * @throws ExecutionException if a run fails
+     */
+    public List<ExperimentResult> run() throws InterruptedException, ExecutionException {
+        SplittableRandom random = new SplittableRandom(baseSeed);
+        List<Callable<ExperimentResult>> runs = new ArrayList<>(maps.length * seeds);
+        for (int map : maps)
+            for (int i = 0; i < seeds; i++)
+            {
+                long seed = random.nextLong();
+                runs.add(() -> run(map, seed));
+            }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, runs.size()), r -> {
+            Thread t = new Thread(r, "experiment");
+            t.setDaemon(true);
+            return t;
+        });
+        try
+        {
+            List<ExperimentResult> results = new ArrayList<>(runs.size());
+            for (Future<ExperimentResult> future : executor.invokeAll(runs))
+                results.add(future.get());
+            return results;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the planner once, until it finishes or the time limit is reached.
+     * @param map the number of the map
+     * @param seed the seed of the planner
+     * @return the result of the run
+     * @throws Exception if the map does not exist or the planner fails
+     */
+    public ExperimentResult run(int map, long seed) throws Exception {
+        IUIConfiguration conf = Maps.getMap(map);
+        IPlanner planner = plannerFactory.apply(seed);
+
+        List<ExperimentResult.Improvement> improvements = new ArrayList<>();
+        long start = System.nanoTime();
+        IPlanningTask task = planner.newTask(conf, null);
+        task.setListener((path, fitness, generation) ->
+                improvements.add(new ExperimentResult.Improvement(generation, System.nanoTime() - start, fitness)));
+
+        long end = start + timeLimitMillis * 1_000_000L;
+        long now = start;
+        while (!task.isFinished() && now - end < 0)
+        {
+            // differences rather than comparisons of nanoTime values, which may wrap
+            if (!task.resume(now + Math.min(sliceMillis * 1_000_000L, end - now)))
+                break;
+            now = System.nanoTime();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        IPath best = task.getBestPath();
+        return new ExperimentResult(map, seed, task.getBestFitness(), best == null ? Double.NaN : length(best),
+                task.getGeneration(), elapsed, improvements);
+    }
+
+    /**
+     * Writes one line per run: map, seed, whether a valid path was found, time and generation of the first valid
+     * path, final fitness, path length, generations, time and generations per second.
+     * @param results the results of {@link #run()}
+     * @param out where to write; flushed but not closed
+     * @throws IOException if the writer fails
+     */
+    public static void writeSummary(List<ExperimentResult> results, Writer out) throws IOException {
+        PrintWriter csv = new PrintWriter(out);
+        csv.println("map,seed,valid,time_to_valid_ms,generation_to_valid,fitness,path_length,generations,elapsed_ms,generations_per_second");
+        for (ExperimentResult r : results)
+            csv.printf(Locale.ROOT, "%d,%d,%b,%.3f,%d,%.3f,%.3f,%d,%.3f,%.1f%n", r.getMap(), r.getSeed(), r.isValid(),
+                    r.getTimeToValidNanos() < 0 ? Double.NaN : r.getTimeToValidNanos() / 1e6, r.getGenerationToValid(),
+                    r.getFitness(), r.getPathLength(), r.getGenerations(), r.getElapsedNanos() / 1e6,
+                    r.getGenerationsPerSecond());
+        csv.flush();
+        if (csv.checkError())
+            throw new IOException("could not write the summary");
+    }
+
+    /**
+     * Writes the convergence curves: one line per improvement of each run (map, seed, generation, time, fitness).
+     * @param results the results of {@link #run()}
+     * @param out where to write; flushed but not closed
+     * @throws IOException if the writer fails
+     */
+    public static void writeConvergence(List<ExperimentResult> results, Writer out) throws IOException {
+        PrintWriter csv = new PrintWriter(out);
+        csv.println("map,seed,generation,elapsed_ms,fitness");
+        for (ExperimentResult r : results)
+            for (ExperimentResult.Improvement i : r.getImprovements())
+                csv.printf(Locale.ROOT, "%d,%d,%d,%.3f,%.3f%n", r.getMap(), r.getSeed(), i.getGeneration(),
+                        i.getElapsedNanos() / 1e6, i.getFitness());
+        csv.flush();
+        if (csv.checkError())
+            throw new IOException("could not write the convergence curves");
+    }
+
+    private static double length(IPath path) {
+        List<IPoint> points = path.getPoints();
+        double length = 0;
+        for (int i = 1; i < points.size(); i++)
+            length += Math.hypot(points.get(i).getX() - points.get(i - 1).getX(), points.get(i).getY() - points.get(i - 1).getY());
+        return length;
+    }
+
+    private static int[] allMaps() {
+        int[] maps = new int[MAP_COUNT];
+        for (int i = 0; i < MAP_COUNT; i++)
+            maps[i] = i;
+        return maps;
+    }
+}
@@ -0,0 +1,194 @@
+package com.slaughtersquad.experiments;
+
+import java.util.Arrays;
+
+/**
+ * Friedman test for k treatments (candidate configurations) measured on b blocks (problems), with the post-hoc
+ * comparison against the best treatment used by F-race (Birattari et al., 2002, after Conover, 1999).
+ * <p>
+ * Only the ranks of the treatments within each block are used, so costs on different scales (easy and hard maps)
+ * can be mixed, and an infinite cost (no valid path) simply ranks last.
+ */
+final class Friedman
+{
+    private Friedman() {
+    }
+
+    /**
+     * Ranks the costs of one block, from 1 (lowest cost); tied costs share the average of their ranks.
+     * @param costs the cost of each treatment
+     * @return the rank of each treatment
+     */
+    static double[] ranks(double[] costs) {
+        int k = costs.length;
+        Integer[] order = new Integer[k];
+        for (int i = 0; i < k; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(costs[a], costs[b]));
+
+        double[] ranks = new double[k];
+        for (int i = 0; i < k; )
+        {
+            int j = i;
+            while (j + 1 < k && Double.compare(costs[order[j + 1]], costs[order[i]]) == 0)
+                j++;
+            double rank = (i + j) / 2.0 + 1;
+            for (int t = i; t <= j; t++)
+                ranks[order[t]] = rank;
+            i = j + 1;
+        }
+        return ranks;
+    }
+
+    /**
+     * Finds the treatments that are worse than the best one.
+     * @param ranks the ranks of each block, ranks[block][treatment]
+     * @param alpha the significance level of both the Friedman test and the pairwise comparisons
+     * @return for each treatment, whether it is significantly worse than the treatment with the lowest rank sum;
+     *         all false if the Friedman test does not reject that the treatments are equivalent
+     */
+    static boolean[] dominated(double[][] ranks, double alpha) {
+        int b = ranks.length, k = ranks[0].length;
+        boolean[] dominated = new boolean[k];
+        if (b < 2 || k < 2)
+            return dominated;
+
+        double[] sums = new double[k];
+        double squares = 0;
+        for (double[] block : ranks)
+            for (int j = 0; j < k; j++)
+            {
+                sums[j] += block[j];
+                squares += block[j] * block[j];
+            }
+
+        // A - C of Conover: zero when every block is a complete tie
+        double spread = squares - b * k * (k + 1) * (k + 1) / 4.0;
+        if (spread <= 0)
+            return dominated;
+
+        double deviation = 0;
+        for (double sum : sums)
+            deviation += (sum - b * (k + 1) / 2.0) * (sum - b * (k + 1) / 2.0);
+        double t = (k - 1) * deviation / spread;
+        if (chiSquaredSurvival(t, k - 1) >= alpha)
+            return dominated;
+
+        int best = 0;
+        for (int j = 1; j < k; j++)
+            if (sums[j] < sums[best])
+                best = j;
+
+        int df = (b - 1) * (k - 1);
+        double scale = Math.sqrt(2 * b * spread * Math.max(0, 1 - t / (b * (k - 1))) / df);
+        for (int j = 0; j < k; j++)
+        {
+            double difference = sums[j] - sums[best];
+            if (difference <= 0)
+                continue;
+            // the same ranking in every block leaves no variance: any difference is significant
+            dominated[j] = scale == 0 || studentTwoTailed(difference / scale, df) < alpha;
+        }
+        return dominated;
+    }
+
+    /**
+     * Returns P(X &gt;= x) for a chi-squared variable with the given degrees of freedom.
+     */
+    static double chiSquaredSurvival(double x, int df) {
+        return x <= 0 ? 1 : upperGamma(df / 2.0, x / 2);
+    }
+
+    /**
+     * Returns P(|T| &gt;= t) for a Student t variable with the given degrees of freedom.
+     */
+    static double studentTwoTailed(double t, int df) {
+        return incompleteBeta(df / 2.0, 0.5, df / (df + t * t));
+    }
+
+    /**
+     * Regularized upper incomplete gamma function Q(a, x), by its series below a + 1 and its continued fraction
+     * above (Numerical Recipes, 6.2).
+     */
+    private static double upperGamma(double a, double x) {
+        if (x < a + 1)
+        {
+            double term = 1 / a, sum = term;
+            for (int n = 1; n < 1000 && Math.abs(term) > Math.abs(sum) * 1e-15; n++)
+            {
+                term *= x / (a + n);
+                sum += term;
+            }
+            return Math.max(0, 1 - sum * Math.exp(-x + a * Math.log(x) - logGamma(a)));
+        }
+
+        double b = x + 1 - a, c = 1 / Double.MIN_NORMAL, d = 1 / b, h = d;
+        for (int i = 1; i < 1000; i++)
+        {
+            double an = -i * (i - a);
+            b += 2;
+            d = an * d + b;
+            d = Math.abs(d) < Double.MIN_NORMAL ? Double.MIN_NORMAL : d;
+            c = b + an / c;
+            c = Math.abs(c) < Double.MIN_NORMAL ? Double.MIN_NORMAL : c;
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < 1e-15)
+                break;
+        }
+        return Math.exp(-x + a * Math.log(x) - logGamma(a)) * h;
+    }
+
+    /**
+     * Regularized incomplete beta function I_x(a, b), by its continued fraction (Numerical Recipes, 6.4).
+     */
+    private static double incompleteBeta(double a, double b, double x) {
+        if (x <= 0)
+            return 0;
+        if (x >= 1)
+            return 1;
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+        // the continued fraction converges quickly only on this side of the mean
+        if (x > (a + 1) / (a + b + 2))
+            return 1 - front * betaFraction(b, a, 1 - x) / b;
+        return front * betaFraction(a, b, x) / a;
+    }
+
+    private static double betaFraction(double a, double b, double x) {
+        double c = 1, d = 1 - (a + b) * x / (a + 1);
+        d = 1 / (Math.abs(d) < Double.MIN_NORMAL ? Double.MIN_NORMAL : d);
+        double h = d;
+        for (int m = 1; m < 1000; m++)
+        {
+            for (int step = 0; step < 2; step++)
+            {
+                double an = step == 0
+                        ? m * (b - m) * x / ((a + 2 * m - 1) * (a + 2 * m))
+                        : -(a + m) * (a + b + m) * x / ((a + 2 * m) * (a + 2 * m + 1));
+                d = 1 + an * d;
+                d = 1 / (Math.abs(d) < Double.MIN_NORMAL ? Double.MIN_NORMAL : d);
+                c = 1 + an / c;
+                c = Math.abs(c) < Double.MIN_NORMAL ? Double.MIN_NORMAL : c;
+                h *= d * c;
+                if (step == 1 && Math.abs(d * c - 1) < 1e-15)
+                    return h;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Lanczos approximation of ln(Gamma(x)), for x &gt; 0.
+     */
+    private static double logGamma(double x) {
+        double[] g = { 76.18009172947146, -86.50531032941677, 24.01409824083091, -1.231739572450155,
+                0.1208650973866179e-2, -0.5395239384953e-5 };
+        double y = x, tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double c : g)
+            series += c / ++y;
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+}
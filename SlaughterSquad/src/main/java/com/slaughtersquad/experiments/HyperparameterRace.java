@@ -0,0 +1,375 @@
+package com.slaughtersquad.experiments;
+
+import com.slaughtersquad.ga.CrossoverType;
+import com.slaughtersquad.ga.GAConfig;
+import com.slaughtersquad.ga.GeneticPlanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tunes the {@link GeneticPlanner} by racing candidate configurations (F-race, Birattari et al., 2002).
+ * <p>
+ * The race is run in blocks: a block is a problem (one of the maps of the race, in turn, with a new seed) on which
+ * every surviving candidate is run with the same seed. Once {@link #getMinBlocks()} blocks are done, a Friedman test
+ * on the ranks of the survivors follows each block, and the candidates that are significantly worse than the best
+ * one are dropped, so the remaining runs go to the settings that still have a chance. The race stops when one
+ * candidate is left or after {@link #getMaxBlocks()} blocks.
+ * <p>
+ * Every run gets the same number of fitness evaluations ({@link #getEvaluationBudget()} divided by the population
+ * size gives its generations), so large and small populations are compared at the same cost and a run does not
+ * depend on the speed of the machine. The seeds of the blocks are drawn in order from {@link #getBaseSeed()}, and a
+ * candidate dropped in the middle of a batch of blocks is ignored in the following ones, so the outcome of a race
+ * does not depend on the number of threads. All the runs of every race share the thread pool of the racer; several
+ * blocks are run at once when there are fewer survivors than threads.
+ */
+public class HyperparameterRace implements AutoCloseable
+{
+    private final List<GAConfig> candidates;
+    private final int threads;
+    private final ExecutorService executor;
+
+    private int evaluationBudget = 20_000;
+    private int minBlocks = 5;
+    private int maxBlocks = 40;
+    private double alpha = 0.05;
+    private long baseSeed = 12345L;
+    private long timeLimitMillis = 10_000;
+
+    /**
+     * Creates a racer with one thread per available processor.
+     * @param candidates the configurations to race; their seeds and maximum generations are replaced in every run
+     */
+    public HyperparameterRace(List<GAConfig> candidates) {
+        this(candidates, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a racer.
+     * @param candidates the configurations to race; their seeds and maximum generations are replaced in every run
+     * @param threads the number of runs done at the same time
+     */
+    public HyperparameterRace(List<GAConfig> candidates, int threads) {
+        if (candidates.isEmpty())
+            throw new IllegalArgumentException("there are no candidates");
+        if (threads <= 0)
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+
+        this.candidates = new ArrayList<>(candidates.size());
+        for (GAConfig c : candidates)
+            this.candidates.add(c.copy());
+        this.threads = threads;
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "race");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Builds every combination of the given values on top of a base configuration.
+     * @param base the configuration that provides the other parameters
+     * @param populationSizes the population sizes to try
+     * @param mutationRates the mutation rates to try
+     * @param crossoverTypes the crossover operators to try
+     * @param elitisms the numbers of elite individuals to try
+     * @return the candidates, population size varying slowest
+     */
+    public static List<GAConfig> grid(GAConfig base, int[] populationSizes, double[] mutationRates,
+                                      CrossoverType[] crossoverTypes, int[] elitisms) {
+        List<GAConfig> grid = new ArrayList<>();
+        for (int populationSize : populationSizes)
+            for (double mutationRate : mutationRates)
+                for (CrossoverType crossoverType : crossoverTypes)
+                    for (int elitism : elitisms)
+                    {
+                        GAConfig c = base.copy();
+                        c.setPopulationSize(populationSize);
+                        c.setMutationRate(mutationRate);
+                        c.setCrossoverType(crossoverType);
+                        c.setElitism(elitism);
+                        grid.add(c);
+                    }
+        return grid;
+    }
+
+    public List<GAConfig> getCandidates() {
+        return Collections.unmodifiableList(candidates);
+    }
+
+    /**
+     * Returns how many fitness evaluations each run may do.
+     */
+    public int getEvaluationBudget() {
+        return evaluationBudget;
+    }
+
+    public void setEvaluationBudget(int evaluationBudget) {
+        if (evaluationBudget <= 0)
+            throw new IllegalArgumentException("evaluationBudget must be positive: " + evaluationBudget);
+        this.evaluationBudget = evaluationBudget;
+    }
+
+    /**
+     * Returns how many blocks are run before the first test.
+     */
+    public int getMinBlocks() {
+        return minBlocks;
+    }
+
+    public void setMinBlocks(int minBlocks) {
+        if (minBlocks < 2)
+            throw new IllegalArgumentException("minBlocks must be at least 2: " + minBlocks);
+        this.minBlocks = minBlocks;
+    }
+
+    /**
+     * Returns after how many blocks the race stops even if several candidates are left.
+     */
+    public int getMaxBlocks() {
+        return maxBlocks;
+    }
+
+    public void setMaxBlocks(int maxBlocks) {
+        if (maxBlocks <= 0)
+            throw new IllegalArgumentException("maxBlocks must be positive: " + maxBlocks);
+        this.maxBlocks = maxBlocks;
+    }
+
+    /**
+     * Returns the significance level of the tests.
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public void setAlpha(double alpha) {
+        if (!(alpha > 0 && alpha < 1))
+            throw new IllegalArgumentException("alpha must be in (0, 1): " + alpha);
+        this.alpha = alpha;
+    }
+
+    public long getBaseSeed() {
+        return baseSeed;
+    }
+
+    public void setBaseSeed(long baseSeed) {
+        this.baseSeed = baseSeed;
+    }
+
+    /**
+     * Returns the longest a run may take, in milliseconds, if it has not used its budget before.
+     */
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        if (timeLimitMillis <= 0)
+            throw new IllegalArgumentException("timeLimitMillis must be positive: " + timeLimitMillis);
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Races the candidates on a class of maps.
+     * @param maps the numbers of the maps of the class (see {@link com.slaughtersquad.maps.Maps#getMap(int)})
+     * @return the outcome of the race
+     * @throws InterruptedException if the thread is interrupted while waiting for the runs
+     * @throws ExecutionException if a run fails
+     */
+    public Result race(int... maps) throws InterruptedException, ExecutionException {
+        if (maps.length == 0)
+            throw new IllegalArgumentException("there are no maps");
+
+        int k = candidates.size();
+        List<ExperimentRunner> runners = new ArrayList<>(k);
+        for (GAConfig candidate : candidates)
+            runners.add(runner(candidate));
+
+        List<Integer> alive = new ArrayList<>(k);
+        for (int i = 0; i < k; i++)
+            alive.add(i);
+        int[] eliminatedAt = new int[k];
+        Arrays.fill(eliminatedAt, -1);
+
+        // costs[block][candidate], for the candidates that were alive when the block was submitted
+        List<double[]> costs = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(baseSeed);
+        long runs = 0;
+
+        while (alive.size() > 1 && costs.size() < maxBlocks)
+        {
+            // enough blocks to keep every thread busy, and all the blocks of the first test at once
+            int batch = Math.max((threads + alive.size() - 1) / alive.size(), minBlocks - costs.size());
+            batch = Math.max(1, Math.min(batch, maxBlocks - costs.size()));
+
+            List<List<Future<ExperimentResult>>> submitted = new ArrayList<>(batch);
+            List<Integer> running = new ArrayList<>(alive);
+            for (int b = 0; b < batch; b++)
+            {
+                int map = maps[(costs.size() + b) % maps.length];
+                long seed = random.nextLong();
+                List<Future<ExperimentResult>> block = new ArrayList<>(running.size());
+                for (int c : running)
+                {
+                    ExperimentRunner runner = runners.get(c);
+                    block.add(executor.submit(() -> runner.run(map, seed)));
+                }
+                submitted.add(block);
+                runs += running.size();
+            }
+
+            for (List<Future<ExperimentResult>> block : submitted)
+            {
+                double[] row = new double[k];
+                Arrays.fill(row, Double.NaN);
+                for (int i = 0; i < running.size(); i++)
+                    row[running.get(i)] = block.get(i).get().getFitness();
+                costs.add(row);
+
+                if (alive.size() > 1 && costs.size() >= minBlocks)
+                {
+                    boolean[] dominated = Friedman.dominated(ranks(costs, alive), alpha);
+                    List<Integer> kept = new ArrayList<>(alive.size());
+                    for (int i = 0; i < alive.size(); i++)
+                        if (dominated[i])
+                            eliminatedAt[alive.get(i)] = costs.size();
+                        else
+                            kept.add(alive.get(i));
+                    alive = kept;
+                }
+            }
+        }
+
+        // the survivors, from the lowest rank sum
+        double[] sums = new double[alive.size()];
+        for (double[] block : ranks(costs, alive))
+            for (int i = 0; i < sums.length; i++)
+                sums[i] += block[i];
+        List<Integer> order = new ArrayList<>(alive.size());
+        for (int i = 0; i < alive.size(); i++)
+            order.add(i);
+        order.sort((a, b) -> Double.compare(sums[a], sums[b]));
+        int[] survivors = new int[alive.size()];
+        double[] meanRanks = new double[alive.size()];
+        for (int i = 0; i < survivors.length; i++)
+        {
+            survivors[i] = alive.get(order.get(i));
+            meanRanks[i] = sums[order.get(i)] / costs.size();
+        }
+
+        return new Result(candidates, survivors, meanRanks, eliminatedAt, costs.size(), runs);
+    }
+
+    /**
+     * Stops the threads of the racer.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private ExperimentRunner runner(GAConfig candidate) {
+        int generations = Math.max(1, evaluationBudget / candidate.getPopulationSize());
+        ExperimentRunner runner = new ExperimentRunner(seed -> {
+            GAConfig c = candidate.copy();
+            c.setSeed(seed);
+            c.setMaxGenerations(generations);
+            return new GeneticPlanner(c);
+        });
+        runner.setTimeLimitMillis(timeLimitMillis);
+        return runner;
+    }
+
+    /**
+     * Ranks the given candidates within every block.
+     */
+    private static double[][] ranks(List<double[]> costs, List<Integer> candidates) {
+        double[][] ranks = new double[costs.size()][];
+        double[] block = new double[candidates.size()];
+        for (int b = 0; b < ranks.length; b++)
+        {
+            for (int i = 0; i < block.length; i++)
+                block[i] = costs.get(b)[candidates.get(i)];
+            ranks[b] = Friedman.ranks(block);
+        }
+        return ranks;
+    }
+
+    /**
+     * Outcome of a race.
+     */
+    public static final class Result
+    {
+        private final List<GAConfig> candidates;
+        private final int[] survivors;
+        private final double[] meanRanks;
+        private final int[] eliminatedAt;
+        private final int blocks;
+        private final long runs;
+
+        private Result(List<GAConfig> candidates, int[] survivors, double[] meanRanks, int[] eliminatedAt, int blocks,
+                       long runs) {
+            this.candidates = candidates;
+            this.survivors = survivors;
+            this.meanRanks = meanRanks;
+            this.eliminatedAt = eliminatedAt;
+            this.blocks = blocks;
+            this.runs = runs;
+        }
+
+        /**
+         * Returns the best configuration: the survivor with the best mean rank.
+         */
+        public GAConfig getBest() {
+            return candidates.get(survivors[0]).copy();
+        }
+
+        /**
+         * Returns the indexes of the candidates left at the end of the race, from the best.
+         */
+        public int[] getSurvivors() {
+            return survivors.clone();
+        }
+
+        /**
+         * Returns the mean ranks of the survivors among themselves, in the order of {@link #getSurvivors()}.
+         */
+        public double[] getMeanRanks() {
+            return meanRanks.clone();
+        }
+
+        /**
+         * Returns after how many blocks a candidate was dropped, or -1 if it survived.
+         * @param candidate the index of the candidate
+         */
+        public int getEliminatedAt(int candidate) {
+            return eliminatedAt[candidate];
+        }
+
+        public int getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * Returns how many runs were done, which includes the runs of a batch that followed the elimination of
+         * their candidate.
+         */
+        public long getRuns() {
+            return runs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d of %d candidates left after %d blocks (%d runs instead of %d), best %s",
+                    survivors.length, candidates.size(), blocks, runs, (long) blocks * candidates.size(), getBest());
+        }
+    }
+}
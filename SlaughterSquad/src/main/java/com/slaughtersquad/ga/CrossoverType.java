@@ -0,0 +1,19 @@
+package com.slaughtersquad.ga;
+
+/**
+ * Crossover operators available to the genetic planner.
+ */
+public enum CrossoverType
+{
+    /**
+     * The child takes the waypoints of the first parent up to a cut point and the waypoints of the second parent
+     * after another cut point.
+     */
+    ONE_POINT,
+
+    /**
+     * The child takes the waypoints of the first parent, with a section between two cut points replaced by a
+     * section of the second parent.
+     */
+    TWO_POINT
+}
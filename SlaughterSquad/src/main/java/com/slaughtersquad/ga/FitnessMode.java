@@ -0,0 +1,18 @@
+package com.slaughtersquad.ga;
+
+/**
+ * What the genetic planner minimises, besides the penalty for every intersection with an obstacle.
+ */
+public enum FitnessMode
+{
+    /**
+     * The Euclidean length of the path.
+     */
+    LENGTH,
+
+    /**
+     * The estimated number of ticks a robot needs to follow the path, counting the turns at the waypoints and the
+     * acceleration and braking on each segment (see {@link com.slaughtersquad.planning.TraversalTimeModel}).
+     */
+    TIME
+}
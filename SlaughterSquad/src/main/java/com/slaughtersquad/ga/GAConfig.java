@@ -0,0 +1,239 @@
+package com.slaughtersquad.ga;
+
+/**
+ * Parameters of the genetic algorithm used by the {@link GeneticPlanner}.
+ */
+public class GAConfig
+{
+    private int populationSize = 100;
+    private int maxWaypoints = 8;
+    private int elitism = 2;
+    private int tournamentSize = 3;
+    private double crossoverRate = 0.9;
+    private double mutationRate = 0.4;
+    private double mutationSigma = 0.1;
+    private CrossoverType crossoverType = CrossoverType.ONE_POINT;
+    private FitnessMode fitnessMode = FitnessMode.LENGTH;
+    private double collisionPenalty = 1000;
+    private int maxGenerations = 0;
+    private int hitCacheSize = 1 << 15;
+    private boolean coalesceObstacles = true;
+    private int kernelMaxObstacles = 16;
+    private double seedFraction = 0.2;
+    private Long seed = null;
+
+    /**
+     * Returns a copy of this configuration.
+     * @return a copy of this configuration
+     */
+    public GAConfig copy() {
+        GAConfig c = new GAConfig();
+        c.populationSize = populationSize;
+        c.maxWaypoints = maxWaypoints;
+        c.elitism = elitism;
+        c.tournamentSize = tournamentSize;
+        c.crossoverRate = crossoverRate;
+        c.mutationRate = mutationRate;
+        c.mutationSigma = mutationSigma;
+        c.crossoverType = crossoverType;
+        c.fitnessMode = fitnessMode;
+        c.collisionPenalty = collisionPenalty;
+        c.maxGenerations = maxGenerations;
+        c.hitCacheSize = hitCacheSize;
+        c.coalesceObstacles = coalesceObstacles;
+        c.kernelMaxObstacles = kernelMaxObstacles;
+        c.seedFraction = seedFraction;
+        c.seed = seed;
+        return c;
+    }
+
+    public int getPopulationSize() {
+        return populationSize;
+    }
+
+    public void setPopulationSize(int populationSize) {
+        this.populationSize = populationSize;
+    }
+
+    /**
+     * Returns the maximum number of intermediate waypoints of a path (excluding start and end).
+     * @return the maximum number of intermediate waypoints
+     */
+    public int getMaxWaypoints() {
+        return maxWaypoints;
+    }
+
+    public void setMaxWaypoints(int maxWaypoints) {
+        this.maxWaypoints = maxWaypoints;
+    }
+
+    /**
+     * Returns how many of the best individuals are copied unchanged to the next generation.
+     * @return the number of elite individuals
+     */
+    public int getElitism() {
+        return elitism;
+    }
+
+    public void setElitism(int elitism) {
+        this.elitism = elitism;
+    }
+
+    public int getTournamentSize() {
+        return tournamentSize;
+    }
+
+    public void setTournamentSize(int tournamentSize) {
+        this.tournamentSize = tournamentSize;
+    }
+
+    public double getCrossoverRate() {
+        return crossoverRate;
+    }
+
+    public void setCrossoverRate(double crossoverRate) {
+        this.crossoverRate = crossoverRate;
+    }
+
+    public double getMutationRate() {
+        return mutationRate;
+    }
+
+    public void setMutationRate(double mutationRate) {
+        this.mutationRate = mutationRate;
+    }
+
+    /**
+     * Returns the standard deviation used to move a waypoint, as a fraction of the size of the map.
+     * @return the standard deviation of the waypoint mutation
+     */
+    public double getMutationSigma() {
+        return mutationSigma;
+    }
+
+    public void setMutationSigma(double mutationSigma) {
+        this.mutationSigma = mutationSigma;
+    }
+
+    public CrossoverType getCrossoverType() {
+        return crossoverType;
+    }
+
+    public void setCrossoverType(CrossoverType crossoverType) {
+        this.crossoverType = crossoverType;
+    }
+
+    /**
+     * Returns what the planner minimises: the length of the path or the estimated time to follow it.
+     * @return the fitness mode
+     */
+    public FitnessMode getFitnessMode() {
+        return fitnessMode;
+    }
+
+    public void setFitnessMode(FitnessMode fitnessMode) {
+        this.fitnessMode = fitnessMode;
+    }
+
+    /**
+     * Returns the value added to the fitness for each intersection between the path and an obstacle.
+     * @return the collision penalty
+     */
+    public double getCollisionPenalty() {
+        return collisionPenalty;
+    }
+
+    public void setCollisionPenalty(double collisionPenalty) {
+        this.collisionPenalty = collisionPenalty;
+    }
+
+    /**
+     * Returns the number of generations after which the search stops (0 means no limit).
+     * @return the maximum number of generations
+     */
+    public int getMaxGenerations() {
+        return maxGenerations;
+    }
+
+    public void setMaxGenerations(int maxGenerations) {
+        this.maxGenerations = maxGenerations;
+    }
+
+    /**
+     * Returns how many segments are kept in the collision cache of the planner (0 disables the cache).
+     * @return the capacity of the collision cache
+     */
+    public int getHitCacheSize() {
+        return hitCacheSize;
+    }
+
+    public void setHitCacheSize(int hitCacheSize) {
+        this.hitCacheSize = hitCacheSize;
+    }
+
+    /**
+     * Returns whether touching and overlapping obstacles are merged before the search starts (see
+     * {@link com.slaughtersquad.collision.ObstacleCoalescer}). The blocked area is the same, so only the number of
+     * intersections of invalid paths changes.
+     * @return true if the obstacles are coalesced
+     */
+    public boolean isCoalesceObstacles() {
+        return coalesceObstacles;
+    }
+
+    public void setCoalesceObstacles(boolean coalesceObstacles) {
+        this.coalesceObstacles = coalesceObstacles;
+    }
+
+    /**
+     * Returns the number of (coalesced) obstacles up to which segments are tested against every obstacle with a
+     * {@link com.slaughtersquad.collision.ScalarSegmentKernel} instead of the grid of a
+     * {@link com.slaughtersquad.collision.SegmentCollider}. With a few obstacles the grid only adds overhead; with
+     * hundreds it tests far fewer of them.
+     * @return the largest number of obstacles tested with a segment kernel
+     */
+    public int getKernelMaxObstacles() {
+        return kernelMaxObstacles;
+    }
+
+    public void setKernelMaxObstacles(int kernelMaxObstacles) {
+        this.kernelMaxObstacles = kernelMaxObstacles;
+    }
+
+    /**
+     * Returns the fraction of the initial population built from mutated copies of the seed path, when the planner
+     * has a seeder (see {@link GeneticPlanner#setSeeder}). The rest of the population stays random, to keep some
+     * diversity.
+     * @return the fraction of the initial population derived from the seed
+     */
+    public double getSeedFraction() {
+        return seedFraction;
+    }
+
+    public void setSeedFraction(double seedFraction) {
+        this.seedFraction = seedFraction;
+    }
+
+    /**
+     * Returns the seed of the random number generator, or null to use a different seed on every run.
+     * @return the seed of the random number generator
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Describes the search parameters (not the seed nor the caches), e.g. to report the result of a tuning run.
+     */
+    @Override
+    public String toString() {
+        return String.format(java.util.Locale.ROOT,
+                "GAConfig[population %d, waypoints %d, elitism %d, tournament %d, crossover %s %.2f, mutation %.2f (sigma %.2f), %s]",
+                populationSize, maxWaypoints, elitism, tournamentSize, crossoverType, crossoverRate, mutationRate,
+                mutationSigma, fitnessMode);
+    }
+}
@@ -0,0 +1,154 @@
+package com.slaughtersquad.ga;
+
+import java.util.SplittableRandom;
+
+/**
+ * Selection, crossover and mutation operators of the genetic planner. Operators never modify their parents.
+ */
+public class GeneticOperators
+{
+    private final GAConfig config;
+    private final int width, height;
+    private final double sigma;
+
+    /**
+     * Creates the operators for a map of the given size.
+     * @param config the parameters of the genetic algorithm
+     * @param width the width of the map
+     * @param height the height of the map
+     */
+    public GeneticOperators(GAConfig config, int width, int height) {
+        this.config = config;
+        this.width = width;
+        this.height = height;
+        this.sigma = config.getMutationSigma() * Math.max(width, height);
+    }
+
+    /**
+     * Creates an individual with a random number of random waypoints.
+     * @param rng the random number generator
+     * @return the new individual (not evaluated)
+     */
+    public Individual randomIndividual(SplittableRandom rng) {
+        int max = config.getMaxWaypoints();
+        Individual ind = new Individual(max);
+        ind.size = max == 0 ? 0 : rng.nextInt(max / 2 + 1);
+        for (int i = 0; i < ind.size; i++)
+        {
+            ind.xs[i] = rng.nextInt(width);
+            ind.ys[i] = rng.nextInt(height);
+        }
+        ind.invalidate();
+        return ind;
+    }
+
+    /**
+     * Picks an individual by tournament. The population must be evaluated.
+     * @param population the population
+     * @param n the number of individuals in the population
+     * @param rng the random number generator
+     * @return the winner of the tournament
+     */
+    public Individual tournament(Individual[] population, int n, SplittableRandom rng) {
+        Individual best = population[rng.nextInt(n)];
+        for (int i = 1; i < config.getTournamentSize(); i++)
+        {
+            Individual other = population[rng.nextInt(n)];
+            if (other.fitness < best.fitness)
+                best = other;
+        }
+        return best;
+    }
+
+    /**
+     * Creates a child by combining the waypoints of two parents. The parents must be evaluated: the child reuses
+     * their cached segments, so only the segments at the splice points are evaluated again.
+     * @param a the first parent
+     * @param b the second parent
+     * @param rng the random number generator
+     * @return the child (partially evaluated)
+     */
+    public Individual crossover(Individual a, Individual b, SplittableRandom rng) {
+        Splice splice = new Splice(new Individual(config.getMaxWaypoints()), config.getMaxWaypoints());
+
+        if (config.getCrossoverType() == CrossoverType.TWO_POINT)
+        {
+            int a1 = rng.nextInt(a.size + 1), a2 = a1 + rng.nextInt(a.size - a1 + 1);
+            int b1 = rng.nextInt(b.size + 1), b2 = b1 + rng.nextInt(b.size - b1 + 1);
+            splice.append(a, 0, a1);
+            splice.append(b, b1, b2);
+            splice.append(a, a2, a.size);
+        }
+        else
+        {
+            int cutA = rng.nextInt(a.size + 1), cutB = rng.nextInt(b.size + 1);
+            splice.append(a, 0, cutA);
+            splice.append(b, cutB, b.size);
+        }
+
+        return splice.close();
+    }
+
+    /**
+     * Applies a random mutation to an individual: moves, inserts or removes a waypoint.
+     * @param ind the individual to change
+     * @param rng the random number generator
+     */
+    public void mutate(Individual ind, SplittableRandom rng) {
+        int max = config.getMaxWaypoints();
+        double op = rng.nextDouble();
+
+        if (ind.size > 0 && (op < 0.6 || (op < 0.8 && ind.size >= max)))
+        {
+            int i = rng.nextInt(ind.size);
+            ind.setWaypoint(i, clamp(ind.xs[i] + (int) Math.round(gaussian(rng) * sigma), width),
+                    clamp(ind.ys[i] + (int) Math.round(gaussian(rng) * sigma), height));
+        }
+        else if (ind.size < max && (op < 0.8 || ind.size == 0))
+            ind.insertWaypoint(rng.nextInt(ind.size + 1), rng.nextInt(width), rng.nextInt(height));
+        else if (ind.size > 0)
+            ind.removeWaypoint(rng.nextInt(ind.size));
+    }
+
+    /**
+     * Builds a child from runs of waypoints of its parents, keeping track of which segments can be reused.
+     */
+    private static final class Splice
+    {
+        private final Individual child;
+        private final int max;
+        // where the last waypoint of the child came from (null and -1 stand for the start of the path)
+        private Individual lastSource;
+        private int lastIndex = -1;
+
+        private Splice(Individual child, int max) {
+            this.child = child;
+            this.max = max;
+        }
+
+        private void append(Individual from, int start, int end) {
+            for (int i = start; i < end && child.size < max; i++)
+            {
+                boolean sameSource = lastSource == null ? child.size == 0 && i == 0 : lastSource == from && lastIndex == i - 1;
+                child.appendWaypoint(from, i, sameSource);
+                lastSource = from;
+                lastIndex = i;
+            }
+        }
+
+        private Individual close() {
+            child.closePath(lastSource != null && lastIndex == lastSource.size - 1 ? lastSource : null);
+            return child;
+        }
+    }
+
+    private static int clamp(int v, int size) {
+        return Math.max(0, Math.min(size - 1, v));
+    }
+
+    private static double gaussian(SplittableRandom rng) {
+        // Box-Muller, SplittableRandom has no nextGaussian in Java 17
+        double u = 1.0 - rng.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * rng.nextDouble());
+    }
+}
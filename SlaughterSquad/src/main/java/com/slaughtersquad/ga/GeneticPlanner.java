@@ -0,0 +1,152 @@
+package com.slaughtersquad.ga;
+
+import com.slaughtersquad.collision.SegmentHitCache;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPathSeeder;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPlannerListener;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.ISegmentKernel;
+import com.slaughtersquad.interf.IUIConfiguration;
+import com.slaughtersquad.planning.CancelToken;
+
+import java.util.SplittableRandom;
+
+/**
+ * Path planner based on a genetic algorithm. Each individual is a list of intermediate waypoints and the fitness is
+ * the length of the path plus a penalty for every obstacle it crosses.
+ * <p>
+ * The planner is an anytime algorithm: a task can be run for a few milliseconds per tick and always knows the best
+ * valid path found so far. An optional {@link IPathSeeder} (e.g. a
+ * {@link com.slaughtersquad.planning.VisibilityGraphPlanner}) provides a path around which the initial population is
+ * built, so the search starts close to a good solution.
+ */
+public class GeneticPlanner implements IPlanner
+{
+    private final GAConfig config;
+    private final SegmentHitCache hitCache;
+    private volatile IPathSeeder seeder;
+
+    /**
+     * Creates a planner with the default parameters.
+     */
+    public GeneticPlanner() {
+        this(new GAConfig());
+    }
+
+    /**
+     * Creates a planner with the given parameters.
+     * @param config the parameters of the genetic algorithm
+     */
+    public GeneticPlanner(GAConfig config) {
+        this.config = config.copy();
+        this.hitCache = config.getHitCacheSize() > 0 ? new SegmentHitCache(config.getHitCacheSize()) : null;
+    }
+
+    public GAConfig getConfig() {
+        return config.copy();
+    }
+
+    /**
+     * Returns the collision cache shared by the tasks of this planner.
+     * @return the collision cache, or null if it is disabled
+     */
+    public SegmentHitCache getHitCache() {
+        return hitCache;
+    }
+
+    public IPathSeeder getSeeder() {
+        return seeder;
+    }
+
+    /**
+     * Sets the planner used to seed the initial population of the tasks created from now on.
+     * @param seeder the seeder, or null to start from a random population
+     */
+    public void setSeeder(IPathSeeder seeder) {
+        this.seeder = seeder;
+    }
+
+    @Override
+    public IPlanningTask newTask(IUIConfiguration conf, CancelToken cancel) {
+        return new Task(conf, cancel == null ? new CancelToken() : cancel);
+    }
+
+    private class Task implements IPlanningTask
+    {
+        private final IUIConfiguration conf;
+        private final CancelToken cancel;
+        private final GeneticSearch search;
+        private final IPathSeeder taskSeeder;
+        private boolean seeded;
+
+        private IPlannerListener listener;
+        private Individual reported;
+        private IPath bestPath;
+
+        private Task(IUIConfiguration conf, CancelToken cancel) {
+            this.conf = conf;
+            this.cancel = cancel;
+
+            SplittableRandom rng = config.getSeed() == null ? new SplittableRandom() : new SplittableRandom(config.getSeed());
+            ISegmentKernel collider = PathEvaluator.collider(conf, config);
+            this.search = new GeneticSearch(conf, config, new PathEvaluator(conf, collider, hitCache, config), rng);
+            this.taskSeeder = seeder;
+        }
+
+        @Override
+        public boolean resume(long deadlineNanos) {
+            if (!seeded && taskSeeder != null && !isFinished())
+            {
+                // the seed is searched within the first slice of time, like the rest of the work
+                seeded = true;
+                IPath path = taskSeeder.seed(conf);
+                if (path != null)
+                    search.seed(Individual.fromPath(path, Math.max(config.getMaxWaypoints(), path.getPoints().size() - 2)));
+            }
+
+            while (!isFinished() && System.nanoTime() - deadlineNanos < 0)
+            {
+                if (!search.runGeneration(deadlineNanos))
+                    break;
+
+                Individual best = search.getBestValid();
+                if (best != null && best != reported)
+                {
+                    reported = best;
+                    bestPath = best.toPath(conf);
+                    if (listener != null)
+                        listener.onImprovement(bestPath, best.fitness, search.getGeneration());
+                }
+            }
+
+            return !isFinished();
+        }
+
+        @Override
+        public IPath getBestPath() {
+            return bestPath;
+        }
+
+        @Override
+        public double getBestFitness() {
+            return reported == null ? Double.POSITIVE_INFINITY : reported.fitness;
+        }
+
+        @Override
+        public int getGeneration() {
+            return search.getGeneration();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return cancel.isCancelled()
+                    || (config.getMaxGenerations() > 0 && search.getGeneration() >= config.getMaxGenerations());
+        }
+
+        @Override
+        public void setListener(IPlannerListener listener) {
+            this.listener = listener;
+        }
+    }
+}
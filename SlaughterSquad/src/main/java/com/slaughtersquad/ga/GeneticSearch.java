@@ -0,0 +1,214 @@
+package com.slaughtersquad.ga;
+
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+/**
+ * The state of a running genetic algorithm: the population, the generation being built and the best individuals.
+ * <p>
+ * A generation is built one child at a time and the deadline is checked before each child, so
+ * {@link #runGeneration(long)} can return in the middle of a generation and continue it on the next call.
+ */
+public class GeneticSearch
+{
+    private static final Comparator<Individual> BY_FITNESS = Comparator.comparingDouble(i -> i.fitness);
+
+    private final GAConfig config;
+    private final GeneticOperators operators;
+    private final PathEvaluator evaluator;
+    private final SplittableRandom rng;
+
+    private Individual[] population;
+    private Individual[] next;
+    private int nextCount;
+
+    private int generation;
+    private long evaluations;
+    private Individual bestValid;
+
+    private Individual seed;
+
+    /**
+     * Creates a new search for the given problem. No work is done until {@link #runGeneration(long)} is called.
+     * @param conf the problem to solve
+     * @param config the parameters of the genetic algorithm
+     * @param evaluator the fitness function
+     * @param rng the random number generator (not shared with other searches)
+     */
+    public GeneticSearch(IUIConfiguration conf, GAConfig config, PathEvaluator evaluator, SplittableRandom rng) {
+        this.config = config;
+        this.operators = new GeneticOperators(config, conf.getWidth(), conf.getHeight());
+        this.evaluator = evaluator;
+        this.rng = rng;
+        this.next = new Individual[config.getPopulationSize()];
+    }
+
+    /**
+     * Builds the next generation (the first call builds the random initial population).
+     * @param deadlineNanos the value of {@link System#nanoTime()} at which the method must return
+     * @return true if a generation was completed, false if the deadline was reached first
+     */
+    public boolean runGeneration(long deadlineNanos) {
+        int n = config.getPopulationSize();
+
+        if (nextCount == 0 && population != null)
+        {
+            // the best individuals survive unchanged
+            int elites = Math.min(config.getElitism(), n);
+            for (int i = 0; i < elites; i++)
+                next[nextCount++] = population[i];
+        }
+
+        while (nextCount < n)
+        {
+            if (System.nanoTime() - deadlineNanos >= 0)
+                return false;
+
+            Individual child = population == null ? initial(n) : breed(n);
+            evaluator.evaluate(child);
+            evaluations++;
+            next[nextCount++] = child;
+        }
+
+        Individual[] old = population == null ? new Individual[n] : population;
+        population = next;
+        next = old;
+        nextCount = 0;
+
+        Arrays.sort(population, BY_FITNESS);
+        generation++;
+
+        for (Individual ind : population)
+            if (ind.isValid())
+            {
+                if (bestValid == null || ind.fitness < bestValid.fitness)
+                    bestValid = ind;
+                break;
+            }
+
+        return true;
+    }
+
+    /**
+     * Sets a path to start from. The initial population then holds the seed, mutated copies of it (see
+     * {@link GAConfig#getSeedFraction()}) and random individuals. Has no effect once the initial population is built.
+     * @param seed the seed individual (not evaluated); it may have more waypoints than
+     *             {@link GAConfig#getMaxWaypoints()}, the children built from it are trimmed by the operators
+     */
+    public void seed(Individual seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns whether the search is between two generations (i.e. no generation is half built).
+     * Migrants can only be exchanged at this point.
+     * @return true if no generation is being built
+     */
+    public boolean isAtGenerationBoundary() {
+        return nextCount == 0;
+    }
+
+    /**
+     * Returns copies of the best individuals of the current population.
+     * @param count how many individuals to return
+     * @return the best individuals, best first
+     */
+    public Individual[] getElites(int count) {
+        if (population == null)
+            return new Individual[0];
+
+        Individual[] elites = new Individual[Math.min(count, population.length)];
+        for (int i = 0; i < elites.length; i++)
+            elites[i] = population[i].copy();
+        return elites;
+    }
+
+    /**
+     * Replaces the worst individuals of the population by (already evaluated) individuals coming from another
+     * search. Must only be called at a generation boundary.
+     * @param migrants the individuals to insert
+     * @param count how many of them to insert
+     */
+    public void immigrate(Individual[] migrants, int count) {
+        if (population == null || count == 0)
+            return;
+        if (!isAtGenerationBoundary())
+            throw new IllegalStateException("Migrants can only be inserted between generations");
+
+        count = Math.min(count, population.length);
+        for (int i = 0; i < count; i++)
+            population[population.length - 1 - i] = migrants[i];
+
+        Arrays.sort(population, BY_FITNESS);
+        if (population[0].isValid() && (bestValid == null || population[0].fitness < bestValid.fitness))
+            bestValid = population[0];
+    }
+
+    private Individual initial(int n) {
+        if (seed == null || nextCount >= Math.max(1, (int) Math.round(config.getSeedFraction() * n)))
+            return operators.randomIndividual(rng);
+
+        Individual child = seed.copy();
+        if (nextCount > 0)
+            operators.mutate(child, rng);
+        return child;
+    }
+
+    private Individual breed(int n) {
+        Individual a = operators.tournament(population, n, rng);
+        Individual child;
+
+        if (rng.nextDouble() < config.getCrossoverRate())
+            child = operators.crossover(a, operators.tournament(population, n, rng), rng);
+        else
+            child = a.copy();
+
+        if (rng.nextDouble() < config.getMutationRate())
+            operators.mutate(child, rng);
+
+        return child;
+    }
+
+    /**
+     * Returns the number of completed generations (the initial population is generation 1).
+     * @return the number of completed generations
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns how many individuals were evaluated so far.
+     * @return the number of evaluations
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Returns the best valid individual found so far.
+     * @return the best valid individual, or null if none was found
+     */
+    public Individual getBestValid() {
+        return bestValid;
+    }
+
+    /**
+     * Returns the best individual of the current population, valid or not.
+     * @return the best individual, or null before the first generation
+     */
+    public Individual getBest() {
+        return population == null ? null : population[0];
+    }
+
+    public GAConfig getConfig() {
+        return config;
+    }
+
+    public PathEvaluator getEvaluator() {
+        return evaluator;
+    }
+}
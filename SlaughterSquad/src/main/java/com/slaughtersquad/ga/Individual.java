@@ -0,0 +1,253 @@
+package com.slaughtersquad.ga;
+
+import com.slaughtersquad.impl.Path;
+import com.slaughtersquad.impl.Point;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A candidate solution of the genetic planner: the intermediate waypoints of a path between the start and the end
+ * of a configuration. The start and the end are not stored, since they are the same for every individual.
+ * <p>
+ * The length and number of collisions of every segment are cached, so that after a mutation or crossover only the
+ * segments that actually changed have to be evaluated again. Segment {@code s} goes from waypoint {@code s - 1} (or
+ * the start, when {@code s == 0}) to waypoint {@code s} (or the end, when {@code s == size}).
+ */
+public class Individual
+{
+    static final int DIRTY = -1;
+
+    int[] xs, ys;
+    int size;
+
+    // per-segment cache, segHits[s] == DIRTY means the segment must be evaluated again
+    double[] segLength;
+    int[] segHits;
+
+    double length;
+    double ticks;
+    int hits;
+    double fitness;
+
+    Individual(int capacity) {
+        xs = new int[Math.max(1, capacity)];
+        ys = new int[Math.max(1, capacity)];
+        segLength = new double[xs.length + 1];
+        segHits = new int[xs.length + 1];
+        segHits[0] = DIRTY;
+    }
+
+    /**
+     * Builds an individual from the intermediate points of a path (the first and last points are ignored).
+     * @param path the path
+     * @param maxWaypoints the maximum number of waypoints to keep
+     * @return the new individual (not evaluated)
+     */
+    public static Individual fromPath(IPath path, int maxWaypoints) {
+        List<IPoint> points = path.getPoints();
+        int n = Math.min(Math.max(0, points.size() - 2), maxWaypoints);
+
+        Individual ind = new Individual(maxWaypoints);
+        for (int i = 0; i < n; i++)
+        {
+            ind.xs[i] = points.get(i + 1).getX();
+            ind.ys[i] = points.get(i + 1).getY();
+        }
+        ind.size = n;
+        ind.invalidate();
+        return ind;
+    }
+
+    /**
+     * Returns a copy of this individual, including its evaluation.
+     * @return a copy of this individual
+     */
+    public Individual copy() {
+        Individual c = new Individual(xs.length);
+        System.arraycopy(xs, 0, c.xs, 0, size);
+        System.arraycopy(ys, 0, c.ys, 0, size);
+        System.arraycopy(segLength, 0, c.segLength, 0, size + 1);
+        System.arraycopy(segHits, 0, c.segHits, 0, size + 1);
+        c.size = size;
+        c.length = length;
+        c.ticks = ticks;
+        c.hits = hits;
+        c.fitness = fitness;
+        return c;
+    }
+
+    /**
+     * Returns the number of intermediate waypoints.
+     * @return the number of intermediate waypoints
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getX(int i) {
+        return xs[i];
+    }
+
+    public int getY(int i) {
+        return ys[i];
+    }
+
+    /**
+     * Returns the length of the whole path, from start to end.
+     * @return the length of the path
+     */
+    public double getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the estimated number of ticks needed to follow the path. Only computed when the planner minimises the
+     * traversal time ({@link FitnessMode#TIME}).
+     * @return the estimated traversal time, or 0 if it was not computed
+     */
+    public double getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns how many times the path intersects an obstacle.
+     * @return the number of intersections
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the fitness of this individual (lower is better).
+     * @return the fitness
+     */
+    public double getFitness() {
+        return fitness;
+    }
+
+    /**
+     * Returns whether the path does not intersect any obstacle.
+     * @return true if the path is valid
+     */
+    public boolean isValid() {
+        return hits == 0;
+    }
+
+    /**
+     * Converts this individual to a path, adding the start and end of the configuration.
+     * @param conf the configuration
+     * @return the full path
+     */
+    public IPath toPath(IUIConfiguration conf) {
+        List<IPoint> points = new ArrayList<>(size + 2);
+        points.add(conf.getStart());
+        for (int i = 0; i < size; i++)
+            points.add(new Point(xs[i], ys[i]));
+        points.add(conf.getEnd());
+
+        Path path = new Path();
+        path.setPoints(points);
+        return path;
+    }
+
+    /**
+     * Moves a waypoint. Only the two segments that touch it need to be evaluated again.
+     */
+    void setWaypoint(int i, int x, int y) {
+        xs[i] = x;
+        ys[i] = y;
+        segHits[i] = DIRTY;
+        segHits[i + 1] = DIRTY;
+    }
+
+    /**
+     * Inserts a waypoint before waypoint i. The segment that was split is replaced by two new segments.
+     */
+    void insertWaypoint(int i, int x, int y) {
+        ensureCapacity(size + 1);
+        System.arraycopy(xs, i, xs, i + 1, size - i);
+        System.arraycopy(ys, i, ys, i + 1, size - i);
+        System.arraycopy(segLength, i + 1, segLength, i + 2, size - i);
+        System.arraycopy(segHits, i + 1, segHits, i + 2, size - i);
+        size++;
+        setWaypoint(i, x, y);
+    }
+
+    /**
+     * Removes waypoint i. The two segments that touched it are replaced by a single new segment.
+     */
+    void removeWaypoint(int i) {
+        System.arraycopy(xs, i + 1, xs, i, size - i - 1);
+        System.arraycopy(ys, i + 1, ys, i, size - i - 1);
+        System.arraycopy(segLength, i + 2, segLength, i + 1, size - i - 1);
+        System.arraycopy(segHits, i + 2, segHits, i + 1, size - i - 1);
+        size--;
+        segHits[i] = DIRTY;
+    }
+
+    /**
+     * Appends waypoint i of another (evaluated) individual. The segment that leads to it is reused when the previous
+     * waypoint of this individual is also the previous waypoint in the source.
+     * @param from the individual to copy from
+     * @param i the waypoint to copy
+     * @param sameSource true if the last waypoint appended was waypoint i - 1 of the same individual (or, for
+     *                   i == 0, if nothing was appended yet)
+     */
+    void appendWaypoint(Individual from, int i, boolean sameSource) {
+        ensureCapacity(size + 1);
+        xs[size] = from.xs[i];
+        ys[size] = from.ys[i];
+        if (sameSource)
+        {
+            segLength[size] = from.segLength[i];
+            segHits[size] = from.segHits[i];
+        }
+        else
+            segHits[size] = DIRTY;
+        size++;
+    }
+
+    /**
+     * Sets the last segment (to the end) after all the waypoints were appended.
+     * @param from the individual whose last waypoint was appended last, or null if the segment must be evaluated
+     */
+    void closePath(Individual from) {
+        if (from != null)
+        {
+            segLength[size] = from.segLength[from.size];
+            segHits[size] = from.segHits[from.size];
+        }
+        else
+            segHits[size] = DIRTY;
+    }
+
+    /**
+     * Forgets every cached segment, forcing a full evaluation.
+     */
+    void invalidate() {
+        Arrays.fill(segHits, 0, size + 1, DIRTY);
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity > xs.length)
+        {
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            segLength = Arrays.copyOf(segLength, capacity + 1);
+            segHits = Arrays.copyOf(segHits, capacity + 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++)
+            sb.append(i == 0 ? "" : ", ").append('(').append(xs[i]).append(", ").append(ys[i]).append(')');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,274 @@
+package com.slaughtersquad.ga;
+
+import com.slaughtersquad.collision.SegmentHitCache;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPlannerListener;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.ISegmentKernel;
+import com.slaughtersquad.interf.IUIConfiguration;
+import com.slaughtersquad.planning.CancelToken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Island model of the {@link GeneticPlanner}: several independent populations (islands) evolve in parallel, one per
+ * thread, and periodically send copies of their best individuals to other islands.
+ * <p>
+ * Islands never wait for each other: migrants are pushed into lock-free queues and each island only reads its own
+ * queue between two of its generations, so throughput grows with the number of cores.
+ */
+public class IslandPlanner implements IPlanner, AutoCloseable
+{
+    private final GAConfig config;
+    private final int islands;
+    private final MigrationTopology topology;
+    private final int migrationInterval;
+    private final int migrants;
+    private final ExecutorService executor;
+    private final SegmentHitCache hitCache;
+
+    /**
+     * Creates a planner with one island per available processor, a ring topology and a migration every 10
+     * generations.
+     * @param config the parameters of the genetic algorithm of each island
+     */
+    public IslandPlanner(GAConfig config) {
+        this(config, Runtime.getRuntime().availableProcessors(), MigrationTopology.RING, 10, 2);
+    }
+
+    /**
+     * Creates a planner.
+     * @param config the parameters of the genetic algorithm of each island
+     * @param islands the number of islands (and threads)
+     * @param topology where each island sends its migrants
+     * @param migrationInterval the number of generations between two migrations of an island
+     * @param migrants how many individuals an island sends in each migration
+     */
+    public IslandPlanner(GAConfig config, int islands, MigrationTopology topology, int migrationInterval, int migrants) {
+        if (islands <= 0 || migrationInterval <= 0)
+            throw new IllegalArgumentException("islands and migrationInterval must be positive");
+
+        this.config = config.copy();
+        this.islands = islands;
+        this.topology = topology;
+        this.migrationInterval = migrationInterval;
+        this.migrants = migrants;
+        this.hitCache = config.getHitCacheSize() > 0 ? new SegmentHitCache(config.getHitCacheSize()) : null;
+        this.executor = Executors.newFixedThreadPool(islands, r -> {
+            Thread t = new Thread(r, "IslandPlanner");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int getIslands() {
+        return islands;
+    }
+
+    /**
+     * Returns the collision cache shared by every island.
+     * @return the collision cache, or null if it is disabled
+     */
+    public SegmentHitCache getHitCache() {
+        return hitCache;
+    }
+
+    @Override
+    public IPlanningTask newTask(IUIConfiguration conf, CancelToken cancel) {
+        return new Task(conf, cancel == null ? new CancelToken() : cancel);
+    }
+
+    /**
+     * Stops the threads of the islands.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private final class Island
+    {
+        private final GeneticSearch search;
+        private final SplittableRandom rng;
+        private final ConcurrentLinkedQueue<Individual> inbox = new ConcurrentLinkedQueue<>();
+        private final Individual[] arrived = new Individual[Math.max(1, migrants * islands)];
+        private int lastMigration;
+
+        private Island(GeneticSearch search, SplittableRandom rng) {
+            this.search = search;
+            this.rng = rng;
+        }
+    }
+
+    private class Task implements IPlanningTask
+    {
+        private final IUIConfiguration conf;
+        private final CancelToken cancel;
+        private final Island[] population;
+
+        private IPlannerListener listener;
+        private Individual reported;
+        private IPath bestPath;
+
+        private Task(IUIConfiguration conf, CancelToken cancel) {
+            this.conf = conf;
+            this.cancel = cancel;
+
+            // the collider and the collision cache are thread safe and shared by every island
+            ISegmentKernel collider = PathEvaluator.collider(conf, config);
+            SplittableRandom root = config.getSeed() == null ? new SplittableRandom() : new SplittableRandom(config.getSeed());
+
+            population = new Island[islands];
+            for (int i = 0; i < islands; i++)
+            {
+                SplittableRandom rng = root.split();
+                population[i] = new Island(new GeneticSearch(conf, config, new PathEvaluator(conf, collider, hitCache, config), rng), rng);
+            }
+        }
+
+        @Override
+        public boolean resume(long deadlineNanos) {
+            if (isFinished())
+                return false;
+
+            List<Callable<Void>> work = new ArrayList<>(islands);
+            for (int i = 0; i < islands; i++)
+            {
+                final int index = i;
+                work.add(() -> {
+                    evolve(index, deadlineNanos);
+                    return null;
+                });
+            }
+
+            try {
+                for (Future<Void> f : executor.invokeAll(work))
+                    f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Island failed", e.getCause());
+            }
+
+            reportBest();
+            return !isFinished();
+        }
+
+        private void evolve(int index, long deadlineNanos) {
+            Island island = population[index];
+            int max = config.getMaxGenerations();
+
+            while (!cancel.isCancelled() && (max <= 0 || island.search.getGeneration() < max))
+            {
+                if (!island.search.runGeneration(deadlineNanos))
+                    return;
+
+                // take whatever arrived from the other islands
+                int n = 0;
+                Individual ind;
+                while (n < island.arrived.length && (ind = island.inbox.poll()) != null)
+                    island.arrived[n++] = ind;
+                island.search.immigrate(island.arrived, n);
+
+                if (island.search.getGeneration() - island.lastMigration >= migrationInterval)
+                {
+                    island.lastMigration = island.search.getGeneration();
+                    emigrate(index, island);
+                }
+            }
+        }
+
+        private void emigrate(int index, Island island) {
+            if (islands == 1)
+                return;
+
+            Individual[] elites = island.search.getElites(migrants);
+            switch (topology)
+            {
+                case RING:
+                    send(population[(index + 1) % islands], elites);
+                    break;
+                case FULLY_CONNECTED:
+                    for (int i = 0; i < islands; i++)
+                        if (i != index)
+                            send(population[i], elites);
+                    break;
+                case RANDOM:
+                    int target = island.rng.nextInt(islands - 1);
+                    send(population[target >= index ? target + 1 : target], elites);
+                    break;
+            }
+        }
+
+        private void send(Island target, Individual[] elites) {
+            for (Individual e : elites)
+                target.inbox.offer(e.copy());
+        }
+
+        private void reportBest() {
+            Individual best = reported;
+            for (Island island : population)
+            {
+                Individual candidate = island.search.getBestValid();
+                if (candidate != null && (best == null || candidate.fitness < best.fitness))
+                    best = candidate;
+            }
+
+            if (best != null && best != reported)
+            {
+                reported = best;
+                bestPath = best.toPath(conf);
+                if (listener != null)
+                    listener.onImprovement(bestPath, best.fitness, getGeneration());
+            }
+        }
+
+        @Override
+        public IPath getBestPath() {
+            return bestPath;
+        }
+
+        @Override
+        public double getBestFitness() {
+            return reported == null ? Double.POSITIVE_INFINITY : reported.fitness;
+        }
+
+        /**
+         * Returns the total number of generations completed by all the islands.
+         */
+        @Override
+        public int getGeneration() {
+            int total = 0;
+            for (Island island : population)
+                total += island.search.getGeneration();
+            return total;
+        }
+
+        @Override
+        public boolean isFinished() {
+            if (cancel.isCancelled())
+                return true;
+            if (config.getMaxGenerations() <= 0)
+                return false;
+
+            for (Island island : population)
+                if (island.search.getGeneration() < config.getMaxGenerations())
+                    return false;
+            return true;
+        }
+
+        @Override
+        public void setListener(IPlannerListener listener) {
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.slaughtersquad.ga;
+
+/**
+ * How the islands of the {@link IslandPlanner} exchange their best individuals.
+ */
+public enum MigrationTopology
+{
+    /**
+     * Each island sends its migrants to the next island (the last one sends to the first).
+     */
+    RING,
+
+    /**
+     * Each island sends its migrants to every other island.
+     */
+    FULLY_CONNECTED,
+
+    /**
+     * Each island sends its migrants to another island chosen at random at every migration.
+     */
+    RANDOM
+}
@@ -0,0 +1,152 @@
+package com.slaughtersquad.ga;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Fast non-dominated sorting and crowding distance, as used by NSGA-II. All objectives are minimised.
+ * <p>
+ * Constraints are handled by constrained domination: a solution with a smaller violation always dominates one with
+ * a larger violation, and solutions with the same violation are compared by their objectives.
+ * <p>
+ * The sort compares every pair of solutions once per direction (O(M·N²)), storing the domination relation as one
+ * bit per pair. Each row of the relation is computed independently, so large populations are sorted in parallel.
+ */
+public final class NonDominatedSorting
+{
+    // below this size the cost of splitting the work is larger than the gain
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private NonDominatedSorting() {
+    }
+
+    /**
+     * Checks whether solution a dominates solution b.
+     * @param objectives the objectives of every solution
+     * @param violations the constraint violation of every solution (0 when feasible)
+     * @param a the first solution
+     * @param b the second solution
+     * @return true if a dominates b
+     */
+    public static boolean dominates(double[][] objectives, int[] violations, int a, int b) {
+        if (violations[a] != violations[b])
+            return violations[a] < violations[b];
+
+        double[] oa = objectives[a], ob = objectives[b];
+        boolean better = false;
+        for (int m = 0; m < oa.length; m++)
+        {
+            if (oa[m] > ob[m])
+                return false;
+            if (oa[m] < ob[m])
+                better = true;
+        }
+        return better;
+    }
+
+    /**
+     * Splits the solutions into fronts: the first front holds the solutions not dominated by any other, the second
+     * front the solutions only dominated by the first one, and so on.
+     * @param objectives the objectives of every solution
+     * @param violations the constraint violation of every solution (0 when feasible)
+     * @param n the number of solutions
+     * @return the fronts, best first, each holding the indices of its solutions
+     */
+    public static List<int[]> sort(double[][] objectives, int[] violations, int n) {
+        int words = (n + 63) >>> 6;
+        long[][] dominated = new long[n][words];
+        int[] dominatedBy = new int[n];
+
+        IntStream rows = IntStream.range(0, n);
+        if (n >= PARALLEL_THRESHOLD)
+            rows = rows.parallel();
+
+        // every row only writes its own bit set and counter
+        rows.forEach(i -> {
+            long[] row = dominated[i];
+            int count = 0;
+            for (int j = 0; j < n; j++)
+            {
+                if (i == j)
+                    continue;
+                if (dominates(objectives, violations, i, j))
+                    row[j >>> 6] |= 1L << j;
+                else if (dominates(objectives, violations, j, i))
+                    count++;
+            }
+            dominatedBy[i] = count;
+        });
+
+        List<int[]> fronts = new ArrayList<>();
+        int[] current = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++)
+            if (dominatedBy[i] == 0)
+                current[size++] = i;
+
+        int[] next = new int[n];
+        while (size > 0)
+        {
+            fronts.add(Arrays.copyOf(current, size));
+
+            int nextSize = 0;
+            for (int k = 0; k < size; k++)
+            {
+                long[] row = dominated[current[k]];
+                for (int w = 0; w < words; w++)
+                    for (long bits = row[w]; bits != 0; bits &= bits - 1)
+                    {
+                        int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        if (--dominatedBy[j] == 0)
+                            next[nextSize++] = j;
+                    }
+            }
+
+            int[] swap = current;
+            current = next;
+            next = swap;
+            size = nextSize;
+        }
+
+        return fronts;
+    }
+
+    /**
+     * Computes the crowding distance of the solutions of a front: the sum, over all objectives, of the normalised
+     * distance between the two neighbours of each solution. The extreme solutions get an infinite distance.
+     * @param objectives the objectives of every solution
+     * @param front the indices of the solutions of the front
+     * @param distances receives the distance of each solution, indexed like the objectives
+     */
+    public static void crowding(double[][] objectives, int[] front, double[] distances) {
+        int size = front.length;
+        for (int i : front)
+            distances[i] = 0;
+        if (size <= 2)
+        {
+            for (int i : front)
+                distances[i] = Double.POSITIVE_INFINITY;
+            return;
+        }
+
+        Integer[] order = new Integer[size];
+        for (int m = 0; m < objectives[front[0]].length; m++)
+        {
+            final int objective = m;
+            for (int k = 0; k < size; k++)
+                order[k] = front[k];
+            Arrays.sort(order, (a, b) -> Double.compare(objectives[a][objective], objectives[b][objective]));
+
+            double min = objectives[order[0]][m], max = objectives[order[size - 1]][m];
+            distances[order[0]] = Double.POSITIVE_INFINITY;
+            distances[order[size - 1]] = Double.POSITIVE_INFINITY;
+            if (max == min)
+                continue;
+
+            for (int k = 1; k < size - 1; k++)
+                distances[order[k]] += (objectives[order[k + 1]][m] - objectives[order[k - 1]][m]) / (max - min);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.slaughtersquad.ga;
+
+import com.slaughtersquad.collision.ClearanceField;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPlannerListener;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.ISegmentKernel;
+import com.slaughtersquad.interf.IUIConfiguration;
+import com.slaughtersquad.planning.CancelToken;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Multi-objective variant of the {@link GeneticPlanner} based on NSGA-II. Instead of a single weighted fitness the
+ * planner keeps a set of paths that are not worse than each other in all of these objectives:
+ * <ul>
+ *     <li>the length of the path;</li>
+ *     <li>the clearance of the path (the distance to the closest obstacle, up to {@link #MAX_CLEARANCE}), which is
+ *     maximised;</li>
+ *     <li>the estimated number of ticks needed to follow the path.</li>
+ * </ul>
+ * Paths that intersect obstacles are handled by constrained domination (fewer intersections always win), so no
+ * collision penalty has to be tuned. The result is the Pareto front of the valid paths, see
+ * {@link Task#getParetoFront()}.
+ * <p>
+ * {@link IPlanningTask#getBestPath()} returns the shortest path of the front, or the fastest one when the fitness
+ * mode of the configuration is {@link FitnessMode#TIME}.
+ */
+public class Nsga2Planner implements IPlanner
+{
+    /**
+     * Clearances above this distance (in pixels) are all considered equally good.
+     */
+    public static final int MAX_CLEARANCE = 100;
+
+    // side of the cells of the clearance field, in pixels
+    private static final int CLEARANCE_CELL_SIZE = 4;
+
+    static final int LENGTH = 0, CLEARANCE = 1, TICKS = 2;
+    private static final int OBJECTIVES = 3;
+
+    private final GAConfig config;
+
+    /**
+     * Creates a planner with the default parameters.
+     */
+    public Nsga2Planner() {
+        this(new GAConfig());
+    }
+
+    /**
+     * Creates a planner with the given parameters. The elitism, tournament size and collision penalty of the
+     * configuration are not used: NSGA-II selects by rank and crowding distance.
+     * @param config the parameters of the genetic algorithm
+     */
+    public Nsga2Planner(GAConfig config) {
+        this.config = config.copy();
+    }
+
+    public GAConfig getConfig() {
+        return config.copy();
+    }
+
+    @Override
+    public Task newTask(IUIConfiguration conf, CancelToken cancel) {
+        return new Task(conf, cancel == null ? new CancelToken() : cancel);
+    }
+
+    /**
+     * Runs the planner until the deadline and returns the Pareto front.
+     * @param conf the problem to solve
+     * @param deadlineNanos the value of {@link System#nanoTime()} at which the search stops
+     * @return the valid paths of the Pareto front, shortest first
+     */
+    public List<IPath> plan(IUIConfiguration conf, long deadlineNanos) {
+        Task task = newTask(conf, null);
+        task.resume(deadlineNanos);
+        return task.getParetoFront();
+    }
+
+    /**
+     * An individual together with its objectives and its position in the last sort.
+     */
+    private static final class Candidate
+    {
+        private final Individual individual;
+        private final double[] objectives = new double[OBJECTIVES];
+        private int rank;
+        private double crowding;
+
+        private Candidate(Individual individual) {
+            this.individual = individual;
+        }
+    }
+
+    /**
+     * A running NSGA-II search. Like the tasks of the {@link GeneticPlanner}, the offspring of a generation are built
+     * one at a time and the search can stop in the middle of a generation and continue it later.
+     */
+    public class Task implements IPlanningTask
+    {
+        private final IUIConfiguration conf;
+        private final CancelToken cancel;
+        private final ClearanceField clearanceField;
+        private final GeneticOperators operators;
+        private final PathEvaluator evaluator;
+        private final SplittableRandom rng;
+        private final int bestObjective;
+
+        private Candidate[] population;
+        private final Candidate[] offspring;
+        private int offspringCount;
+        private int generation;
+
+        private IPlannerListener listener;
+        private Candidate reported;
+        private IPath bestPath;
+
+        private Task(IUIConfiguration conf, CancelToken cancel) {
+            this.conf = conf;
+            this.cancel = cancel;
+            this.clearanceField = ClearanceField.of(conf, CLEARANCE_CELL_SIZE, false);
+
+            // the evaluator computes the length, intersections and ticks; the fitness itself is not used
+            GAConfig evaluation = config.copy();
+            evaluation.setFitnessMode(FitnessMode.TIME);
+            ISegmentKernel collider = PathEvaluator.collider(conf, evaluation);
+            this.evaluator = new PathEvaluator(conf, collider, evaluation);
+            this.operators = new GeneticOperators(config, conf.getWidth(), conf.getHeight());
+            this.rng = config.getSeed() == null ? new SplittableRandom() : new SplittableRandom(config.getSeed());
+            this.bestObjective = config.getFitnessMode() == FitnessMode.TIME ? TICKS : LENGTH;
+            this.offspring = new Candidate[config.getPopulationSize()];
+        }
+
+        @Override
+        public boolean resume(long deadlineNanos) {
+            while (!isFinished() && System.nanoTime() - deadlineNanos < 0)
+            {
+                if (!breed(deadlineNanos))
+                    break;
+
+                Candidate[] all;
+                if (population == null)
+                    all = offspring.clone();
+                else
+                {
+                    all = Arrays.copyOf(population, population.length + offspring.length);
+                    System.arraycopy(offspring, 0, all, population.length, offspring.length);
+                }
+                population = select(all, offspring.length);
+                offspringCount = 0;
+                generation++;
+
+                Candidate best = null;
+                for (Candidate c : population)
+                    if (c.rank == 0 && c.individual.isValid()
+                            && (best == null || c.objectives[bestObjective] < best.objectives[bestObjective]))
+                        best = c;
+
+                if (best != null && (reported == null || best.objectives[bestObjective] < reported.objectives[bestObjective]))
+                {
+                    reported = best;
+                    bestPath = best.individual.toPath(conf);
+                    if (listener != null)
+                        listener.onImprovement(bestPath, getBestFitness(), generation);
+                }
+            }
+
+            return !isFinished();
+        }
+
+        /**
+         * Returns the valid paths of the first front of the current population, without duplicates.
+         * @return the Pareto front, shortest path first (empty if no valid path was found yet)
+         */
+        public List<IPath> getParetoFront() {
+            List<Candidate> front = new ArrayList<>();
+            if (population != null)
+                for (Candidate c : population)
+                    if (c.rank == 0 && c.individual.isValid())
+                        front.add(c);
+
+            front.sort(Comparator.comparingDouble((Candidate c) -> c.objectives[LENGTH])
+                    .thenComparingDouble(c -> c.objectives[CLEARANCE])
+                    .thenComparingDouble(c -> c.objectives[TICKS]));
+
+            List<IPath> paths = new ArrayList<>(front.size());
+            Candidate previous = null;
+            for (Candidate c : front)
+            {
+                if (previous == null || !Arrays.equals(previous.objectives, c.objectives))
+                    paths.add(c.individual.toPath(conf));
+                previous = c;
+            }
+            return paths;
+        }
+
+        @Override
+        public IPath getBestPath() {
+            return bestPath;
+        }
+
+        @Override
+        public double getBestFitness() {
+            return reported == null ? Double.POSITIVE_INFINITY : reported.objectives[bestObjective];
+        }
+
+        @Override
+        public int getGeneration() {
+            return generation;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return cancel.isCancelled()
+                    || (config.getMaxGenerations() > 0 && generation >= config.getMaxGenerations());
+        }
+
+        @Override
+        public void setListener(IPlannerListener listener) {
+            this.listener = listener;
+        }
+
+        /**
+         * Builds the offspring of the current population (or the random initial population).
+         * @return true if the offspring are complete, false if the deadline was reached first
+         */
+        private boolean breed(long deadlineNanos) {
+            while (offspringCount < offspring.length)
+            {
+                if (System.nanoTime() - deadlineNanos >= 0)
+                    return false;
+
+                Individual child;
+                if (population == null)
+                    child = operators.randomIndividual(rng);
+                else
+                {
+                    Individual a = tournament();
+                    if (rng.nextDouble() < config.getCrossoverRate())
+                        child = operators.crossover(a, tournament(), rng);
+                    else
+                        child = a.copy();
+                    if (rng.nextDouble() < config.getMutationRate())
+                        operators.mutate(child, rng);
+                }
+
+                offspring[offspringCount++] = evaluate(child);
+            }
+            return true;
+        }
+
+        /**
+         * Binary tournament with the crowded comparison: lower rank first, then larger crowding distance.
+         */
+        private Individual tournament() {
+            Candidate a = population[rng.nextInt(population.length)];
+            Candidate b = population[rng.nextInt(population.length)];
+            if (b.rank < a.rank || (b.rank == a.rank && b.crowding > a.crowding))
+                return b.individual;
+            return a.individual;
+        }
+
+        private Candidate evaluate(Individual ind) {
+            evaluator.evaluate(ind);
+
+            Candidate c = new Candidate(ind);
+            c.objectives[LENGTH] = ind.length;
+            c.objectives[TICKS] = ind.ticks;
+            // paths that hit an obstacle are compared by their intersections first, their clearance is irrelevant
+            c.objectives[CLEARANCE] = ind.isValid() ? -clearance(ind) : 0;
+            return c;
+        }
+
+        private double clearance(Individual ind) {
+            double clearance = MAX_CLEARANCE;
+            int px = conf.getStart().getX(), py = conf.getStart().getY();
+
+            for (int s = 0; s <= ind.size && clearance > 0; s++)
+            {
+                int x = s == ind.size ? conf.getEnd().getX() : ind.xs[s];
+                int y = s == ind.size ? conf.getEnd().getY() : ind.ys[s];
+                clearance = Math.min(clearance, clearanceField.segmentClearance(px, py, x, y));
+                px = x;
+                py = y;
+            }
+
+            return clearance;
+        }
+
+        /**
+         * Keeps the n best candidates by rank and, in the last front that fits only partially, by crowding distance.
+         */
+        private Candidate[] select(Candidate[] all, int n) {
+            double[][] objectives = new double[all.length][];
+            int[] violations = new int[all.length];
+            for (int i = 0; i < all.length; i++)
+            {
+                objectives[i] = all[i].objectives;
+                violations[i] = all[i].individual.hits;
+            }
+
+            double[] crowding = new double[all.length];
+            Candidate[] selected = new Candidate[n];
+            int count = 0;
+            int rank = 0;
+
+            for (int[] front : NonDominatedSorting.sort(objectives, violations, all.length))
+            {
+                if (count == n)
+                    break;
+
+                NonDominatedSorting.crowding(objectives, front, crowding);
+                for (int i : front)
+                {
+                    all[i].rank = rank;
+                    all[i].crowding = crowding[i];
+                }
+
+                if (count + front.length <= n)
+                    for (int i : front)
+                        selected[count++] = all[i];
+                else
+                {
+                    Candidate[] last = new Candidate[front.length];
+                    for (int k = 0; k < front.length; k++)
+                        last[k] = all[front[k]];
+                    Arrays.sort(last, (a, b) -> Double.compare(b.crowding, a.crowding));
+                    System.arraycopy(last, 0, selected, count, n - count);
+                    count = n;
+                }
+                rank++;
+            }
+
+            return selected;
+        }
+    }
+}
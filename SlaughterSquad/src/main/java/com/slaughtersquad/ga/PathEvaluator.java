@@ -0,0 +1,162 @@
+package com.slaughtersquad.ga;
+
+import com.slaughtersquad.collision.ObstacleCoalescer;
+import com.slaughtersquad.collision.ScalarSegmentKernel;
+import com.slaughtersquad.collision.SegmentCollider;
+import com.slaughtersquad.collision.SegmentHitCache;
+import com.slaughtersquad.interf.ISegmentKernel;
+import com.slaughtersquad.interf.IUIConfiguration;
+import com.slaughtersquad.planning.TraversalTimeModel;
+
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Computes the fitness of the individuals of the genetic planner: the length of the path (or the estimated time to
+ * follow it, see {@link FitnessMode}) plus a penalty for each intersection with an obstacle.
+ * <p>
+ * Only the segments marked as changed in the individual are checked against the obstacles; the others reuse the
+ * values cached by the individual. Segments that are not cached by the individual may still be found in a
+ * {@link SegmentHitCache} shared with other evaluators. An evaluator is meant to be used by a single thread.
+ * <p>
+ * A mutated child costs about two segment checks whatever its length, so the saving grows with the number of
+ * waypoints: it is small on the short paths the planner usually converges to, and large on long ones.
+ */
+public class PathEvaluator
+{
+    private final ISegmentKernel collider;
+    private final SegmentHitCache cache;
+    private final double collisionPenalty;
+    private final TraversalTimeModel timeModel;
+    private final int startX, startY, endX, endY;
+    private long segmentChecks;
+
+    /**
+     * Creates an evaluator for the given problem.
+     * @param conf the problem to solve
+     * @param config the parameters of the genetic algorithm
+     */
+    public PathEvaluator(IUIConfiguration conf, GAConfig config) {
+        this(conf, collider(conf, config), config);
+    }
+
+    /**
+     * Creates an evaluator for the given problem, reusing an existing collider.
+     * @param conf the problem to solve
+     * @param collider the collider for the obstacles of the problem
+     * @param config the parameters of the genetic algorithm
+     */
+    public PathEvaluator(IUIConfiguration conf, ISegmentKernel collider, GAConfig config) {
+        this(conf, collider, null, config);
+    }
+
+    /**
+     * Creates an evaluator for the given problem, reusing an existing collider and a shared collision cache.
+     * @param conf the problem to solve
+     * @param collider the collider for the obstacles of the problem
+     * @param cache the collision cache, or null to always ask the collider
+     * @param config the parameters of the genetic algorithm
+     */
+    public PathEvaluator(IUIConfiguration conf, ISegmentKernel collider, SegmentHitCache cache, GAConfig config) {
+        this.collider = collider;
+        this.cache = cache;
+        this.collisionPenalty = config.getCollisionPenalty();
+        this.timeModel = config.getFitnessMode() == FitnessMode.TIME ? TraversalTimeModel.getDefault() : null;
+        this.startX = conf.getStart().getX();
+        this.startY = conf.getStart().getY();
+        this.endX = conf.getEnd().getX();
+        this.endY = conf.getEnd().getY();
+    }
+
+    /**
+     * Builds the collider for the obstacles of a problem, coalescing them first if the configuration asks for it.
+     * Up to {@link GAConfig#getKernelMaxObstacles()} obstacles every segment is tested against all of them with a
+     * {@link ScalarSegmentKernel} (with so few obstacles the vectorised kernel is not faster); with more obstacles a
+     * {@link SegmentCollider} only tests the ones near the segment.
+     * @param conf the problem to solve
+     * @param config the parameters of the genetic algorithm
+     * @return a new collider
+     */
+    public static ISegmentKernel collider(IUIConfiguration conf, GAConfig config) {
+        List<Rectangle> obstacles = config.isCoalesceObstacles() ? ObstacleCoalescer.coalesce(conf.getObstacles()) : conf.getObstacles();
+        if (obstacles.size() <= config.getKernelMaxObstacles())
+            return new ScalarSegmentKernel(obstacles);
+        return new SegmentCollider(conf.getWidth(), conf.getHeight(), obstacles);
+    }
+
+    public ISegmentKernel getCollider() {
+        return collider;
+    }
+
+    /**
+     * Returns how many segments were checked against the obstacles by this evaluator.
+     * @return the number of segments checked
+     */
+    public long getSegmentChecks() {
+        return segmentChecks;
+    }
+
+    /**
+     * Computes the length, number of intersections and fitness of an individual, evaluating only the segments that
+     * changed since its last evaluation.
+     * @param ind the individual to evaluate
+     */
+    public void evaluate(Individual ind) {
+        double length = 0;
+        int hits = 0;
+
+        for (int s = 0; s <= ind.size; s++)
+        {
+            if (ind.segHits[s] == Individual.DIRTY)
+            {
+                int x1 = s == 0 ? startX : ind.xs[s - 1];
+                int y1 = s == 0 ? startY : ind.ys[s - 1];
+                int x2 = s == ind.size ? endX : ind.xs[s];
+                int y2 = s == ind.size ? endY : ind.ys[s];
+
+                ind.segLength[s] = Math.hypot(x2 - x1, y2 - y1);
+                ind.segHits[s] = cache == null ? collider.countHits(x1, y1, x2, y2) : cache.countHits(collider, x1, y1, x2, y2);
+                segmentChecks++;
+            }
+
+            length += ind.segLength[s];
+            hits += ind.segHits[s];
+        }
+
+        ind.length = length;
+        ind.hits = hits;
+
+        if (timeModel == null)
+            ind.fitness = length + collisionPenalty * hits;
+        else
+        {
+            ind.ticks = ticks(ind);
+            ind.fitness = ind.ticks + collisionPenalty * hits;
+        }
+    }
+
+    /**
+     * Estimates the time to follow the path of an individual whose segments are already evaluated.
+     */
+    private double ticks(Individual ind) {
+        double ticks = 0;
+        int px = startX, py = startY;
+        double pdx = 0, pdy = 0, plength = 0;
+
+        for (int s = 0; s <= ind.size; s++)
+        {
+            int x = s == ind.size ? endX : ind.xs[s];
+            int y = s == ind.size ? endY : ind.ys[s];
+            double dx = x - px, dy = y - py, length = ind.segLength[s];
+
+            ticks += timeModel.driveTicks(length) + timeModel.turnTicks(pdx, pdy, plength, dx, dy, length);
+            px = x;
+            py = y;
+            pdx = dx;
+            pdy = dy;
+            plength = length;
+        }
+
+        return ticks;
+    }
+}
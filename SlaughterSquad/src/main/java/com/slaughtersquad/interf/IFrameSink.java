@@ -0,0 +1,27 @@
+package com.slaughtersquad.interf;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the frames rendered while a planner runs (see {@link com.slaughtersquad.viewer.FrameRecorder}), e.g. to
+ * save them as images. Frames are written from a single thread, in order.
+ */
+public interface IFrameSink extends Closeable
+{
+    /**
+     * Writes a frame. The image is not reused by the caller, so it may be kept.
+     * @param frame the rendered frame
+     * @param generation the generation of the path shown in the frame
+     * @throws IOException if the frame cannot be written
+     */
+    void write(BufferedImage frame, int generation) throws IOException;
+
+    /**
+     * Finishes the output (e.g. the trailer of an animation) and releases its resources.
+     * @throws IOException if the output cannot be finished
+     */
+    @Override
+    void close() throws IOException;
+}
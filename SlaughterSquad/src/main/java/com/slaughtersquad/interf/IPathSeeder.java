@@ -0,0 +1,15 @@
+package com.slaughtersquad.interf;
+
+/**
+ * Finds a quick (not necessarily optimal) path that another planner can use as a starting point, e.g. to seed the
+ * initial population of a genetic algorithm.
+ */
+public interface IPathSeeder
+{
+    /**
+     * Finds a path for the given problem.
+     * @param conf the problem to solve
+     * @return a valid path from the start to the end of the configuration, or null if none was found
+     */
+    IPath seed(IUIConfiguration conf);
+}
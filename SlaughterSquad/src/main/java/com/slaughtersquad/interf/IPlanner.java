@@ -0,0 +1,30 @@
+package com.slaughtersquad.interf;
+
+import com.slaughtersquad.planning.CancelToken;
+
+/**
+ * Interface of a path planner that can be interrupted and resumed (an "anytime" planner).
+ */
+public interface IPlanner
+{
+    /**
+     * Creates a new planning task for the given problem, without doing any work yet.
+     * @param conf the problem to solve (map, obstacles, start and end)
+     * @param cancel token that can be used to stop the task from another thread
+     * @return the new planning task
+     */
+    IPlanningTask newTask(IUIConfiguration conf, CancelToken cancel);
+
+    /**
+     * Creates a new planning task and runs it until the deadline.
+     * @param conf the problem to solve (map, obstacles, start and end)
+     * @param deadlineNanos the value of {@link System#nanoTime()} at which the planner must return
+     * @param cancel token that can be used to stop the task from another thread
+     * @return the planning task, which can be resumed later
+     */
+    default IPlanningTask start(IUIConfiguration conf, long deadlineNanos, CancelToken cancel) {
+        IPlanningTask task = newTask(conf, cancel);
+        task.resume(deadlineNanos);
+        return task;
+    }
+}
@@ -0,0 +1,15 @@
+package com.slaughtersquad.interf;
+
+/**
+ * Receives the improvements found by an {@link IPlanningTask}.
+ */
+public interface IPlannerListener
+{
+    /**
+     * Called, on the thread running the task, when a better valid path is found.
+     * @param path the new best path
+     * @param fitness the fitness of the new best path
+     * @param generation the generation in which it was found
+     */
+    void onImprovement(IPath path, double fitness, int generation);
+}
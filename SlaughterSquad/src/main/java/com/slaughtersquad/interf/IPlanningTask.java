@@ -0,0 +1,45 @@
+package com.slaughtersquad.interf;
+
+/**
+ * A planning problem being solved by an {@link IPlanner}. The search keeps its state between calls to
+ * {@link #resume(long)}, so it can be spread over several ticks without restarting.
+ */
+public interface IPlanningTask
+{
+    /**
+     * Continues the search until the deadline, the task is cancelled or the search is finished.
+     * @param deadlineNanos the value of {@link System#nanoTime()} at which the method must return
+     * @return true if the search can still be resumed
+     */
+    boolean resume(long deadlineNanos);
+
+    /**
+     * Returns the best valid path (one that does not intersect any obstacle) found so far.
+     * @return the best valid path, or null if no valid path was found yet
+     */
+    IPath getBestPath();
+
+    /**
+     * Returns the fitness of the best valid path (lower is better).
+     * @return the fitness of the best valid path, or {@link Double#POSITIVE_INFINITY} if there is none
+     */
+    double getBestFitness();
+
+    /**
+     * Returns the number of iterations (generations, for a genetic algorithm) completed so far.
+     * @return the number of iterations completed
+     */
+    int getGeneration();
+
+    /**
+     * Returns whether the search is over, either because it was cancelled or because it converged.
+     * @return true if calling {@link #resume(long)} will not do any more work
+     */
+    boolean isFinished();
+
+    /**
+     * Registers a listener to be notified every time a better valid path is found.
+     * @param listener the listener, or null to remove it
+     */
+    void setListener(IPlannerListener listener);
+}
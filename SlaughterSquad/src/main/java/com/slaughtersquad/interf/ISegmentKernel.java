@@ -0,0 +1,36 @@
+package com.slaughtersquad.interf;
+
+/**
+ * Tests a segment against a fixed set of axis-aligned rectangles. The kernels of
+ * {@link com.slaughtersquad.collision.SegmentKernels} test every obstacle, without any spatial index, while
+ * {@link com.slaughtersquad.collision.SegmentCollider} only tests the obstacles near the segment. Implementations are
+ * immutable and can be shared between threads.
+ */
+public interface ISegmentKernel
+{
+    /**
+     * Returns the number of obstacles known by this kernel.
+     * @return the number of obstacles
+     */
+    int size();
+
+    /**
+     * Counts how many obstacles are intersected by a segment.
+     * @param x1 the x coordinate of the first end of the segment
+     * @param y1 the y coordinate of the first end of the segment
+     * @param x2 the x coordinate of the second end of the segment
+     * @param y2 the y coordinate of the second end of the segment
+     * @return the number of obstacles intersected by the segment
+     */
+    int countHits(int x1, int y1, int x2, int y2);
+
+    /**
+     * Checks whether a segment intersects any obstacle.
+     * @param x1 the x coordinate of the first end of the segment
+     * @param y1 the y coordinate of the first end of the segment
+     * @param x2 the x coordinate of the second end of the segment
+     * @param y2 the y coordinate of the second end of the segment
+     * @return true if the segment intersects at least one obstacle
+     */
+    boolean intersectsAny(int x1, int y1, int x2, int y2);
+}
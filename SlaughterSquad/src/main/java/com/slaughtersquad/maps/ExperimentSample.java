@@ -0,0 +1,69 @@
+package com.slaughtersquad.maps;
+
+import com.slaughtersquad.experiments.ExperimentResult;
+import com.slaughtersquad.experiments.ExperimentRunner;
+import com.slaughtersquad.ga.GAConfig;
+import com.slaughtersquad.ga.GeneticPlanner;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Corre o algoritmo genético em todos os mapas com várias seeds e grava os resultados em CSV, em vez de mudar o
+ * map_id do PathDrawingSample e olhar para o visualizador.
+ */
+public class ExperimentSample
+{
+    public static void main(String args[]) throws Exception {
+        //Diretório onde são gravados os CSV
+        File dir = new File(args.length > 0 ? args[0] : "experiments");
+        //Número de seeds por mapa e de gerações por execução
+        int seeds = 10;
+        int generations = 500;
+
+        //cada execução tem o seu planeador, com a sua seed: os resultados são os mesmos com qualquer número de threads
+        ExperimentRunner runner = new ExperimentRunner(seed -> {
+            GAConfig config = new GAConfig();
+            config.setSeed(seed);
+            config.setMaxGenerations(generations);
+            return new GeneticPlanner(config);
+        });
+        runner.setSeeds(seeds);
+
+        long start = System.nanoTime();
+        List<ExperimentResult> results = runner.run();
+        System.out.printf("%d execuções em %.1f s com %d threads%n", results.size(), (System.nanoTime() - start) / 1e9, runner.getThreads());
+
+        dir.mkdirs();
+        try (Writer out = new FileWriter(new File(dir, "summary.csv")))
+        {
+            ExperimentRunner.writeSummary(results, out);
+        }
+        try (Writer out = new FileWriter(new File(dir, "convergence.csv")))
+        {
+            ExperimentRunner.writeConvergence(results, out);
+        }
+
+        //resumo por mapa
+        for (int map : runner.getMaps())
+        {
+            int valid = 0;
+            double fitness = 0, gps = 0;
+            for (ExperimentResult r : results)
+                if (r.getMap() == map)
+                {
+                    gps += r.getGenerationsPerSecond() / seeds;
+                    if (r.isValid())
+                    {
+                        valid++;
+                        fitness += r.getFitness();
+                    }
+                }
+            System.out.printf("mapa %2d: %2d/%d válidos, fitness média %8.1f, %8.0f gerações/s%n",
+                    map, valid, seeds, valid == 0 ? Double.NaN : fitness / valid, gps);
+        }
+        System.out.println("CSV gravados em " + dir.getAbsolutePath());
+    }
+}
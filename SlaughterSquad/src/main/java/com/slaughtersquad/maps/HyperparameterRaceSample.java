@@ -0,0 +1,39 @@
+package com.slaughtersquad.maps;
+
+import com.slaughtersquad.experiments.HyperparameterRace;
+import com.slaughtersquad.ga.CrossoverType;
+import com.slaughtersquad.ga.GAConfig;
+
+import java.util.List;
+
+/**
+ * Procura a melhor configuração do algoritmo genético para cada família de mapas, com uma corrida (F-race) entre
+ * várias combinações de parâmetros.
+ */
+public class HyperparameterRaceSample
+{
+    public static void main(String args[]) throws Exception {
+        //Famílias de mapas (ver Maps.java): paredes em L, paredes com uma passagem estreita, e sinusoides de obstáculos pequenos
+        String[] nomes = { "paredes", "passagens", "sinusoides" };
+        int[][] familias = { { 0, 1, 2, 3 }, { 4, 5, 6 }, { 7, 8, 9, 10 } };
+
+        List<GAConfig> candidatos = HyperparameterRace.grid(new GAConfig(),
+                new int[] { 25, 50, 100, 200 },
+                new double[] { 0.1, 0.4, 0.8 },
+                CrossoverType.values(),
+                new int[] { 1, 4 });
+
+        //as corridas das várias famílias partilham as threads do racer
+        try (HyperparameterRace race = new HyperparameterRace(candidatos))
+        {
+            race.setEvaluationBudget(10_000);
+
+            for (int f = 0; f < familias.length; f++)
+            {
+                long start = System.nanoTime();
+                HyperparameterRace.Result result = race.race(familias[f]);
+                System.out.printf("%-10s (%.1f s) %s%n", nomes[f], (System.nanoTime() - start) / 1e9, result);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.slaughtersquad.maps;
+
+import com.slaughtersquad.ga.GAConfig;
+import com.slaughtersquad.ga.IslandPlanner;
+import com.slaughtersquad.ga.MigrationTopology;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+/**
+ * Mede o número de gerações por segundo do modelo de ilhas com 1, 2, 4, ... threads.
+ */
+public class IslandScalingSample
+{
+    public static void main(String args[]) throws Exception {
+        //O ID do mapa a usar (ver Maps.java)
+        int map_id = 10;
+        //Tempo (em segundos) de cada medição
+        int seconds = 3;
+
+        IUIConfiguration conf = Maps.getMap(map_id);
+        GAConfig config = new GAConfig();
+        config.setSeed(12345L);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double base = 0;
+        for (int islands = 1; ; islands = Math.min(islands * 2, cores))
+        {
+            try (IslandPlanner planner = new IslandPlanner(config, islands, MigrationTopology.RING, 10, 2))
+            {
+                //aquecimento da JVM
+                planner.start(conf, System.nanoTime() + 500_000_000L, null);
+
+                long start = System.nanoTime();
+                IPlanningTask task = planner.start(conf, start + seconds * 1_000_000_000L, null);
+                double gps = task.getGeneration() / ((System.nanoTime() - start) / 1e9);
+                if (islands == 1)
+                    base = gps;
+
+                System.out.printf("%2d ilhas: %10.1f gerações/s (speedup %.2f), melhor fitness %.1f%n",
+                        islands, gps, gps / base, task.getBestFitness());
+            }
+
+            if (islands == cores)
+                break;
+        }
+    }
+}
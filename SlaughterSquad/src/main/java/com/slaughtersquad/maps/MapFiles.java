@@ -0,0 +1,199 @@
+package com.slaughtersquad.maps;
+
+import com.slaughtersquad.impl.Point;
+import com.slaughtersquad.impl.UIConfiguration;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary file format for maps, so that large generated maps (see {@link MapGenerator}) can be saved once and loaded
+ * quickly by every experiment.
+ * <p>
+ * A file has a header (magic number, format version, size of the map, start and end, and number of obstacles)
+ * followed by the obstacles. Each obstacle is written as variable-length integers: the difference between its
+ * position and the position of the previous one (zigzag-encoded, as it can be negative) and its size. Generators emit
+ * obstacles close to the previous one, so most of them take 4 to 6 bytes instead of 16.
+ * <p>
+ * Reading is streamed: the obstacles are decoded one at a time from a buffered stream into a list of the size given
+ * by the header, without loading the whole file first.
+ */
+public final class MapFiles
+{
+    /**
+     * First four bytes of every file ("SSMP").
+     */
+    public static final int MAGIC = 0x53534D50;
+
+    /**
+     * Version of the layout.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int HAS_START = 1, HAS_END = 2;
+
+    private MapFiles()
+    {
+    }
+
+    /**
+     * Writes a map to a file.
+     * @param file the file, replaced if it exists
+     * @param conf the map
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(File file, IUIConfiguration conf) throws IOException
+    {
+        try (OutputStream out = new FileOutputStream(file))
+        {
+            write(out, conf);
+        }
+    }
+
+    /**
+     * Reads a map from a file.
+     * @param file the file
+     * @return the map
+     * @throws IOException if the file cannot be read or is not a map file of this version
+     */
+    public static UIConfiguration load(File file) throws IOException
+    {
+        try (InputStream in = new FileInputStream(file))
+        {
+            return read(in);
+        }
+    }
+
+    /**
+     * Writes a map. The stream is flushed but not closed.
+     * @param out the stream to write to
+     * @param conf the map
+     * @throws IOException if the stream fails
+     */
+    public static void write(OutputStream out, IUIConfiguration conf) throws IOException
+    {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        IPoint start = conf.getStart(), end = conf.getEnd();
+        List<Rectangle> obstacles = conf.getObstacles();
+
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(conf.getWidth());
+        data.writeInt(conf.getHeight());
+        data.writeByte((start != null ? HAS_START : 0) | (end != null ? HAS_END : 0));
+        if (start != null)
+        {
+            data.writeInt(start.getX());
+            data.writeInt(start.getY());
+        }
+        if (end != null)
+        {
+            data.writeInt(end.getX());
+            data.writeInt(end.getY());
+        }
+
+        data.writeInt(obstacles.size());
+        int x = 0, y = 0;
+        for (Rectangle r : obstacles)
+        {
+            writeVarInt(data, zigzag(r.x - x));
+            writeVarInt(data, zigzag(r.y - y));
+            writeVarInt(data, r.width);
+            writeVarInt(data, r.height);
+            x = r.x;
+            y = r.y;
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a map written by {@link #write(OutputStream, IUIConfiguration)}. The stream is not closed.
+     * @param in the stream to read from
+     * @return the map
+     * @throws IOException if the stream fails or does not hold a map file of this version
+     */
+    public static UIConfiguration read(InputStream in) throws IOException
+    {
+        DataInputStream data = new DataInputStream(in instanceof BufferedInputStream ? in : new BufferedInputStream(in, 1 << 16));
+        if (data.readInt() != MAGIC)
+            throw new IOException("not a map file");
+        int version = data.readInt();
+        if (version != FORMAT_VERSION)
+            throw new IOException("unsupported map file version: " + version);
+
+        int width = data.readInt(), height = data.readInt();
+        int flags = data.readUnsignedByte();
+        IPoint start = (flags & HAS_START) != 0 ? new Point(data.readInt(), data.readInt()) : null;
+        IPoint end = (flags & HAS_END) != 0 ? new Point(data.readInt(), data.readInt()) : null;
+
+        int count = data.readInt();
+        if (count < 0)
+            throw new IOException("negative obstacle count: " + count);
+        // the count comes from the file: do not trust it with the whole capacity up front
+        List<Rectangle> obstacles = new ArrayList<>(Math.min(count, 1 << 20));
+        int x = 0, y = 0;
+        for (int i = 0; i < count; i++)
+        {
+            x += unzigzag(readVarInt(data));
+            y += unzigzag(readVarInt(data));
+            obstacles.add(new Rectangle(x, y, readVarInt(data), readVarInt(data)));
+        }
+
+        UIConfiguration conf = new UIConfiguration(width, height, obstacles);
+        conf.setStart(start);
+        conf.setEnd(end);
+        return conf;
+    }
+
+    private static int zigzag(int value)
+    {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes 7 bits per byte, least significant first; the high bit of a byte says that another one follows.
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException("truncated map file");
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("malformed map file");
+    }
+}
@@ -0,0 +1,310 @@
+package com.slaughtersquad.maps;
+
+import com.slaughtersquad.impl.Point;
+import com.slaughtersquad.impl.UIConfiguration;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates maps of any size and number of obstacles, to measure how the planners and the collision indexes scale
+ * beyond the 600x600 maps of {@link Maps}. The same settings and seed always give the same map.
+ * <p>
+ * The number of obstacles is a target: a maze has about one wall per cell and a map of corridors has the same number
+ * of pieces in every wall, so both round it, and clutter can stop short of it when there is no room left away from
+ * the start and the end.
+ */
+public class MapGenerator
+{
+    // how many times a rectangle of clutter is placed again when it covers the start or the end
+    private static final int MAX_ATTEMPTS = 8;
+
+    private int width = 600;
+    private int height = 600;
+    private MapStyle style = MapStyle.CLUTTER;
+    private int obstacleCount = 100;
+    private long seed = 12345L;
+    private int minObstacleSize = 4;
+    private int maxObstacleSize = 40;
+    private int clearance = 50;
+
+    public int getWidth()
+    {
+        return width;
+    }
+
+    public void setWidth(int width)
+    {
+        if (width <= 0)
+            throw new IllegalArgumentException("width must be positive: " + width);
+        this.width = width;
+    }
+
+    public int getHeight()
+    {
+        return height;
+    }
+
+    public void setHeight(int height)
+    {
+        if (height <= 0)
+            throw new IllegalArgumentException("height must be positive: " + height);
+        this.height = height;
+    }
+
+    public MapStyle getStyle()
+    {
+        return style;
+    }
+
+    public void setStyle(MapStyle style)
+    {
+        if (style == null)
+            throw new IllegalArgumentException("style must not be null");
+        this.style = style;
+    }
+
+    /**
+     * Returns how many obstacles the maps should have.
+     * @return the target number of obstacles
+     */
+    public int getObstacleCount()
+    {
+        return obstacleCount;
+    }
+
+    public void setObstacleCount(int obstacleCount)
+    {
+        if (obstacleCount < 0)
+            throw new IllegalArgumentException("obstacleCount must not be negative: " + obstacleCount);
+        this.obstacleCount = obstacleCount;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the smallest side of the rectangles of {@link MapStyle#CLUTTER}, in pixels.
+     * @return the smallest side
+     */
+    public int getMinObstacleSize()
+    {
+        return minObstacleSize;
+    }
+
+    public void setMinObstacleSize(int minObstacleSize)
+    {
+        if (minObstacleSize <= 0)
+            throw new IllegalArgumentException("minObstacleSize must be positive: " + minObstacleSize);
+        this.minObstacleSize = minObstacleSize;
+    }
+
+    /**
+     * Returns the largest side of the rectangles of {@link MapStyle#CLUTTER}, in pixels.
+     * @return the largest side
+     */
+    public int getMaxObstacleSize()
+    {
+        return maxObstacleSize;
+    }
+
+    public void setMaxObstacleSize(int maxObstacleSize)
+    {
+        if (maxObstacleSize <= 0)
+            throw new IllegalArgumentException("maxObstacleSize must be positive: " + maxObstacleSize);
+        this.maxObstacleSize = maxObstacleSize;
+    }
+
+    /**
+     * Returns the distance from the start and the end to the nearest rectangle of {@link MapStyle#CLUTTER}, which is
+     * also their distance to the corners of the map.
+     * @return the free distance around the start and the end, in pixels
+     */
+    public int getClearance()
+    {
+        return clearance;
+    }
+
+    public void setClearance(int clearance)
+    {
+        if (clearance <= 0)
+            throw new IllegalArgumentException("clearance must be positive: " + clearance);
+        this.clearance = clearance;
+    }
+
+    /**
+     * Generates a map with the current settings.
+     * @return a new configuration, with a start and an end
+     */
+    public IUIConfiguration generate()
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        switch (style)
+        {
+            case MAZE:
+                return maze(random);
+            case CORRIDORS:
+                return corridors(random);
+            default:
+                return clutter(random);
+        }
+    }
+
+    /**
+     * Carves a perfect maze with a depth-first search from the first cell. A cell keeps its east and south walls
+     * until the search goes through them; the borders of the map close the maze.
+     */
+    private IUIConfiguration maze(SplittableRandom random)
+    {
+        // a perfect maze of n cells keeps about n internal walls
+        int cols = (int) Math.max(1, Math.min(width, Math.round(Math.sqrt(Math.max(1, obstacleCount) * (double) width / height))));
+        int rows = Math.max(1, Math.min(height, (int) Math.round(Math.max(1, obstacleCount) / (double) cols)));
+        int cells = cols * rows;
+        double cellWidth = (double) width / cols, cellHeight = (double) height / rows;
+        int thickness = (int) Math.max(1, Math.min(cellWidth, cellHeight) / 8);
+
+        boolean[] east = new boolean[cells], south = new boolean[cells], visited = new boolean[cells];
+        Arrays.fill(east, true);
+        Arrays.fill(south, true);
+
+        int[] stack = new int[cells];
+        int[] options = new int[4];
+        int top = 0;
+        stack[top++] = 0;
+        visited[0] = true;
+        while (top > 0)
+        {
+            int cell = stack[top - 1];
+            int col = cell % cols, row = cell / cols;
+            int n = 0;
+            if (col > 0 && !visited[cell - 1])
+                options[n++] = cell - 1;
+            if (col < cols - 1 && !visited[cell + 1])
+                options[n++] = cell + 1;
+            if (row > 0 && !visited[cell - cols])
+                options[n++] = cell - cols;
+            if (row < rows - 1 && !visited[cell + cols])
+                options[n++] = cell + cols;
+            if (n == 0)
+            {
+                top--;
+                continue;
+            }
+
+            int next = options[random.nextInt(n)];
+            // vertical moves first: with a single column cell + 1 is also the cell below
+            if (next == cell + cols)
+                south[cell] = false;
+            else if (next == cell - cols)
+                south[next] = false;
+            else if (next == cell + 1)
+                east[cell] = false;
+            else
+                east[next] = false;
+            visited[next] = true;
+            stack[top++] = next;
+        }
+
+        List<Rectangle> obstacles = new ArrayList<>(cells);
+        for (int row = 0; row < rows; row++)
+            for (int col = 0; col < cols; col++)
+            {
+                int cell = row * cols + col;
+                int x0 = (int) Math.round(col * cellWidth), x1 = (int) Math.round((col + 1) * cellWidth);
+                int y0 = (int) Math.round(row * cellHeight), y1 = (int) Math.round((row + 1) * cellHeight);
+                // walls are centred on the border between cells and overlap at the corners
+                if (col < cols - 1 && east[cell])
+                    obstacles.add(new Rectangle(x1 - thickness / 2, y0 - thickness / 2, thickness, y1 - y0 + thickness));
+                if (row < rows - 1 && south[cell])
+                    obstacles.add(new Rectangle(x0 - thickness / 2, y1 - thickness / 2, x1 - x0 + thickness, thickness));
+            }
+
+        UIConfiguration conf = new UIConfiguration(width, height, obstacles);
+        conf.setStart(new Point((int) (cellWidth / 2), (int) (cellHeight / 2)));
+        conf.setEnd(new Point((int) ((cols - 0.5) * cellWidth), (int) ((rows - 0.5) * cellHeight)));
+        return conf;
+    }
+
+    /**
+     * Rectangles of random size and position; one that covers the free square around the start or the end is placed
+     * again, and given up after a few attempts.
+     */
+    private IUIConfiguration clutter(SplittableRandom random)
+    {
+        int startX = Math.min(clearance, width / 2), startY = Math.min(clearance, height / 2);
+        int endX = Math.max(width - clearance, width / 2), endY = Math.max(height - clearance, height / 2);
+        Rectangle freeStart = new Rectangle(startX - clearance, startY - clearance, 2 * clearance, 2 * clearance);
+        Rectangle freeEnd = new Rectangle(endX - clearance, endY - clearance, 2 * clearance, 2 * clearance);
+
+        int minSize = Math.min(minObstacleSize, maxObstacleSize), maxSize = Math.max(minObstacleSize, maxObstacleSize);
+        List<Rectangle> obstacles = new ArrayList<>(obstacleCount);
+        for (int i = 0; i < obstacleCount; i++)
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++)
+            {
+                int w = Math.min(width, random.nextInt(minSize, maxSize + 1));
+                int h = Math.min(height, random.nextInt(minSize, maxSize + 1));
+                Rectangle r = new Rectangle(random.nextInt(width - w + 1), random.nextInt(height - h + 1), w, h);
+                if (!r.intersects(freeStart) && !r.intersects(freeEnd))
+                {
+                    obstacles.add(r);
+                    break;
+                }
+            }
+
+        UIConfiguration conf = new UIConfiguration(width, height, obstacles);
+        conf.setStart(new Point(startX, startY));
+        conf.setEnd(new Point(endX, endY));
+        return conf;
+    }
+
+    /**
+     * Walls at the same distance from each other, each made of pieces of the same length (overlapping by a pixel, so
+     * the path cannot slip between them) and with a door as wide as half the distance between walls.
+     */
+    private IUIConfiguration corridors(SplittableRandom random)
+    {
+        int walls = Math.max(1, Math.min(height / 4, (int) Math.round(Math.sqrt(Math.max(1, obstacleCount) * (double) height / width))));
+        int pieces = Math.max(1, (int) Math.round(Math.max(1, obstacleCount) / (double) walls));
+        double spacing = (double) height / (walls + 1);
+        int thickness = (int) Math.max(1, spacing / 8);
+        int door = (int) Math.max(1, Math.min(width / 2.0, spacing / 2));
+
+        List<Rectangle> obstacles = new ArrayList<>(walls * (pieces + 1));
+        for (int k = 1; k <= walls; k++)
+        {
+            int y = (int) Math.round(k * spacing) - thickness / 2;
+            int doorX = random.nextInt(width - door + 1);
+            // the pieces split the wall before the door is cut, so every wall has the same number of pieces
+            for (int p = 0; p < pieces; p++)
+            {
+                int x0 = (int) Math.round(p * (double) width / pieces);
+                int x1 = Math.min(width, (int) Math.round((p + 1) * (double) width / pieces) + 1);
+                if (x1 <= doorX || x0 >= doorX + door)
+                    obstacles.add(new Rectangle(x0, y, x1 - x0, thickness));
+                else
+                {
+                    if (x0 < doorX)
+                        obstacles.add(new Rectangle(x0, y, doorX - x0, thickness));
+                    if (x1 > doorX + door)
+                        obstacles.add(new Rectangle(doorX + door, y, x1 - doorX - door, thickness));
+                }
+            }
+        }
+
+        UIConfiguration conf = new UIConfiguration(width, height, obstacles);
+        conf.setStart(new Point(width / 2, (int) (spacing / 2)));
+        conf.setEnd(new Point(width / 2, height - (int) (spacing / 2)));
+        return conf;
+    }
+}
@@ -0,0 +1,69 @@
+package com.slaughtersquad.maps;
+
+import com.slaughtersquad.collision.SegmentCollider;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+import com.slaughtersquad.planning.MultiResolutionPlanner;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Gera mapas grandes de cada tipo, grava-os e volta a lê-los, e mede quanto custa indexar os obstáculos e planear um
+ * caminho em cada um.
+ */
+public class MapScalingSample
+{
+    public static void main(String args[]) throws Exception {
+        //Tamanho dos mapas e número de obstáculos
+        int size = 10_000;
+        int obstacles = 100_000;
+
+        MapGenerator generator = new MapGenerator();
+        generator.setWidth(size);
+        generator.setHeight(size);
+        generator.setObstacleCount(obstacles);
+
+        for (MapStyle style : MapStyle.values())
+        {
+            generator.setStyle(style);
+
+            long t0 = System.nanoTime();
+            IUIConfiguration conf = generator.generate();
+            long t1 = System.nanoTime();
+
+            //o mapa é lido do ficheiro, como numa experiência
+            File file = File.createTempFile("map-" + style.name().toLowerCase(), ".bin");
+            file.deleteOnExit();
+            MapFiles.save(file, conf);
+            long t2 = System.nanoTime();
+            conf = MapFiles.load(file);
+            long t3 = System.nanoTime();
+
+            SegmentCollider collider = new SegmentCollider(conf.getWidth(), conf.getHeight(), conf.getObstacles());
+            long t4 = System.nanoTime();
+
+            MultiResolutionPlanner planner = new MultiResolutionPlanner();
+            IPath path = planner.findPath(conf);
+            long t5 = System.nanoTime();
+
+            System.out.printf("%-9s %6d obstáculos, ficheiro %6d KB | gerar %5.0f ms, gravar %4.0f ms, ler %4.0f ms, índice %4.0f ms%n",
+                    style, conf.getObstacles().size(), file.length() / 1024,
+                    (t1 - t0) / 1e6, (t2 - t1) / 1e6, (t3 - t2) / 1e6, (t4 - t3) / 1e6);
+            if (path == null)
+            {
+                System.out.printf("          sem caminho (%.0f ms, %d células expandidas)%n", (t5 - t4) / 1e6, planner.getExpandedCells());
+                continue;
+            }
+
+            //o caminho não pode intersetar nenhum obstáculo
+            List<IPoint> points = path.getPoints();
+            int hits = 0;
+            for (int i = 1; i < points.size(); i++)
+                hits += collider.countHits(points.get(i - 1).getX(), points.get(i - 1).getY(), points.get(i).getX(), points.get(i).getY());
+            System.out.printf("          caminho com %d pontos em %.0f ms (%d células expandidas), %s%n", points.size(),
+                    (t5 - t4) / 1e6, planner.getExpandedCells(), hits == 0 ? "válido" : hits + " interseções");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.slaughtersquad.maps;
+
+/**
+ * The kinds of map built by the {@link MapGenerator}.
+ */
+public enum MapStyle
+{
+    /**
+     * A perfect maze on a grid of square-ish cells: every cell can be reached from every other one by exactly one
+     * route. The start is in the first cell and the end in the last one.
+     */
+    MAZE,
+
+    /**
+     * Rectangles of random size scattered over the map, kept away from the start and the end. They may overlap and
+     * may close off the end, so a path is not guaranteed.
+     */
+    CLUTTER,
+
+    /**
+     * Horizontal walls across the whole map, each with one door at a random position, so the path has to zigzag
+     * from door to door. The start is between the edge y = 0 and the first wall, the end between the last wall and
+     * the opposite edge.
+     */
+    CORRIDORS
+}
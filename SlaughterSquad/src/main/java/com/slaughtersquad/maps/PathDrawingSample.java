@@ -1,15 +1,16 @@
 package com.slaughtersquad.maps;
 
+import com.slaughtersquad.collision.SegmentKernels;
+import com.slaughtersquad.ga.GeneticPlanner;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.ISegmentKernel;
 import com.slaughtersquad.interf.IUIConfiguration;
+import com.slaughtersquad.planning.PathSmoother;
 import com.slaughtersquad.viewer.PathViewer;
-import com.slaughtersquad.impl.Point;
 import com.slaughtersquad.interf.IPoint;
 
-import java.awt.geom.Line2D;
-import java.awt.geom.Point2D;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Exemplo que mostra como desenhar um caminho no visualizador.
@@ -19,47 +20,56 @@ public class PathDrawingSample
     public static IUIConfiguration conf;
  
     public static void main(String args[]) throws InterruptedException, Exception {
-        Random rand = new Random();
         //O ID do mapa a usar (ver Maps.java)
         int map_id = 1;
+        //Tempo (em segundos) dado ao algoritmo genético
+        int seconds = 10;
 
         conf = Maps.getMap(map_id);
-        List<IPoint> solution = new ArrayList<>();
 
-        //TODO:Substituir solução manual pelo algoritmo genético
-        solution.add(conf.getStart());
-        int size = rand.nextInt(5); //cria um caminho aleatório com no máximo 5 nós intermédios (excetuando início e fim)
-        for (int i=0;i<size;i++)
-            solution.add(new Point(rand.nextInt(conf.getWidth()),rand.nextInt(conf.getHeight())));
-        solution.add(conf.getEnd());    
+        //Mecanismo de visualização pode ser usado durante o algoritmo genético
+        //para ver evolução ao longo do tempo
+        PathViewer pv = new PathViewer(conf);
+
+        //o visualizador é atualizado sempre que o algoritmo genético encontra um caminho melhor
+        IPlanningTask task = new GeneticPlanner().newTask(conf, null);
+        task.setListener((path, fitness, generation) -> {
+            pv.setFitness(fitness);
+            pv.setStringPath(path.toString());
+            pv.paintPath(path.getPoints());
+        });
+        task.resume(System.nanoTime() + seconds * 1_000_000_000L);
+
+        IPath best = task.getBestPath();
+        if (best == null)
+        {
+            System.out.println("Nenhum caminho válido encontrado em " + task.getGeneration() + " gerações");
+            return;
+        }
+        //retira os pontos em que o caminho faz zigue-zagues desnecessários
+        IPath suavizado = PathSmoother.of(conf).smooth(best);
+        System.out.println("Pontos do caminho: " + best.getPoints().size() + " -> " + suavizado.getPoints().size() + " depois de suavizado");
+        pv.setStringPath(suavizado.toString());
+        pv.paintPath(suavizado.getPoints());
+        List<IPoint> solution = suavizado.getPoints();
 
         //exemplo de determinar se a solução é válida ou não
-        //pode ser útil para o algoritmo genético...
+        //(o algoritmo genético faz o mesmo teste com um índice espacial, ver SegmentCollider)
+        //o kernel testa cada segmento contra vários obstáculos de uma vez (Vector API, se disponível)
+        ISegmentKernel kernel = SegmentKernels.create(conf.getObstacles());
         int conta = 0;
         //para cada segmento do caminho
         for (int i=0;i<solution.size()-1;i++){
-            Point2D.Double p1 = new Point2D.Double(solution.get(i).getX(), solution.get(i).getY()); 
-            Point2D.Double p2 = new Point2D.Double(solution.get(i+1).getX(), solution.get(i+1).getY()); 
-            Line2D.Double line = new Line2D.Double(p1, p2);
+            IPoint p1 = solution.get(i);
+            IPoint p2 = solution.get(i+1);
 
-            //para cada obstáculo no caminho
-            for (int j=0;j<conf.getObstacles().size();j++)
-                if (conf.getObstacles().get(j).intersectsLine(line))
-                    conta++;
+            //número de obstáculos intersetados pelo segmento
+            conta += kernel.countHits(p1.getX(), p1.getY(), p2.getX(), p2.getY());
         }
         if(conta == 0)
             System.out.println("Solução válida!");
         else
             System.out.println("Solução inválida: o caminho interseta obstáculos " +conta+ " vezes!");
-        
-        //Mecanismo de visualização pode ser usado durante o algoritmo genético
-        //para ver evolução ao longo do tempo
-
-        //Visualizar a solução encontrada
-        PathViewer pv = new PathViewer(conf);
-        pv.setFitness(9999); //TODO: substituir pelo valor de fitness (opcional)
-        pv.setStringPath("(ponto1, ponto2, bla bla bla...)"); //TODO: substituir pelo caminho (opcional)
-        pv.paintPath(solution);
     }
 
 
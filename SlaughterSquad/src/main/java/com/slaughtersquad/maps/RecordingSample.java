@@ -0,0 +1,61 @@
+package com.slaughtersquad.maps;
+
+import com.slaughtersquad.ga.GeneticPlanner;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.IUIConfiguration;
+import com.slaughtersquad.viewer.FrameRecorder;
+import com.slaughtersquad.viewer.GifSink;
+import com.slaughtersquad.viewer.PathRenderer;
+import com.slaughtersquad.viewer.PngSequenceSink;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+
+/**
+ * Grava a evolução do algoritmo genético num GIF animado e numa sequência de PNG, sem abrir janelas: pode correr numa
+ * máquina sem ecrã com {@code java -Djava.awt.headless=true}.
+ */
+public class RecordingSample
+{
+    public static void main(String args[]) throws Exception
+    {
+        //Diretório onde são gravadas as imagens
+        File dir = new File(args.length > 0 ? args[0] : "recording");
+        //O ID do mapa a usar (ver Maps.java)
+        int map_id = 1;
+        //Tempo (em segundos) dado ao algoritmo genético
+        int seconds = 10;
+        //Grava no máximo uma imagem a cada 'intervalo' gerações
+        int intervalo = 50;
+
+        IUIConfiguration conf = Maps.getMap(map_id);
+        dir.mkdirs();
+
+        //as imagens são desenhadas e gravadas numa thread à parte: o algoritmo genético só copia os pontos do caminho
+        FrameRecorder gif = new FrameRecorder(conf, new GifSink(new File(dir, "evolucao.gif"), 100, true), intervalo);
+        FrameRecorder png = new FrameRecorder(conf, new PngSequenceSink(dir, "geracao"), intervalo);
+        //o close espera que todas as imagens sejam gravadas
+        try (gif; png)
+        {
+            IPlanningTask task = new GeneticPlanner().newTask(conf, null);
+            task.setListener((path, fitness, generation) -> {
+                gif.onImprovement(path, fitness, generation);
+                png.onImprovement(path, fitness, generation);
+            });
+            //corre em fatias de 50 ms: entre fatias o caminho é gravado mesmo que não tenha melhorado
+            long fim = System.nanoTime() + seconds * 1_000_000_000L;
+            while (System.nanoTime() < fim && task.resume(Math.min(fim, System.nanoTime() + 50_000_000L)))
+            {
+                gif.sample(task);
+                png.sample(task);
+            }
+
+            //imagem final, desenhada diretamente
+            if (task.getBestPath() != null)
+                ImageIO.write(new PathRenderer(conf).render(task.getBestPath().getPoints(),
+                        PathRenderer.caption(task.getGeneration(), task.getBestPath().toString(), task.getBestFitness())),
+                        "png", new File(dir, "final.png"));
+        }
+        System.out.println(gif.getRecorded() + " imagens gravadas (" + gif.getDropped() + " descartadas) em " + dir);
+    }
+}
@@ -0,0 +1,145 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs an {@link IPlanner} on a single background thread, so that the robot thread never blocks while a path is
+ * being computed.
+ * <p>
+ * Requests are passed to the worker through a single slot (a new request replaces and cancels the previous one) and
+ * every improvement found is posted to a {@link Mailbox} that the robot polls once per tick. Robocode only allows a
+ * few threads per robot and expects them to end with the round, so the robot must call {@link #shutdown()} when it
+ * dies or the round ends.
+ */
+public class BackgroundPlanner
+{
+    private final IPlanner planner;
+    private final long sliceNanos;
+    private final long maxPlanningNanos;
+
+    private final AtomicReference<Request> requests = new AtomicReference<>();
+    private final Mailbox<Result> results = new Mailbox<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    /**
+     * Creates and starts the background worker.
+     * @param planner the planner to run
+     * @param sliceNanos how long the worker runs before yielding the processor to the robot thread
+     * @param maxPlanningNanos how long a single request is improved before the worker goes idle
+     */
+    public BackgroundPlanner(IPlanner planner, long sliceNanos, long maxPlanningNanos) {
+        this.planner = planner;
+        this.sliceNanos = sliceNanos;
+        this.maxPlanningNanos = maxPlanningNanos;
+
+        this.worker = new Thread(this::work, "BackgroundPlanner");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Asks for a path for a new problem. Any path still being computed for a previous request is abandoned.
+     * @param conf the problem to solve; it must not be changed after this call
+     */
+    public void submit(IUIConfiguration conf) {
+        Request old = requests.getAndSet(new Request(conf));
+        if (old != null)
+            old.cancel.cancel();
+
+        results.poll();
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * Abandons the current request without starting a new one, e.g. when the robot found its path elsewhere.
+     * Paths of the abandoned request that were not polled yet are discarded.
+     */
+    public void cancel() {
+        Request old = requests.getAndSet(null);
+        if (old != null)
+            old.cancel.cancel();
+
+        results.poll();
+    }
+
+    /**
+     * Returns the best path found since the last call, if any. Meant to be called once per tick by the robot.
+     * @return the newest improved path of the current request, or null if there is nothing new
+     */
+    public IPath poll() {
+        Result result = results.poll();
+        // the worker may post a path of a request just after it was replaced: it is only dropped here
+        return result != null && result.request == requests.get() ? result.path : null;
+    }
+
+    /**
+     * Stops the worker thread. Must be called when the robot dies or the round ends.
+     */
+    public void shutdown() {
+        running = false;
+        Request current = requests.getAndSet(null);
+        if (current != null)
+            current.cancel.cancel();
+        worker.interrupt();
+    }
+
+    private void work() {
+        Request active = null;
+        IPlanningTask task = null;
+
+        while (running && !Thread.currentThread().isInterrupted())
+        {
+            Request latest = requests.get();
+            if (latest != active)
+            {
+                active = latest;
+                task = null;
+                if (active != null)
+                {
+                    final Request request = active;
+                    task = planner.newTask(request.conf, request.cancel);
+                    // tagged with the request, so poll() can drop it if the request is replaced in the meantime
+                    task.setListener((path, fitness, generation) -> results.post(new Result(request, path)));
+                }
+            }
+
+            if (task != null && !task.isFinished() && System.nanoTime() - active.submitted < maxPlanningNanos)
+            {
+                task.resume(System.nanoTime() + sliceNanos);
+                // leave the processor to the robot thread between slices
+                Thread.yield();
+            }
+            else
+                LockSupport.parkNanos(this, 50_000_000L);
+        }
+    }
+
+    private static final class Result
+    {
+        private final Request request;
+        private final IPath path;
+
+        private Result(Request request, IPath path) {
+            this.request = request;
+            this.path = path;
+        }
+    }
+
+    private static final class Request
+    {
+        private final IUIConfiguration conf;
+        private final CancelToken cancel = new CancelToken();
+        private final long submitted = System.nanoTime();
+
+        private Request(IUIConfiguration conf) {
+            this.conf = conf;
+        }
+    }
+}
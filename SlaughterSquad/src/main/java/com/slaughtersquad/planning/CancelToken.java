@@ -0,0 +1,24 @@
+package com.slaughtersquad.planning;
+
+/**
+ * Flag used to stop a planning task from another thread (e.g. when the target changes or the round ends).
+ */
+public class CancelToken
+{
+    private volatile boolean cancelled;
+
+    /**
+     * Asks every task that uses this token to stop as soon as possible.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns whether {@link #cancel()} was called.
+     * @return true if the token was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,38 @@
+package com.slaughtersquad.planning;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free single-slot mailbox used to hand results from a worker thread to the robot thread.
+ * Posting a new value replaces any value that was not read yet, so the reader always gets the most recent one.
+ *
+ * @param <T> the type of the values exchanged
+ */
+public class Mailbox<T>
+{
+    private final AtomicReference<T> slot = new AtomicReference<>();
+
+    /**
+     * Stores a value, replacing the previous one if it was not read yet.
+     * @param value the value to post (not null)
+     */
+    public void post(T value) {
+        slot.set(value);
+    }
+
+    /**
+     * Takes the value in the mailbox, leaving it empty.
+     * @return the most recent value posted, or null if there is nothing new
+     */
+    public T poll() {
+        return slot.getAndSet(null);
+    }
+
+    /**
+     * Returns the value in the mailbox without removing it.
+     * @return the most recent value posted, or null if there is nothing new
+     */
+    public T peek() {
+        return slot.get();
+    }
+}
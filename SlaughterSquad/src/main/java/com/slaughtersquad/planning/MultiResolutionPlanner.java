@@ -0,0 +1,484 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.collision.GridIndex;
+import com.slaughtersquad.collision.SegmentCollider;
+import com.slaughtersquad.impl.Path;
+import com.slaughtersquad.impl.Point;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPathSeeder;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Grid planner that searches coarse-to-fine. The map is seen as a pyramid of occupancy grids: the finest one has
+ * cells of {@link #getMinCellSize()} pixels and each level above has cells twice as large, up to a level of about
+ * {@link #getCoarseCells()} cells per side. A* runs on the coarsest grid first; every finer level is only searched
+ * inside a corridor made of the children of the cells of the previous path, grown by {@link #getCorridorRadius()}
+ * cells. The finest path is finally shortened by skipping the waypoints that can be seen from an earlier one.
+ * <p>
+ * A cell is blocked as soon as an obstacle overlaps its interior, and diagonal moves need both cells beside them to
+ * be free, so the segment between the centres of two neighbouring free cells never touches an obstacle. The coarse
+ * grids are conservative: the children of a free cell are free, and the corridor always holds a path. A coarse grid
+ * can however close a passage that a finer grid keeps open, in which case the path may go around through a wider
+ * passage; when a level finds no path at all the next one is searched without a corridor. The result is a valid
+ * path but not necessarily the shortest one.
+ * <p>
+ * Cells are looked up in a {@link GridIndex} of the obstacles only when the search reaches them, so no level is
+ * ever rasterised as a whole: the work grows with the length of the path (the coarse grid has a fixed size and each
+ * corridor is a band of constant width along the path) rather than with the area of the map.
+ */
+public class MultiResolutionPlanner implements IPlanner, IPathSeeder
+{
+    private static final int[] DC = { 1, -1, 0, 0, 1, 1, -1, -1 };
+    private static final int[] DR = { 0, 0, 1, -1, 1, -1, 1, -1 };
+    // when shortening the path, how many hidden waypoints in a row are tolerated before giving up
+    private static final int SHORTCUT_LOOKAHEAD = 16;
+
+    private int minCellSize = 2;
+    private int coarseCells = 32;
+    private int corridorRadius = 2;
+
+    private volatile long expandedCells;
+
+    /**
+     * Returns the side of the cells of the finest grid, in pixels.
+     * @return the side of the finest cells
+     */
+    public int getMinCellSize() {
+        return minCellSize;
+    }
+
+    public void setMinCellSize(int minCellSize) {
+        if (minCellSize <= 0)
+            throw new IllegalArgumentException("minCellSize must be positive");
+        this.minCellSize = minCellSize;
+    }
+
+    /**
+     * Returns the largest number of cells per side of the coarsest grid.
+     * @return the size of the coarsest grid
+     */
+    public int getCoarseCells() {
+        return coarseCells;
+    }
+
+    public void setCoarseCells(int coarseCells) {
+        if (coarseCells <= 0)
+            throw new IllegalArgumentException("coarseCells must be positive");
+        this.coarseCells = coarseCells;
+    }
+
+    /**
+     * Returns by how many cells the corridor of a level extends on each side of the path of the level above.
+     * @return the radius of the corridor, in cells
+     */
+    public int getCorridorRadius() {
+        return corridorRadius;
+    }
+
+    public void setCorridorRadius(int corridorRadius) {
+        if (corridorRadius < 0)
+            throw new IllegalArgumentException("corridorRadius must not be negative");
+        this.corridorRadius = corridorRadius;
+    }
+
+    /**
+     * Returns how many cells were expanded, over all levels, by the last call to {@link #findPath(IUIConfiguration)}.
+     * @return the number of expanded cells
+     */
+    public long getExpandedCells() {
+        return expandedCells;
+    }
+
+    /**
+     * Finds a path of a configuration.
+     * @param conf the problem to solve
+     * @return a valid path, or null if the finest grid has none
+     */
+    public IPath findPath(IUIConfiguration conf) {
+        Search search = new Search(conf);
+        IPath path = search.run();
+        expandedCells = search.expanded;
+        return path;
+    }
+
+    @Override
+    public IPath seed(IUIConfiguration conf) {
+        return findPath(conf);
+    }
+
+    @Override
+    public IPlanningTask newTask(IUIConfiguration conf, CancelToken cancel) {
+        return new SingleQueryTask(conf, cancel, this);
+    }
+
+    /**
+     * A single query: the obstacle index and the state of the A* search of the current level.
+     */
+    private final class Search
+    {
+        // node 0 stands for the end point, reached from any cell that sees it
+        private static final int GOAL = 0;
+        private static final byte UNKNOWN = 0, FREE = 1, BLOCKED = 2;
+
+        private final int width, height;
+        private final int sx, sy, gx, gy;
+        private final GridIndex index;
+        private final SegmentCollider collider;
+        private final int top;
+        private long expanded;
+
+        // current level
+        private int cellSize, cols, rows;
+        private final CellMap nodes = new CellMap();
+        private int nodeCount;
+        private int[] nodeCell = new int[256], parent = new int[256];
+        private double[] cost = new double[256];
+        private boolean[] closed = new boolean[256];
+        private byte[] occupancy = new byte[256];
+        private final NodeHeap open = new NodeHeap();
+        private final int[] goalCells = new int[9];
+        private int goalCount;
+
+        private Search(IUIConfiguration conf) {
+            width = conf.getWidth();
+            height = conf.getHeight();
+            sx = conf.getStart().getX();
+            sy = conf.getStart().getY();
+            gx = conf.getEnd().getX();
+            gy = conf.getEnd().getY();
+
+            List<Rectangle> obstacles = conf.getObstacles();
+            index = new GridIndex(width, height, GridIndex.suggestCellSize(width, height, obstacles));
+            for (int i = 0; i < obstacles.size(); i++)
+            {
+                Rectangle r = obstacles.get(i);
+                if (r.width > 0 && r.height > 0)
+                    index.insert(i, r);
+            }
+            collider = new SegmentCollider(width, height, obstacles);
+
+            int level = 0;
+            while (Math.max(cells(width, level), cells(height, level)) > coarseCells)
+                level++;
+            top = level;
+        }
+
+        private int cells(int size, int level) {
+            long side = (long) minCellSize << level;
+            return (int) Math.max(1, (size + side - 1) / side);
+        }
+
+        private IPath run() {
+            if (!collider.intersectsAny(sx, sy, gx, gy))
+                return toPath(new int[0]);
+
+            CellMap corridor = null;
+            int[] path = null;
+            for (int level = top; level >= 0; level--)
+            {
+                path = search(level, corridor);
+                if (path == null && corridor != null)
+                    path = search(level, null);
+
+                corridor = path == null || level == 0 ? null : corridor(path, level - 1);
+            }
+
+            return path == null ? null : toPath(path);
+        }
+
+        /**
+         * Runs A* on one level, restricted to a corridor when one is given.
+         * @return the cells of the path, from the start to the end, or null if there is none
+         */
+        private int[] search(int level, CellMap corridor) {
+            cellSize = minCellSize << level;
+            cols = cells(width, level);
+            rows = cells(height, level);
+            nodes.clear();
+            nodeCount = 1;
+            open.clear();
+            closed[GOAL] = false;
+            cost[GOAL] = Double.POSITIVE_INFINITY;
+
+            // the end is reached from the free cells around it that see it
+            goalCount = 0;
+            int gc = col(gx), gr = row(gy);
+            for (int dr = -1; dr <= 1; dr++)
+                for (int dc = -1; dc <= 1; dc++)
+                {
+                    int n = node(gc + dc, gr + dr, corridor);
+                    if (n > 0 && !collider.intersectsAny(centreX(n), centreY(n), gx, gy))
+                        goalCells[goalCount++] = nodeCell[n];
+                }
+            if (goalCount == 0)
+                return null;
+
+            // and the search leaves from the free cells around the start that it sees
+            int sc = col(sx), sr = row(sy);
+            for (int dr = -1; dr <= 1; dr++)
+                for (int dc = -1; dc <= 1; dc++)
+                {
+                    int n = node(sc + dc, sr + dr, corridor);
+                    if (n > 0 && !collider.intersectsAny(sx, sy, centreX(n), centreY(n)))
+                        relax(-1, n, distance(sx, sy, centreX(n), centreY(n)));
+                }
+
+            while (!open.isEmpty())
+            {
+                int u = open.pop();
+                if (u == GOAL)
+                    return cellsTo(parent[GOAL]);
+                if (closed[u])
+                    continue;
+                closed[u] = true;
+                expanded++;
+
+                int ux = centreX(u), uy = centreY(u);
+                if (isGoalCell(nodeCell[u]))
+                    relax(u, GOAL, cost[u] + distance(ux, uy, gx, gy));
+
+                int c = nodeCell[u] % cols, r = nodeCell[u] / cols;
+                for (int k = 0; k < DC.length; k++)
+                {
+                    // diagonal moves pass through the shared corner, so the two cells beside it must be free too
+                    if (k >= 4 && (node(c + DC[k], r, corridor) < 0 || node(c, r + DR[k], corridor) < 0))
+                        continue;
+                    int v = node(c + DC[k], r + DR[k], corridor);
+                    if (v > 0 && !closed[v])
+                        relax(u, v, cost[u] + distance(ux, uy, centreX(v), centreY(v)));
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Returns the node of a free cell inside the grid and the corridor, creating it if needed, or -1.
+         */
+        private int node(int c, int r, CellMap corridor) {
+            if (c < 0 || r < 0 || c >= cols || r >= rows)
+                return -1;
+            int cell = r * cols + c;
+            if (corridor != null && corridor.get(cell) < 0)
+                return -1;
+
+            int n = nodes.get(cell);
+            if (n < 0)
+            {
+                n = nodeCount++;
+                ensureCapacity(nodeCount);
+                nodes.put(cell, n);
+                nodeCell[n] = cell;
+                cost[n] = Double.POSITIVE_INFINITY;
+                closed[n] = false;
+                occupancy[n] = UNKNOWN;
+            }
+
+            if (occupancy[n] == UNKNOWN)
+            {
+                int x0 = c * cellSize, y0 = r * cellSize;
+                int x1 = Math.min(width, x0 + cellSize), y1 = Math.min(height, y0 + cellSize);
+                occupancy[n] = index.overlapsInterior(x0, y0, x1 - x0, y1 - y0) ? BLOCKED : FREE;
+            }
+            return occupancy[n] == FREE ? n : -1;
+        }
+
+        private void relax(int from, int to, double g) {
+            if (g >= cost[to])
+                return;
+            cost[to] = g;
+            parent[to] = from;
+            open.push(to == GOAL ? g : g + distance(centreX(to), centreY(to), gx, gy), to);
+        }
+
+        private boolean isGoalCell(int cell) {
+            for (int i = 0; i < goalCount; i++)
+                if (goalCells[i] == cell)
+                    return true;
+            return false;
+        }
+
+        private int[] cellsTo(int last) {
+            int count = 0;
+            for (int n = last; n >= 0; n = parent[n])
+                count++;
+            int[] cells = new int[count];
+            for (int n = last, i = count - 1; n >= 0; n = parent[n], i--)
+                cells[i] = nodeCell[n];
+            return cells;
+        }
+
+        /**
+         * Builds the corridor of the next finer level: the children of the cells of the path, grown by the
+         * corridor radius, plus the neighbourhoods of the start and the end.
+         */
+        private CellMap corridor(int[] path, int level) {
+            int fineCols = cells(width, level), fineRows = cells(height, level);
+            CellMap corridor = new CellMap();
+
+            for (int cell : path)
+            {
+                int c = 2 * (cell % cols), r = 2 * (cell / cols);
+                addBlock(corridor, fineCols, fineRows, c - corridorRadius, r - corridorRadius,
+                        c + 1 + corridorRadius, r + 1 + corridorRadius);
+            }
+
+            int fineSize = minCellSize << level;
+            addBlock(corridor, fineCols, fineRows, sx / fineSize - 1, sy / fineSize - 1, sx / fineSize + 1, sy / fineSize + 1);
+            addBlock(corridor, fineCols, fineRows, gx / fineSize - 1, gy / fineSize - 1, gx / fineSize + 1, gy / fineSize + 1);
+            return corridor;
+        }
+
+        private void addBlock(CellMap corridor, int fineCols, int fineRows, int c0, int r0, int c1, int r1) {
+            for (int r = Math.max(0, r0); r <= Math.min(fineRows - 1, r1); r++)
+                for (int c = Math.max(0, c0); c <= Math.min(fineCols - 1, c1); c++)
+                    corridor.put(r * fineCols + c, 1);
+        }
+
+        /**
+         * Turns the cells of the finest path into points and drops every point that an earlier one can see.
+         */
+        private IPath toPath(int[] path) {
+            int n = path.length + 2;
+            int[] xs = new int[n], ys = new int[n];
+            xs[0] = sx;
+            ys[0] = sy;
+            for (int i = 0; i < path.length; i++)
+            {
+                int c = path[i] % cols, r = path[i] / cols;
+                xs[i + 1] = (c * cellSize + Math.min(width, (c + 1) * cellSize)) / 2;
+                ys[i + 1] = (r * cellSize + Math.min(height, (r + 1) * cellSize)) / 2;
+            }
+            xs[n - 1] = gx;
+            ys[n - 1] = gy;
+
+            List<IPoint> points = new ArrayList<>();
+            points.add(new Point(sx, sy));
+            int i = 0;
+            while (i < n - 1)
+            {
+                // the farthest waypoint seen from i, looking past short runs of hidden ones
+                int j = i + 1;
+                for (int k = i + 2, hidden = 0; k < n && hidden < SHORTCUT_LOOKAHEAD; k++)
+                {
+                    if (collider.intersectsAny(xs[i], ys[i], xs[k], ys[k]))
+                        hidden++;
+                    else
+                    {
+                        j = k;
+                        hidden = 0;
+                    }
+                }
+                points.add(new Point(xs[j], ys[j]));
+                i = j;
+            }
+
+            Path result = new Path();
+            result.setPoints(Collections.unmodifiableList(points));
+            return result;
+        }
+
+        private int col(int x) {
+            return Math.min(cols - 1, Math.max(0, x / cellSize));
+        }
+
+        private int row(int y) {
+            return Math.min(rows - 1, Math.max(0, y / cellSize));
+        }
+
+        private int centreX(int n) {
+            int c = nodeCell[n] % cols;
+            return (c * cellSize + Math.min(width, (c + 1) * cellSize)) / 2;
+        }
+
+        private int centreY(int n) {
+            int r = nodeCell[n] / cols;
+            return (r * cellSize + Math.min(height, (r + 1) * cellSize)) / 2;
+        }
+
+        private void ensureCapacity(int n) {
+            if (n <= nodeCell.length)
+                return;
+            int size = Math.max(n, nodeCell.length * 2);
+            nodeCell = Arrays.copyOf(nodeCell, size);
+            parent = Arrays.copyOf(parent, size);
+            cost = Arrays.copyOf(cost, size);
+            closed = Arrays.copyOf(closed, size);
+            occupancy = Arrays.copyOf(occupancy, size);
+        }
+    }
+
+    private static double distance(int x1, int y1, int x2, int y2) {
+        return Math.hypot(x2 - x1, y2 - y1);
+    }
+
+    /**
+     * Open-addressing map from cell indices to non-negative ints, so that a level only stores the cells the search
+     * actually touched.
+     */
+    private static final class CellMap
+    {
+        private int[] keys = new int[256];
+        private int[] values = new int[256];
+        private int size;
+
+        private CellMap() {
+            Arrays.fill(keys, -1);
+        }
+
+        private int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; ; i = (i + 1) & mask)
+            {
+                if (keys[i] == key)
+                    return values[i];
+                if (keys[i] < 0)
+                    return -1;
+            }
+        }
+
+        private void put(int key, int value) {
+            if (2 * (size + 1) > keys.length)
+                grow();
+
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] >= 0 && keys[i] != key)
+                i = (i + 1) & mask;
+            if (keys[i] < 0)
+                size++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void clear() {
+            Arrays.fill(keys, -1);
+            size = 0;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys, oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(keys, -1);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++)
+                if (oldKeys[i] >= 0)
+                    put(oldKeys[i], oldValues[i]);
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.slaughtersquad.planning;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of (priority, node) pairs stored in two primitive arrays, used as the open list of the A*
+ * searches. There is no decrease-key: a node is pushed again with its new priority and the stale entries are
+ * skipped by the caller when they are popped.
+ */
+final class NodeHeap
+{
+    private double[] keys = new double[64];
+    private int[] values = new int[64];
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the priority of the entry that {@link #pop()} would return.
+     */
+    double peekKey() {
+        return keys[0];
+    }
+
+    void push(double key, int value) {
+        if (size == keys.length)
+        {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        int i = size++;
+        while (i > 0)
+        {
+            int p = (i - 1) >>> 1;
+            if (keys[p] <= key)
+                break;
+            keys[i] = keys[p];
+            values[i] = values[p];
+            i = p;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Removes the entry with the smallest priority.
+     * @return the node of the removed entry
+     */
+    int pop() {
+        int top = values[0];
+        double key = keys[--size];
+        int value = values[size];
+
+        int i = 0;
+        while (true)
+        {
+            int c = 2 * i + 1;
+            if (c >= size)
+                break;
+            if (c + 1 < size && keys[c + 1] < keys[c])
+                c++;
+            if (key <= keys[c])
+                break;
+            keys[i] = keys[c];
+            values[i] = values[c];
+            i = c;
+        }
+        keys[i] = key;
+        values[i] = value;
+        return top;
+    }
+}
@@ -0,0 +1,235 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.collision.ConfigurationSpace;
+import com.slaughtersquad.collision.ObstacleStore;
+import com.slaughtersquad.collision.SegmentCollider;
+import com.slaughtersquad.impl.Path;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Small least-recently-used cache of the paths planned by a robot, keyed by the start and the end of the path
+ * rounded to a grid of {@code quantum} pixels, so that clicking again close to the same place reuses the last path.
+ * <p>
+ * Every entry remembers the version of the {@link ObstacleStore} it is known to be valid for. When it is looked up
+ * after the store changed, only the obstacles placed or moved since that version (see
+ * {@link ObstacleStore#changedSince(long, java.util.function.Consumer)}) are tested against it, grown by the margin of
+ * the configuration space. The stored path is returned with its first and last points replaced by the requested
+ * start and end, and those two segments are tested against every obstacle of the request. A path that fails a test
+ * is dropped.
+ * <p>
+ * The cache counts hits and misses and measures how long a hit takes, validation included. It is thread safe.
+ */
+public class PathCache
+{
+    /**
+     * Default number of paths kept.
+     */
+    public static final int DEFAULT_CAPACITY = 32;
+
+    /**
+     * Default size of the grid the start and end points are rounded to.
+     */
+    public static final int DEFAULT_QUANTUM = 16;
+
+    private final ObstacleStore store;
+    private final int quantum;
+    private final int margin;
+    private final Map<Long, Entry> entries;
+
+    private long hits, misses, rejected;
+    private long hitNanos;
+
+    /**
+     * Creates a cache with the default settings for the configuration space of a robot of the standard size.
+     * @param store the obstacles seen by the robot
+     */
+    public PathCache(ObstacleStore store) {
+        this(store, DEFAULT_CAPACITY, DEFAULT_QUANTUM, ConfigurationSpace.ROBOT_HALF_SIZE);
+    }
+
+    /**
+     * Creates a cache.
+     * @param store the obstacles seen by the robot
+     * @param capacity how many paths are kept
+     * @param quantum the size of the grid the start and end points are rounded to
+     * @param margin how much the obstacles of the store grow in the configuration space the paths were planned in
+     */
+    public PathCache(ObstacleStore store, int capacity, int quantum, int margin) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        if (quantum < 1)
+            throw new IllegalArgumentException("quantum must be positive: " + quantum);
+
+        this.store = store;
+        this.quantum = quantum;
+        this.margin = margin;
+        this.entries = new LinkedHashMap<Long, Entry>(2 * capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Looks up a path for a request.
+     * @param conf the request, in configuration space (see {@link ConfigurationSpace#toConfiguration(IPoint, IPoint)})
+     * @return a path from the start to the end of the request that is still clear, or null
+     */
+    public synchronized IPath get(IUIConfiguration conf) {
+        long t0 = System.nanoTime();
+        IPoint start = conf.getStart(), end = conf.getEnd();
+        Long key = key(start, end);
+
+        Entry entry = entries.get(key);
+        if (entry == null)
+        {
+            misses++;
+            return null;
+        }
+
+        List<IPoint> points = new ArrayList<>(entry.points);
+        points.set(0, start);
+        points.set(points.size() - 1, end);
+
+        if (!isClear(points, conf.getObstacles()) || !isClear(entry, points))
+        {
+            entries.remove(key);
+            rejected++;
+            misses++;
+            return null;
+        }
+
+        hits++;
+        hitNanos += System.nanoTime() - t0;
+
+        Path path = new Path();
+        path.setPoints(Collections.unmodifiableList(points));
+        return path;
+    }
+
+    /**
+     * Stores a path, replacing the path stored for the same rounded start and end.
+     * @param path the path; its first and last points are the start and end of the request
+     * @param version the version of the store read before the request was built, so that every change the planner
+     *                may not have seen is tested on the next lookup
+     */
+    public synchronized void put(IPath path, long version) {
+        List<IPoint> points = path.getPoints();
+        if (points.size() < 2)
+            return;
+        entries.put(key(points.get(0), points.get(points.size() - 1)), new Entry(new ArrayList<>(points), version));
+    }
+
+    /**
+     * Forgets every path (e.g. at the beginning of a round).
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns how many stored paths were found blocked and dropped. They are also counted as misses.
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the fraction of lookups that returned a path.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the average time of a lookup that returned a path, in nanoseconds.
+     */
+    public synchronized double getAverageHitNanos() {
+        return hits == 0 ? 0 : (double) hitNanos / hits;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("PathCache[%d paths, %d hits, %d misses (%d rejected), hit rate %.2f, %.1f us/hit]",
+                entries.size(), hits, misses, rejected, getHitRate(), getAverageHitNanos() / 1000);
+    }
+
+    /**
+     * Tests the inner segments of a stored path against the obstacles that changed since it was last validated, and
+     * moves the entry to the current version if they are clear.
+     */
+    private boolean isClear(Entry entry, List<IPoint> points) {
+        boolean[] blocked = new boolean[1];
+        long version = store.changedSince(entry.version, r -> {
+            if (blocked[0])
+                return;
+            int minX = r.x - margin, minY = r.y - margin;
+            int maxX = r.x + r.width + margin, maxY = r.y + r.height + margin;
+            for (int i = 2; i < points.size() - 1 && !blocked[0]; i++)
+                blocked[0] = intersects(minX, minY, maxX, maxY, points.get(i - 1), points.get(i));
+        });
+
+        if (!blocked[0])
+            entry.version = version;
+        return !blocked[0];
+    }
+
+    /**
+     * Tests the first and last segments, the ones moved to the requested start and end, against every obstacle.
+     */
+    private static boolean isClear(List<IPoint> points, List<Rectangle> obstacles) {
+        int last = points.size() - 1;
+        for (Rectangle r : obstacles)
+        {
+            int maxX = r.x + r.width, maxY = r.y + r.height;
+            if (intersects(r.x, r.y, maxX, maxY, points.get(0), points.get(1))
+                    || last > 1 && intersects(r.x, r.y, maxX, maxY, points.get(last - 1), points.get(last)))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean intersects(int minX, int minY, int maxX, int maxY, IPoint a, IPoint b) {
+        return SegmentCollider.intersects(minX, minY, maxX, maxY, a.getX(), a.getY(), b.getX(), b.getY());
+    }
+
+    private Long key(IPoint start, IPoint end) {
+        long sx = Math.floorDiv(start.getX(), quantum) & 0xFFFF, sy = Math.floorDiv(start.getY(), quantum) & 0xFFFF;
+        long ex = Math.floorDiv(end.getX(), quantum) & 0xFFFF, ey = Math.floorDiv(end.getY(), quantum) & 0xFFFF;
+        return sx << 48 | sy << 32 | ex << 16 | ey;
+    }
+
+    private static final class Entry
+    {
+        private final List<IPoint> points;
+        private long version;
+
+        private Entry(List<IPoint> points, long version) {
+            this.points = points;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.collision.SegmentCollider;
+import com.slaughtersquad.impl.Path;
+import com.slaughtersquad.impl.Point;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Post-processing of the paths found by the planners: removes the waypoints that are not needed and, optionally,
+ * rounds the remaining corners.
+ * <p>
+ * Shortcutting is greedy: from each kept waypoint the path jumps to the farthest later waypoint that can be seen from
+ * it, tested with a {@link SegmentCollider}. The farthest one is found by galloping (probing 1, 2, 4, ... waypoints
+ * ahead) and then by binary search between the last visible and the first blocked probe, so a path of n waypoints
+ * that keeps k of them costs O(k log n) visibility tests instead of O(n^2). Visibility is not monotone along a path,
+ * so a visible waypoint hidden behind a blocked probe may be missed, but every jump is tested: the result never
+ * touches an obstacle that the original segments did not. A segment of the original path that is already blocked is
+ * kept as it is.
+ * <p>
+ * With a fillet radius, every corner is replaced by a circular arc of that radius tangent to both segments,
+ * approximated by short segments, when the arc fits in half of each segment and does not touch an obstacle. Arcs
+ * suit a robot that turns while it moves; a robot that stops at every waypoint should leave them disabled.
+ */
+public class PathSmoother
+{
+    private final SegmentCollider collider;
+
+    private double filletRadius;
+    private double maxArcStep = Math.toRadians(15);
+
+    private long visibilityTests;
+
+    /**
+     * Creates a smoother for the obstacles of a configuration.
+     * @param conf the configuration
+     * @return the smoother
+     */
+    public static PathSmoother of(IUIConfiguration conf) {
+        return new PathSmoother(new SegmentCollider(conf.getWidth(), conf.getHeight(), conf.getObstacles()));
+    }
+
+    /**
+     * Creates a smoother.
+     * @param collider the obstacles that the smoothed paths must not touch
+     */
+    public PathSmoother(SegmentCollider collider) {
+        this.collider = collider;
+    }
+
+    /**
+     * Returns the radius of the arcs placed at the corners, or 0 if corners are left sharp.
+     */
+    public double getFilletRadius() {
+        return filletRadius;
+    }
+
+    /**
+     * Sets the radius of the arcs placed at the corners (the smallest turning radius of the robot).
+     * @param filletRadius the radius, in pixels, or 0 to leave the corners sharp (the default)
+     */
+    public void setFilletRadius(double filletRadius) {
+        if (!(filletRadius >= 0))
+            throw new IllegalArgumentException("filletRadius must not be negative: " + filletRadius);
+        this.filletRadius = filletRadius;
+    }
+
+    /**
+     * Returns the largest angle covered by a single segment of an arc, in radians.
+     */
+    public double getMaxArcStep() {
+        return maxArcStep;
+    }
+
+    public void setMaxArcStep(double maxArcStep) {
+        if (!(maxArcStep > 0) || maxArcStep > Math.PI)
+            throw new IllegalArgumentException("maxArcStep must be in (0, pi]: " + maxArcStep);
+        this.maxArcStep = maxArcStep;
+    }
+
+    /**
+     * Returns the number of segments tested against the obstacles since the smoother was created.
+     */
+    public long getVisibilityTests() {
+        return visibilityTests;
+    }
+
+    /**
+     * Smooths a path: shortcuts it and, if a fillet radius is set, rounds its corners.
+     * @param path the path
+     * @return a new path with the same start and end
+     */
+    public IPath smooth(IPath path) {
+        List<IPoint> points = shortcut(path.getPoints());
+        if (filletRadius > 0)
+            points = fillet(points);
+
+        Path result = new Path();
+        result.setPoints(Collections.unmodifiableList(points));
+        return result;
+    }
+
+    /**
+     * Removes the waypoints that can be skipped.
+     * @param points the waypoints, start and end included
+     * @return a new list with the kept waypoints
+     */
+    public List<IPoint> shortcut(List<IPoint> points) {
+        int n = points.size();
+        List<IPoint> result = new ArrayList<>();
+        if (n == 0)
+            return result;
+
+        int i = 0;
+        result.add(points.get(0));
+        while (i < n - 1)
+        {
+            // the next waypoint is always kept, even if the segment to it is blocked
+            int visible = i + 1, blocked = n;
+            for (int step = 1; visible + step < n; step *= 2)
+            {
+                int probe = visible + step;
+                if (isVisible(points.get(i), points.get(probe)))
+                    visible = probe;
+                else
+                {
+                    blocked = probe;
+                    break;
+                }
+            }
+            if (blocked == n && visible < n - 1)
+            {
+                if (isVisible(points.get(i), points.get(n - 1)))
+                    visible = n - 1;
+                else
+                    blocked = n - 1;
+            }
+
+            while (blocked - visible > 1)
+            {
+                int mid = (visible + blocked) >>> 1;
+                if (isVisible(points.get(i), points.get(mid)))
+                    visible = mid;
+                else
+                    blocked = mid;
+            }
+
+            result.add(points.get(visible));
+            i = visible;
+        }
+        return result;
+    }
+
+    /**
+     * Rounds the corners of a path whose segments are clear. If rounding the coordinates of the arcs makes any of the
+     * new segments touch an obstacle, the path is returned unchanged.
+     */
+    private List<IPoint> fillet(List<IPoint> points) {
+        int n = points.size();
+        if (n < 3)
+            return points;
+
+        List<IPoint> result = new ArrayList<>();
+        result.add(points.get(0));
+        for (int i = 1; i < n - 1; i++)
+            if (!addArc(points.get(i - 1), points.get(i), points.get(i + 1), result))
+                result.add(points.get(i));
+        result.add(points.get(n - 1));
+
+        for (int i = 1; i < result.size(); i++)
+            if (!isVisible(result.get(i - 1), result.get(i)))
+                return points;
+        return result;
+    }
+
+    /**
+     * Adds the arc that replaces the corner b of the path a-b-c.
+     * @return false if the arc does not fit or touches an obstacle
+     */
+    private boolean addArc(IPoint a, IPoint b, IPoint c, List<IPoint> out) {
+        double ux = b.getX() - a.getX(), uy = b.getY() - a.getY();
+        double vx = c.getX() - b.getX(), vy = c.getY() - b.getY();
+        double lu = Math.hypot(ux, uy), lv = Math.hypot(vx, vy);
+        if (lu == 0 || lv == 0)
+            return false;
+        ux /= lu;
+        uy /= lu;
+        vx /= lv;
+        vy /= lv;
+
+        // turning angle; nearly straight corners and U-turns are left alone
+        double cross = ux * vy - uy * vx;
+        double turn = Math.atan2(Math.abs(cross), ux * vx + uy * vy);
+        if (turn < Math.toRadians(1) || turn > Math.toRadians(179))
+            return false;
+
+        double tangent = filletRadius * Math.tan(turn / 2);
+        if (tangent > lu / 2 || tangent > lv / 2)
+            return false;
+
+        double t1x = b.getX() - ux * tangent, t1y = b.getY() - uy * tangent;
+        double side = Math.signum(cross);
+        double cx = t1x - uy * side * filletRadius, cy = t1y + ux * side * filletRadius;
+
+        int steps = (int) Math.ceil(turn / maxArcStep);
+        List<IPoint> arc = new ArrayList<>(steps + 1);
+        double rx = t1x - cx, ry = t1y - cy;
+        for (int k = 0; k <= steps; k++)
+        {
+            double angle = side * turn * k / steps;
+            double cos = Math.cos(angle), sin = Math.sin(angle);
+            Point p = new Point((int) Math.round(cx + rx * cos - ry * sin), (int) Math.round(cy + rx * sin + ry * cos));
+            IPoint last = arc.isEmpty() ? null : arc.get(arc.size() - 1);
+            if (last == null || last.getX() != p.getX() || last.getY() != p.getY())
+                arc.add(p);
+        }
+
+        if (!isVisible(a, arc.get(0)) || !isVisible(arc.get(arc.size() - 1), c))
+            return false;
+        for (int k = 1; k < arc.size(); k++)
+            if (!isVisible(arc.get(k - 1), arc.get(k)))
+                return false;
+
+        out.addAll(arc);
+        return true;
+    }
+
+    private boolean isVisible(IPoint a, IPoint b) {
+        visibilityTests++;
+        return !collider.intersectsAny(a.getX(), a.getY(), b.getX(), b.getY());
+    }
+}
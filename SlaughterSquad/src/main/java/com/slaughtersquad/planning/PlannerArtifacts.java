@@ -0,0 +1,177 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.collision.ClearanceField;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Structures derived from a map (a {@link ClearanceField} and a {@link Roadmap}) saved to a binary file, so a robot
+ * can reuse them in the next round or battle instead of building them again.
+ * <p>
+ * The file starts with a header (magic number, format version, hash of the configuration and a bit per section
+ * present) followed by the sections in a fixed order, each in the layout of its {@code writeTo} method. Loading maps
+ * the file with a {@link MappedByteBuffer} and the structures read their arrays straight from it, so nothing is
+ * parsed or copied: the pages are only read from disk when a query touches them.
+ * <p>
+ * Files are named after {@link #hash(IUIConfiguration)}, which covers the size and the obstacles of the map but not
+ * its start and end. A file whose header does not match the configuration or the current format is ignored. The
+ * sections record the settings they were built with (e.g. {@link Roadmap#isBuiltWith(int, int, long)}), so the
+ * caller can tell a file built with other settings for the same map.
+ */
+public final class PlannerArtifacts
+{
+    /**
+     * First four bytes of every file ("SSPA").
+     */
+    public static final int MAGIC = 0x53535041;
+
+    /**
+     * Version of the layout; files written with another version are ignored.
+     */
+    public static final int FORMAT_VERSION = 2;
+
+    private static final int CLEARANCE = 1, ROADMAP = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+    private final ClearanceField clearanceField;
+    private final Roadmap roadmap;
+
+    /**
+     * Groups the structures of a map, e.g. to pass them to {@link #write(OutputStream, IUIConfiguration)}.
+     * @param clearanceField the clearance field, or null
+     * @param roadmap the roadmap, or null
+     */
+    public PlannerArtifacts(ClearanceField clearanceField, Roadmap roadmap) {
+        this.clearanceField = clearanceField;
+        this.roadmap = roadmap;
+    }
+
+    /**
+     * Returns the clearance field, or null if there is none.
+     */
+    public ClearanceField getClearanceField() {
+        return clearanceField;
+    }
+
+    /**
+     * Returns the roadmap, or null if there is none.
+     */
+    public Roadmap getRoadmap() {
+        return roadmap;
+    }
+
+    /**
+     * Hashes (64-bit FNV-1a) the size and the obstacles of a configuration, in order.
+     * @param conf the configuration
+     * @return the hash
+     */
+    public static long hash(IUIConfiguration conf) {
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, conf.getWidth());
+        h = mix(h, conf.getHeight());
+        for (Rectangle r : conf.getObstacles())
+        {
+            h = mix(h, r.x);
+            h = mix(h, r.y);
+            h = mix(h, r.width);
+            h = mix(h, r.height);
+        }
+        return h;
+    }
+
+    /**
+     * Returns the name of the file of a configuration.
+     * @param conf the configuration
+     * @return a file name, without directory
+     */
+    public static String fileName(IUIConfiguration conf) {
+        return String.format("planner-%016x.bin", hash(conf));
+    }
+
+    /**
+     * Writes the structures. The stream is flushed but not closed, so it can be a
+     * {@code robocode.RobocodeFileOutputStream}.
+     * @param out the stream to write to
+     * @param conf the configuration the structures were built for
+     * @throws IOException if the stream fails
+     */
+    public void write(OutputStream out, IUIConfiguration conf) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeLong(hash(conf));
+        data.writeInt((clearanceField != null ? CLEARANCE : 0) | (roadmap != null ? ROADMAP : 0));
+        if (clearanceField != null)
+            clearanceField.writeTo(data);
+        if (roadmap != null)
+            roadmap.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Maps the file of a configuration.
+     * @param file the file, usually in the data directory of the robot
+     * @param conf the configuration; its obstacles are the static obstacles of the roadmap
+     * @return the structures in the file, or null if the file does not exist, is incomplete or was written for
+     *         another configuration or format
+     * @throws IOException if the file cannot be read
+     */
+    public static PlannerArtifacts load(File file, IUIConfiguration conf) throws IOException {
+        if (!file.isFile() || file.length() < HEADER_SIZE)
+            return null;
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return read(buffer, conf);
+    }
+
+    /**
+     * Reads structures written by {@link #write(OutputStream, IUIConfiguration)} from a buffer, without copying them.
+     * @param buffer the buffer, positioned at the header
+     * @param conf the configuration; its obstacles are the static obstacles of the roadmap
+     * @return the structures, or null if the header does not match the configuration or the format, or a section
+     *         is cut short
+     */
+    public static PlannerArtifacts read(ByteBuffer buffer, IUIConfiguration conf) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION
+                || buffer.getLong() != hash(conf))
+            return null;
+
+        int sections = buffer.getInt();
+        if ((sections & ~(CLEARANCE | ROADMAP)) != 0)
+            return null;
+
+        ClearanceField clearanceField = null;
+        if ((sections & CLEARANCE) != 0 && (clearanceField = ClearanceField.read(buffer)) == null)
+            return null;
+        Roadmap roadmap = null;
+        if ((sections & ROADMAP) != 0 && (roadmap = Roadmap.read(buffer, conf.getObstacles())) == null)
+            return null;
+        return new PlannerArtifacts(clearanceField, roadmap);
+    }
+
+    private static long mix(long h, int value) {
+        for (int i = 0; i < 4; i++)
+        {
+            h ^= (value >>> (8 * i)) & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,58 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Client of the {@link PlanningServer}. Keeps a single connection open, so a request costs one round trip on the
+ * loopback interface (Nagle's algorithm is disabled).
+ */
+public class PlanningClient implements Closeable
+{
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * Connects to a planning server running on this machine.
+     * @param port the port of the server
+     * @throws IOException if the connection cannot be established
+     */
+    public PlanningClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Starts a new search on the server and waits for its first answer.
+     * @param conf the problem to solve
+     * @param budgetMicros how long the server may search before answering, in microseconds
+     * @return the answer of the server
+     * @throws IOException if the communication fails
+     */
+    public synchronized PlanningProtocol.Result plan(IUIConfiguration conf, int budgetMicros) throws IOException {
+        PlanningProtocol.writePlan(out, conf, budgetMicros);
+        return PlanningProtocol.readResult(in);
+    }
+
+    /**
+     * Continues the last search started by this client.
+     * @param budgetMicros how long the server may search before answering, in microseconds
+     * @return the answer of the server
+     * @throws IOException if the communication fails
+     */
+    public synchronized PlanningProtocol.Result resume(int budgetMicros) throws IOException {
+        PlanningProtocol.writeResume(out, budgetMicros);
+        return PlanningProtocol.readResult(in);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,235 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.impl.Path;
+import com.slaughtersquad.impl.Point;
+import com.slaughtersquad.impl.UIConfiguration;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary messages exchanged between {@link PlanningClient} and {@link PlanningServer}.
+ * <p>
+ * Every request starts with {@link #MAGIC}, the protocol version and an operation:
+ * <ul>
+ *     <li>{@link #OP_PLAN}: budget (microseconds), width, height, start, end, number of obstacles and x, y, width and height
+ *     of each obstacle. Starts a new search, replacing the one of the connection.</li>
+ *     <li>{@link #OP_RESUME}: budget (microseconds). Continues the search of the connection.</li>
+ * </ul>
+ * The answer is a status, the generation reached, the fitness of the best path and its points. All values are
+ * big-endian ints, except the fitness (double) and the operation and status (bytes).
+ */
+public final class PlanningProtocol
+{
+    public static final int MAGIC = 0x53535051;
+    public static final byte VERSION = 2;
+
+    public static final byte OP_PLAN = 1;
+    public static final byte OP_RESUME = 2;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_NO_PATH = 1;
+    public static final byte STATUS_ERROR = 2;
+
+    /**
+     * Largest number of obstacles accepted in a request.
+     */
+    public static final int MAX_OBSTACLES = 1 << 20;
+
+    /**
+     * Largest number of points accepted in an answer.
+     */
+    public static final int MAX_POINTS = 1 << 16;
+
+    /**
+     * Longest search, in microseconds, the server runs for a single request; larger budgets are cut to it.
+     */
+    public static final int MAX_BUDGET_MICROS = 1_000_000;
+
+    private PlanningProtocol(){}
+
+    /**
+     * Writes a request that starts a new search.
+     * @param out the stream to write to
+     * @param conf the problem to solve
+     * @param budgetMicros how long the server may search before answering, in microseconds
+     * @throws IOException if the request cannot be written
+     */
+    public static void writePlan(DataOutputStream out, IUIConfiguration conf, int budgetMicros) throws IOException {
+        writeHeader(out, OP_PLAN);
+        out.writeInt(budgetMicros);
+        out.writeInt(conf.getWidth());
+        out.writeInt(conf.getHeight());
+        out.writeInt(conf.getStart().getX());
+        out.writeInt(conf.getStart().getY());
+        out.writeInt(conf.getEnd().getX());
+        out.writeInt(conf.getEnd().getY());
+
+        List<Rectangle> obstacles = conf.getObstacles();
+        out.writeInt(obstacles.size());
+        for (Rectangle r : obstacles)
+        {
+            out.writeInt(r.x);
+            out.writeInt(r.y);
+            out.writeInt(r.width);
+            out.writeInt(r.height);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes a request that continues the current search.
+     * @param out the stream to write to
+     * @param budgetMicros how long the server may search before answering, in microseconds
+     * @throws IOException if the request cannot be written
+     */
+    public static void writeResume(DataOutputStream out, int budgetMicros) throws IOException {
+        writeHeader(out, OP_RESUME);
+        out.writeInt(budgetMicros);
+        out.flush();
+    }
+
+    /**
+     * Reads the configuration sent in a {@link #OP_PLAN} request (after the header and budget).
+     * @param in the stream to read from
+     * @return the configuration
+     * @throws IOException if the request is malformed
+     */
+    public static IUIConfiguration readConfiguration(DataInputStream in) throws IOException {
+        int width = in.readInt(), height = in.readInt();
+        Point start = new Point(in.readInt(), in.readInt());
+        Point end = new Point(in.readInt(), in.readInt());
+
+        int n = in.readInt();
+        if (n < 0 || n > MAX_OBSTACLES)
+            throw new IOException("Invalid number of obstacles: " + n);
+
+        // the count comes from the socket: do not trust it with the whole capacity up front
+        List<Rectangle> obstacles = new ArrayList<>(Math.min(n, 1 << 10));
+        for (int i = 0; i < n; i++)
+            obstacles.add(new Rectangle(in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+
+        UIConfiguration conf = new UIConfiguration(width, height, obstacles);
+        conf.setStart(start);
+        conf.setEnd(end);
+        return conf;
+    }
+
+    /**
+     * Reads and checks the header of a request.
+     * @param in the stream to read from
+     * @return the operation requested
+     * @throws IOException if the header is not valid
+     */
+    public static byte readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a planning request");
+        byte version = in.readByte();
+        if (version != VERSION)
+            throw new IOException("Unsupported protocol version: " + version);
+        return in.readByte();
+    }
+
+    /**
+     * Writes the answer to a request.
+     * @param out the stream to write to
+     * @param status the status of the answer
+     * @param generation the generation reached by the search
+     * @param fitness the fitness of the path
+     * @param path the best path, or null if there is none
+     * @throws IOException if the answer cannot be written
+     */
+    public static void writeResult(DataOutputStream out, byte status, int generation, double fitness, IPath path) throws IOException {
+        out.writeByte(status);
+        out.writeInt(generation);
+        out.writeDouble(fitness);
+
+        List<IPoint> points = path == null ? List.of() : path.getPoints();
+        out.writeInt(points.size());
+        for (IPoint p : points)
+        {
+            out.writeInt(p.getX());
+            out.writeInt(p.getY());
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads the answer to a request.
+     * @param in the stream to read from
+     * @return the answer
+     * @throws IOException if the answer is malformed
+     */
+    public static Result readResult(DataInputStream in) throws IOException {
+        byte status = in.readByte();
+        int generation = in.readInt();
+        double fitness = in.readDouble();
+
+        int n = in.readInt();
+        if (n < 0 || n > MAX_POINTS)
+            throw new IOException("Invalid number of points: " + n);
+
+        List<IPoint> points = new ArrayList<>(Math.min(n, 1 << 10));
+        for (int i = 0; i < n; i++)
+            points.add(new Point(in.readInt(), in.readInt()));
+
+        Path path = null;
+        if (n > 0)
+        {
+            path = new Path();
+            path.setPoints(points);
+        }
+        return new Result(status, generation, fitness, path);
+    }
+
+    private static void writeHeader(DataOutputStream out, byte op) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(op);
+    }
+
+    /**
+     * Answer of the planning server.
+     */
+    public static final class Result
+    {
+        private final byte status;
+        private final int generation;
+        private final double fitness;
+        private final IPath path;
+
+        Result(byte status, int generation, double fitness, IPath path) {
+            this.status = status;
+            this.generation = generation;
+            this.fitness = fitness;
+            this.path = path;
+        }
+
+        public byte getStatus() {
+            return status;
+        }
+
+        public int getGeneration() {
+            return generation;
+        }
+
+        public double getFitness() {
+            return fitness;
+        }
+
+        /**
+         * Returns the best valid path found by the server.
+         * @return the best path, or null if none was found yet
+         */
+        public IPath getPath() {
+            return path;
+        }
+    }
+}
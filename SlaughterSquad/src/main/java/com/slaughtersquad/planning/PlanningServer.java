@@ -0,0 +1,148 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.ga.GeneticPlanner;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPlanningTask;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Small planning service that runs outside Robocode, where the planner is not limited by the robot's thread and CPU
+ * restrictions. It only listens on the loopback interface and speaks the {@link PlanningProtocol}.
+ * <p>
+ * Every connection has its own search, which is kept between requests so that a client can resume it tick after
+ * tick. Can be started standalone or by {@link com.slaughtersquad.Monitor}.
+ */
+public class PlanningServer implements Closeable
+{
+    public static final int DEFAULT_PORT = 47147;
+
+    private final ServerSocket serverSocket;
+    private final IPlanner planner;
+    private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "PlanningServer-connection");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Opens the server socket. Connections are only accepted after {@link #start()}.
+     * @param port the port to listen on (0 chooses a free port)
+     * @param planner the planner used for every connection
+     * @throws IOException if the port cannot be opened
+     */
+    public PlanningServer(int port, IPlanner planner) throws IOException {
+        this.serverSocket = new ServerSocket(port, 16, InetAddress.getLoopbackAddress());
+        this.planner = planner;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "PlanningServer");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed())
+        {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed())
+                    e.printStackTrace();
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        IPlanningTask task = null;
+        CancelToken cancel = null;
+
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())))
+        {
+            while (true)
+            {
+                byte op;
+                try {
+                    op = PlanningProtocol.readHeader(in);
+                } catch (EOFException e) {
+                    // the client closed the connection
+                    break;
+                }
+
+                // the budget comes from the socket: a connection may not hold a pooled thread for long
+                int budgetMicros = Math.max(0, Math.min(in.readInt(), PlanningProtocol.MAX_BUDGET_MICROS));
+                if (op == PlanningProtocol.OP_PLAN)
+                {
+                    if (cancel != null)
+                        cancel.cancel();
+                    cancel = new CancelToken();
+                    task = planner.newTask(PlanningProtocol.readConfiguration(in), cancel);
+                }
+                else if (op != PlanningProtocol.OP_RESUME || task == null)
+                {
+                    PlanningProtocol.writeResult(out, PlanningProtocol.STATUS_ERROR, 0, Double.POSITIVE_INFINITY, null);
+                    continue;
+                }
+
+                task.resume(System.nanoTime() + budgetMicros * 1_000L);
+
+                byte status = task.getBestPath() == null ? PlanningProtocol.STATUS_NO_PATH : PlanningProtocol.STATUS_OK;
+                PlanningProtocol.writeResult(out, status, task.getGeneration(), task.getBestFitness(), task.getBestPath());
+            }
+        } catch (IOException e) {
+            System.err.println("Planning connection closed: " + e.getMessage());
+        } finally {
+            if (cancel != null)
+                cancel.cancel();
+        }
+    }
+
+    /**
+     * Creates the planner used by {@link #main(String[])} and by {@link com.slaughtersquad.Monitor}: the genetic
+     * planner seeded from the roadmap of the battlefield, like the planner a robot runs locally.
+     * @return a planner for the server
+     */
+    public static IPlanner createPlanner() {
+        GeneticPlanner planner = new GeneticPlanner();
+        planner.setSeeder(new RoadmapSeeder());
+        return planner;
+    }
+
+    /**
+     * Runs the server until the process is killed.
+     * @param args optionally, the port to listen on
+     * @throws Exception if the server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+
+        PlanningServer server = new PlanningServer(port, createPlanner());
+        server.start();
+        System.out.println("Planning server listening on port " + server.getPort());
+
+        Thread.currentThread().join();
+    }
+}
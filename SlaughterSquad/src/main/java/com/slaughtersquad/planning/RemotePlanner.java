@@ -0,0 +1,164 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPlannerListener;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.io.IOException;
+
+/**
+ * {@link IPlanner} that delegates the search to a {@link PlanningServer}. Each call to
+ * {@link IPlanningTask#resume(long)} is one round trip that lets the server search until (about) the deadline.
+ * <p>
+ * If the server cannot be reached (it is not running, or the Robocode security manager forbids sockets) the
+ * fallback planner is used instead, so robots keep working without the server. The server keeps one search per
+ * connection, so only the most recent task of a planner can be resumed remotely.
+ */
+public class RemotePlanner implements IPlanner
+{
+    // what a request costs on the loopback interface, besides the search
+    private static final int ROUND_TRIP_MICROS = 100;
+    private static final int MIN_BUDGET_MICROS = 500;
+
+    private final int port;
+    private final IPlanner fallback;
+    private PlanningClient client;
+    private boolean unavailable;
+
+    /**
+     * Creates a planner that uses the server on the given port.
+     * @param port the port of the planning server
+     * @param fallback the planner used when the server cannot be reached
+     */
+    public RemotePlanner(int port, IPlanner fallback) {
+        this.port = port;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public IPlanningTask newTask(IUIConfiguration conf, CancelToken cancel) {
+        return new Task(conf, cancel == null ? new CancelToken() : cancel);
+    }
+
+    /**
+     * Returns the time the server may search in a request, so that the answer arrives about at the deadline. A
+     * request always gets at least {@link #MIN_BUDGET_MICROS}, even if that overruns a short deadline: the thread
+     * waiting for the answer does not use the processor, while a request with no time left costs a round trip and
+     * makes no progress. A request gets at most {@link PlanningProtocol#MAX_BUDGET_MICROS}, since the server cuts
+     * longer budgets, so a call with a later deadline returns early.
+     */
+    static int budgetMicros(long remainingNanos) {
+        long budget = remainingNanos / 1_000L - ROUND_TRIP_MICROS;
+        return (int) Math.min(PlanningProtocol.MAX_BUDGET_MICROS, Math.max(MIN_BUDGET_MICROS, budget));
+    }
+
+    private synchronized PlanningClient client() {
+        if (client == null && !unavailable)
+        {
+            try {
+                client = new PlanningClient(port);
+            } catch (IOException | SecurityException e) {
+                System.out.println("Planning server not available, planning locally: " + e.getMessage());
+                unavailable = true;
+            }
+        }
+        return client;
+    }
+
+    private synchronized void disconnect() {
+        try {
+            if (client != null)
+                client.close();
+        } catch (IOException ignored) {
+        }
+        client = null;
+        unavailable = true;
+    }
+
+    private class Task implements IPlanningTask
+    {
+        private final IUIConfiguration conf;
+        private final CancelToken cancel;
+
+        private IPlanningTask local;
+        private boolean started;
+        private IPlannerListener listener;
+        private IPath bestPath;
+        private double bestFitness = Double.POSITIVE_INFINITY;
+        private int generation;
+
+        private Task(IUIConfiguration conf, CancelToken cancel) {
+            this.conf = conf;
+            this.cancel = cancel;
+        }
+
+        @Override
+        public boolean resume(long deadlineNanos) {
+            if (isFinished())
+                return false;
+
+            if (local == null)
+            {
+                PlanningClient c = client();
+                if (c != null)
+                {
+                    int budget = budgetMicros(deadlineNanos - System.nanoTime());
+                    try {
+                        PlanningProtocol.Result result = started ? c.resume(budget) : c.plan(conf, budget);
+                        started = true;
+                        accept(result);
+                        return !isFinished();
+                    } catch (IOException e) {
+                        System.out.println("Planning server failed, planning locally: " + e.getMessage());
+                        disconnect();
+                    }
+                }
+
+                local = fallback.newTask(conf, cancel);
+                local.setListener(listener);
+            }
+
+            return local.resume(deadlineNanos);
+        }
+
+        private void accept(PlanningProtocol.Result result) {
+            generation = result.getGeneration();
+            if (result.getPath() != null && result.getFitness() < bestFitness)
+            {
+                bestFitness = result.getFitness();
+                bestPath = result.getPath();
+                if (listener != null)
+                    listener.onImprovement(bestPath, bestFitness, generation);
+            }
+        }
+
+        @Override
+        public IPath getBestPath() {
+            return local != null ? local.getBestPath() : bestPath;
+        }
+
+        @Override
+        public double getBestFitness() {
+            return local != null ? local.getBestFitness() : bestFitness;
+        }
+
+        @Override
+        public int getGeneration() {
+            return local != null ? local.getGeneration() : generation;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return local != null ? local.isFinished() : cancel.isCancelled();
+        }
+
+        @Override
+        public void setListener(IPlannerListener listener) {
+            this.listener = listener;
+            if (local != null)
+                local.setListener(listener);
+        }
+    }
+}
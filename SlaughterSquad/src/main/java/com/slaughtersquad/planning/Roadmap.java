@@ -0,0 +1,606 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.collision.SegmentCollider;
+import com.slaughtersquad.impl.Path;
+import com.slaughtersquad.impl.Point;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Probabilistic roadmap (PRM) of a map, built once and then queried many times.
+ * <p>
+ * The nodes are the free points just outside the corners of the static obstacles plus points sampled uniformly in
+ * free space. Every node is linked to its nearest neighbours when the segment between them does not touch a static
+ * obstacle (tested through a {@link SegmentCollider}), and the edges are stored as compressed sparse rows: the
+ * neighbours of node {@code u} are {@code targets[offsets[u]]} to {@code targets[offsets[u + 1] - 1]}. A query links
+ * the start and the end to the nearby nodes they can see and runs A* over the rows, so it touches a few hundred
+ * array entries and allocates only the resulting path.
+ * <p>
+ * Obstacles that move during a round (the grown enemies of a robot) are passed with each query. An edge is only
+ * tested against them when A* is about to improve a node through it, and the answer is kept until the list of
+ * dynamic obstacles changes, so repeated queries with the same enemies reuse the checks of the previous ones.
+ * <p>
+ * The roadmap is not complete: a passage narrower than the spacing of the samples and without obstacle corners
+ * nearby may be missed, and the paths follow the edges of the roadmap rather than the shortest route. Queries are
+ * serialised.
+ * <p>
+ * The arrays are kept in NIO buffers so that a roadmap saved with {@link #writeTo(DataOutputStream)} can be used
+ * straight from a memory-mapped file (see {@link PlannerArtifacts}).
+ */
+public class Roadmap
+{
+    /**
+     * Default number of random samples.
+     */
+    public static final int DEFAULT_SAMPLES = 400;
+
+    /**
+     * Default number of neighbours considered for the edges of each node.
+     */
+    public static final int DEFAULT_NEIGHBOURS = 10;
+
+    // width, height, samples, neighbours, seed (long), bucket size, nodes, edge entries
+    private static final int HEADER_SIZE = 7 * 4 + 8;
+
+    // a sample is drawn at most this many times per requested sample, in case most of the map is blocked
+    private static final int SAMPLE_ATTEMPTS = 20;
+
+    private final int width, height;
+    private final int samples, neighbours;
+    private final long seed;
+    private final SegmentCollider collider;
+
+    private final IntBuffer nx, ny;
+    private final IntBuffer offsets, targets;
+    private final FloatBuffer lengths;
+
+    // the nodes bucketed by cell, also as compressed rows
+    private final int bucketSize, cols, rows;
+    private final IntBuffer bucketStart, bucketNodes;
+
+    // dynamic obstacles of the last query, and the edges checked against them (per directed entry of targets)
+    private List<Rectangle> dynamic = Collections.emptyList();
+    private SegmentCollider dynamicCollider;
+    private int generation = 1;
+    private int[] edgeGeneration;
+    private boolean[] edgeBlocked;
+    private long edgeChecks;
+
+    // A* state, indexed by node; the two extra entries are the start and the goal of the query
+    private double[] cost;
+    private int[] parent;
+    private int[] visited;
+    private int[] goalLink;
+    private double[] goalDistance;
+    private int query;
+    private final NodeHeap open = new NodeHeap();
+
+    // scratch space of the nearest neighbour searches
+    private int[] nearIds = new int[0];
+    private double[] nearDistances = new double[0];
+
+    /**
+     * Builds the roadmap of the obstacles of a configuration with the default settings.
+     * @param conf the configuration
+     * @return the roadmap
+     */
+    public static Roadmap of(IUIConfiguration conf) {
+        return new Roadmap(conf.getWidth(), conf.getHeight(), conf.getObstacles(), DEFAULT_SAMPLES, DEFAULT_NEIGHBOURS, 0);
+    }
+
+    /**
+     * Builds a roadmap.
+     * @param width the width of the map
+     * @param height the height of the map
+     * @param obstacles the static obstacles
+     * @param samples the number of random samples
+     * @param neighbours the number of nearest nodes each node tries to link to
+     * @param seed the seed of the samples; the same arguments always give the same roadmap
+     */
+    public Roadmap(int width, int height, List<Rectangle> obstacles, int samples, int neighbours, long seed) {
+        if (samples < 0)
+            throw new IllegalArgumentException("samples must not be negative: " + samples);
+        if (neighbours < 1)
+            throw new IllegalArgumentException("neighbours must be positive: " + neighbours);
+
+        this.width = width;
+        this.height = height;
+        this.samples = samples;
+        this.neighbours = neighbours;
+        this.seed = seed;
+        this.collider = new SegmentCollider(width, height, obstacles);
+
+        // nodes: the free corners of the obstacles, then the random samples
+        int[] xs = new int[4 * obstacles.size() + samples];
+        int[] ys = new int[xs.length];
+        int n = 0;
+        Set<Integer> corners = new HashSet<>();
+        for (Rectangle r : obstacles)
+            for (int k = 0; k < 4; k++)
+            {
+                int x = (k & 1) == 0 ? r.x - 1 : r.x + r.width + 1;
+                int y = (k & 2) == 0 ? r.y - 1 : r.y + r.height + 1;
+                if (isFree(x, y) && corners.add(y * (width + 1) + x))
+                {
+                    xs[n] = x;
+                    ys[n++] = y;
+                }
+            }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0, added = 0; added < samples && i < samples * SAMPLE_ATTEMPTS; i++)
+        {
+            int x = random.nextInt(width + 1), y = random.nextInt(height + 1);
+            if (isFree(x, y))
+            {
+                xs[n] = x;
+                ys[n++] = y;
+                added++;
+            }
+        }
+        nx = IntBuffer.wrap(Arrays.copyOf(xs, n));
+        ny = IntBuffer.wrap(Arrays.copyOf(ys, n));
+
+        // about two nodes per bucket
+        bucketSize = Math.max(4, (int) Math.ceil(Math.sqrt(2.0 * (width + 1) * (height + 1) / Math.max(1, n))));
+        cols = width / bucketSize + 1;
+        rows = height / bucketSize + 1;
+        int[] starts = new int[cols * rows + 1];
+        int[] members = new int[n];
+        for (int u = 0; u < n; u++)
+            starts[bucket(xs[u], ys[u]) + 1]++;
+        for (int b = 0; b < cols * rows; b++)
+            starts[b + 1] += starts[b];
+        int[] fill = Arrays.copyOf(starts, cols * rows);
+        for (int u = 0; u < n; u++)
+            members[fill[bucket(xs[u], ys[u])]++] = u;
+        bucketStart = IntBuffer.wrap(starts);
+        bucketNodes = IntBuffer.wrap(members);
+
+        // candidate edges as sorted pairs (smaller node in the high half), so each pair is tested once
+        long[] pairs = new long[n * (neighbours + 1)];
+        int pairCount = 0;
+        for (int u = 0; u < n; u++)
+        {
+            int count = nearest(xs[u], ys[u], neighbours + 1);
+            for (int i = 0; i < count; i++)
+            {
+                int v = nearIds[i];
+                if (v != u)
+                    pairs[pairCount++] = ((long) Math.min(u, v) << 32) | Math.max(u, v);
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+
+        int[] degree = new int[n];
+        int edges = 0;
+        for (int i = 0; i < pairCount; i++)
+        {
+            if (i > 0 && pairs[i] == pairs[i - 1])
+                continue;
+            int u = (int) (pairs[i] >>> 32), v = (int) pairs[i];
+            if (collider.intersectsAny(xs[u], ys[u], xs[v], ys[v]))
+                continue;
+            pairs[edges++] = pairs[i];
+            degree[u]++;
+            degree[v]++;
+        }
+
+        int[] rowOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++)
+            rowOffsets[u + 1] = rowOffsets[u] + degree[u];
+        int[] rowTargets = new int[rowOffsets[n]];
+        float[] rowLengths = new float[rowOffsets[n]];
+        fill = Arrays.copyOf(rowOffsets, n);
+        for (int i = 0; i < edges; i++)
+        {
+            int u = (int) (pairs[i] >>> 32), v = (int) pairs[i];
+            float length = (float) distance(xs[u], ys[u], xs[v], ys[v]);
+            rowTargets[fill[u]] = v;
+            rowLengths[fill[u]++] = length;
+            rowTargets[fill[v]] = u;
+            rowLengths[fill[v]++] = length;
+        }
+        offsets = IntBuffer.wrap(rowOffsets);
+        targets = IntBuffer.wrap(rowTargets);
+        lengths = FloatBuffer.wrap(rowLengths);
+    }
+
+    /**
+     * Maps a roadmap written by {@link #writeTo(DataOutputStream)}. The arrays of the roadmap are views of the
+     * buffer, not copies, so the buffer must not be modified while the roadmap is in use.
+     * <p>
+     * Only the header (including {@code neighbours}, which every query relies on) and the ends of the index arrays
+     * are checked (the rest is not read until a query needs it),
+     * which is enough to reject a file cut short, e.g. by a robot killed while writing it.
+     * @param buffer the buffer, positioned at the start of the roadmap; on return it is positioned just after it
+     * @param obstacles the static obstacles the roadmap was built for
+     * @return the roadmap, or null if the buffer does not hold a whole roadmap (the position is then unspecified)
+     */
+    public static Roadmap read(ByteBuffer buffer, List<Rectangle> obstacles) {
+        int at = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE)
+            return null;
+        int width = buffer.getInt(at), height = buffer.getInt(at + 4);
+        int samples = buffer.getInt(at + 8), neighbours = buffer.getInt(at + 12);
+        int bucketSize = buffer.getInt(at + 24), n = buffer.getInt(at + 28), entries = buffer.getInt(at + 32);
+        if (width <= 0 || height <= 0 || samples < 0 || neighbours < 1 || bucketSize <= 0 || n < 0 || entries < 0)
+            return null;
+
+        long buckets = ((long) width / bucketSize + 1) * ((long) height / bucketSize + 1);
+        long bytes = HEADER_SIZE + 4 * (4L * n + 1 + 2L * entries + buckets + 1);
+        if (bytes > buffer.remaining())
+            return null;
+
+        Roadmap roadmap = new Roadmap(buffer, obstacles);
+        if (roadmap.offsets.get(0) != 0 || roadmap.offsets.get(n) != entries || roadmap.bucketStart.get((int) buckets) != n)
+            return null;
+        return roadmap;
+    }
+
+    private Roadmap(ByteBuffer buffer, List<Rectangle> obstacles) {
+        width = buffer.getInt();
+        height = buffer.getInt();
+        samples = buffer.getInt();
+        neighbours = buffer.getInt();
+        seed = buffer.getLong();
+        bucketSize = buffer.getInt();
+        int n = buffer.getInt();
+        int entries = buffer.getInt();
+        cols = width / bucketSize + 1;
+        rows = height / bucketSize + 1;
+        collider = new SegmentCollider(width, height, obstacles);
+
+        nx = slice(buffer, n).asIntBuffer();
+        ny = slice(buffer, n).asIntBuffer();
+        offsets = slice(buffer, n + 1).asIntBuffer();
+        targets = slice(buffer, entries).asIntBuffer();
+        lengths = slice(buffer, entries).asFloatBuffer();
+        bucketStart = slice(buffer, cols * rows + 1).asIntBuffer();
+        bucketNodes = slice(buffer, n).asIntBuffer();
+    }
+
+    /**
+     * Writes the roadmap in the layout expected by {@link #read(ByteBuffer, List)}: a header (width, height, samples
+     * and neighbours as ints, the seed as a long, then bucket size, nodes and edge entries as ints) followed by the
+     * arrays, all big-endian.
+     * @param out the stream to write to
+     * @throws IOException if the stream fails
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        int n = getNodeCount();
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(samples);
+        out.writeInt(neighbours);
+        out.writeLong(seed);
+        out.writeInt(bucketSize);
+        out.writeInt(n);
+        out.writeInt(targets.limit());
+        for (int i = 0; i < n; i++)
+            out.writeInt(nx.get(i));
+        for (int i = 0; i < n; i++)
+            out.writeInt(ny.get(i));
+        for (int i = 0; i <= n; i++)
+            out.writeInt(offsets.get(i));
+        for (int e = 0; e < targets.limit(); e++)
+            out.writeInt(targets.get(e));
+        for (int e = 0; e < lengths.limit(); e++)
+            out.writeFloat(lengths.get(e));
+        for (int b = 0; b <= cols * rows; b++)
+            out.writeInt(bucketStart.get(b));
+        for (int i = 0; i < n; i++)
+            out.writeInt(bucketNodes.get(i));
+    }
+
+    /**
+     * Cuts the next {@code count} 4-byte values out of a buffer and moves the buffer past them.
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int count) {
+        ByteBuffer slice = buffer.slice().order(buffer.order());
+        slice.limit(4 * count);
+        buffer.position(buffer.position() + 4 * count);
+        return slice;
+    }
+
+    /**
+     * Returns whether the roadmap was built with the given settings, e.g. to rebuild a saved roadmap after the
+     * defaults changed.
+     * @param samples the number of random samples
+     * @param neighbours the number of nearest nodes each node tries to link to
+     * @param seed the seed of the samples
+     * @return true if the roadmap was built with exactly these settings
+     */
+    public boolean isBuiltWith(int samples, int neighbours, long seed) {
+        return this.samples == samples && this.neighbours == neighbours && this.seed == seed;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getNodeCount() {
+        return nx.limit();
+    }
+
+    /**
+     * Returns the number of (undirected) edges.
+     */
+    public int getEdgeCount() {
+        return targets.limit() / 2;
+    }
+
+    public int getNodeX(int node) {
+        return nx.get(node);
+    }
+
+    public int getNodeY(int node) {
+        return ny.get(node);
+    }
+
+    /**
+     * Returns the number of edges tested against dynamic obstacles since the roadmap was built.
+     */
+    public synchronized long getEdgeChecks() {
+        return edgeChecks;
+    }
+
+    /**
+     * Finds a path through the roadmap.
+     * @param start the start of the path
+     * @param end the end of the path
+     * @param obstacles the dynamic obstacles; passing the same list instance as in the previous query keeps the
+     *                  edges already checked against it
+     * @return a path that touches neither the static nor the dynamic obstacles, or null if the roadmap does not
+     *         connect the two points
+     */
+    public synchronized IPath findPath(IPoint start, IPoint end, List<Rectangle> obstacles) {
+        if (cost == null)
+            allocate();
+        setDynamicObstacles(obstacles);
+
+        int sx = start.getX(), sy = start.getY(), gx = end.getX(), gy = end.getY();
+        if (isVisible(sx, sy, gx, gy))
+            return toPath(sx, sy, gx, gy, new int[0], 0);
+
+        int n = nx.limit(), source = n, goal = n + 1;
+        prepareQuery();
+
+        // the goal is entered from the nodes close to it that can see it
+        int linked = 0;
+        int count = nearest(gx, gy, 2 * neighbours);
+        for (int i = 0; i < count; i++)
+        {
+            int v = nearIds[i];
+            if (isVisible(nx.get(v), ny.get(v), gx, gy))
+            {
+                goalLink[v] = query;
+                goalDistance[v] = nearDistances[i];
+                linked++;
+            }
+        }
+        if (linked == 0)
+            return null;
+
+        cost[source] = 0;
+        parent[source] = -1;
+        visited[source] = query;
+        open.push(distance(sx, sy, gx, gy), source);
+
+        while (!open.isEmpty())
+        {
+            double f = open.peekKey();
+            int u = open.pop();
+
+            if (u == goal)
+            {
+                int length = 0;
+                for (int v = parent[goal]; v != source; v = parent[v])
+                    length++;
+                int[] nodes = new int[length];
+                for (int v = parent[goal], i = length - 1; v != source; v = parent[v], i--)
+                    nodes[i] = v;
+                return toPath(sx, sy, gx, gy, nodes, length);
+            }
+
+            int ux = u == source ? sx : nx.get(u), uy = u == source ? sy : ny.get(u);
+            // stale entry, the node was reached again through a shorter path
+            if (f > cost[u] + distance(ux, uy, gx, gy) + 1e-9)
+                continue;
+
+            if (u == source)
+            {
+                count = nearest(sx, sy, 2 * neighbours);
+                for (int i = 0; i < count; i++)
+                {
+                    int v = nearIds[i];
+                    if (isVisible(sx, sy, nx.get(v), ny.get(v)))
+                        relax(source, v, nearDistances[i], gx, gy);
+                }
+                continue;
+            }
+
+            if (goalLink[u] == query)
+                relax(u, goal, cost[u] + goalDistance[u], gx, gy);
+
+            for (int e = offsets.get(u); e < offsets.get(u + 1); e++)
+            {
+                int v = targets.get(e);
+                double g = cost[u] + lengths.get(e);
+                // the edge is only checked against the dynamic obstacles if it would improve its end
+                if ((visited[v] != query || g < cost[v]) && isOpen(u, e))
+                    relax(u, v, g, gx, gy);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Switches to a new list of dynamic obstacles, forgetting the edges checked against the previous one.
+     */
+    private void setDynamicObstacles(List<Rectangle> obstacles) {
+        if (obstacles == null)
+            obstacles = Collections.emptyList();
+        if (obstacles == dynamic)
+            return;
+
+        dynamic = obstacles;
+        dynamicCollider = obstacles.isEmpty() ? null : new SegmentCollider(width, height, obstacles);
+        if (++generation == 0)
+        {
+            Arrays.fill(edgeGeneration, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Checks an edge against the dynamic obstacles, reusing the answer of a previous query when they did not change.
+     */
+    private boolean isOpen(int u, int e) {
+        if (dynamicCollider == null)
+            return true;
+        if (edgeGeneration[e] != generation)
+        {
+            int v = targets.get(e);
+            edgeGeneration[e] = generation;
+            edgeBlocked[e] = dynamicCollider.intersectsAny(nx.get(u), ny.get(u), nx.get(v), ny.get(v));
+            edgeChecks++;
+        }
+        return !edgeBlocked[e];
+    }
+
+    private boolean isVisible(int x1, int y1, int x2, int y2) {
+        return !collider.intersectsAny(x1, y1, x2, y2)
+                && (dynamicCollider == null || !dynamicCollider.intersectsAny(x1, y1, x2, y2));
+    }
+
+    private boolean isFree(int x, int y) {
+        return x >= 0 && y >= 0 && x <= width && y <= height && !collider.isBlocked(x, y);
+    }
+
+    /**
+     * Finds the nodes closest to a point, searching the buckets in rings of growing size.
+     * @return how many nodes were found; they are in {@code nearIds} and {@code nearDistances}, closest first
+     */
+    private int nearest(int x, int y, int k) {
+        if (nearIds.length < k)
+        {
+            nearIds = new int[k];
+            nearDistances = new double[k];
+        }
+
+        int count = 0;
+        int cx = Math.max(0, Math.min(cols - 1, x / bucketSize)), cy = Math.max(0, Math.min(rows - 1, y / bucketSize));
+        for (int ring = 0; ring <= Math.max(cols, rows); ring++)
+        {
+            for (int by = cy - ring; by <= cy + ring; by++)
+            {
+                if (by < 0 || by >= rows)
+                    continue;
+                // inner rows only have the two cells at the ends of the ring
+                int step = by == cy - ring || by == cy + ring ? 1 : Math.max(1, 2 * ring);
+                for (int bx = cx - ring; bx <= cx + ring; bx += step)
+                {
+                    if (bx < 0 || bx >= cols)
+                        continue;
+                    int b = by * cols + bx;
+                    for (int i = bucketStart.get(b); i < bucketStart.get(b + 1); i++)
+                        count = insert(bucketNodes.get(i), distance(x, y, nx.get(bucketNodes.get(i)), ny.get(bucketNodes.get(i))), count, k);
+                }
+            }
+            // every node of the next ring is at least this far away
+            if (count == k && nearDistances[k - 1] <= (double) ring * bucketSize)
+                break;
+        }
+        return count;
+    }
+
+    private int insert(int node, double d, int count, int k) {
+        if (count == k && d >= nearDistances[k - 1])
+            return count;
+
+        int i = count == k ? k - 1 : count++;
+        while (i > 0 && nearDistances[i - 1] > d)
+        {
+            nearIds[i] = nearIds[i - 1];
+            nearDistances[i] = nearDistances[i - 1];
+            i--;
+        }
+        nearIds[i] = node;
+        nearDistances[i] = d;
+        return count;
+    }
+
+    private int bucket(int x, int y) {
+        return (y / bucketSize) * cols + x / bucketSize;
+    }
+
+    private void relax(int u, int v, double g, int gx, int gy) {
+        if (visited[v] == query && g >= cost[v])
+            return;
+
+        visited[v] = query;
+        cost[v] = g;
+        parent[v] = u;
+        open.push(v == nx.limit() + 1 ? g : g + distance(nx.get(v), ny.get(v), gx, gy), v);
+    }
+
+    /**
+     * Allocates the state of the queries on first use, so a mapped roadmap costs nothing until it is queried.
+     */
+    private void allocate() {
+        int n = nx.limit();
+        edgeGeneration = new int[targets.limit()];
+        edgeBlocked = new boolean[targets.limit()];
+        cost = new double[n + 2];
+        parent = new int[n + 2];
+        visited = new int[n + 2];
+        goalLink = new int[n];
+        goalDistance = new double[n];
+    }
+
+    private void prepareQuery() {
+        if (++query == 0)
+        {
+            Arrays.fill(visited, 0);
+            Arrays.fill(goalLink, 0);
+            query = 1;
+        }
+        open.clear();
+    }
+
+    private IPath toPath(int sx, int sy, int gx, int gy, int[] nodes, int count) {
+        List<IPoint> points = new ArrayList<>(count + 2);
+        points.add(new Point(sx, sy));
+        for (int i = 0; i < count; i++)
+            points.add(new Point(nx.get(nodes[i]), ny.get(nodes[i])));
+        points.add(new Point(gx, gy));
+
+        Path path = new Path();
+        path.setPoints(Collections.unmodifiableList(points));
+        return path;
+    }
+
+    private static double distance(int x1, int y1, int x2, int y2) {
+        return Math.hypot(x2 - x1, y2 - y1);
+    }
+}
@@ -0,0 +1,52 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPathSeeder;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+/**
+ * Planner that answers every configuration with a query on a {@link Roadmap} built beforehand for the static
+ * obstacles of the map. The obstacles of the configuration are treated as dynamic obstacles of the roadmap, so a
+ * robot can build the roadmap of the empty battlefield once per round and pass the grown enemies of its
+ * {@link com.slaughtersquad.collision.ConfigurationSpace} with each click. The configuration space hands out the same
+ * list until an enemy moves, which lets the roadmap keep the edges it already checked.
+ * <p>
+ * The answer comes in microseconds but follows the edges of the roadmap, so the planner is best used to seed a
+ * genetic planner (see {@link com.slaughtersquad.ga.GeneticPlanner#setSeeder(IPathSeeder)}).
+ */
+public class RoadmapPlanner implements IPlanner, IPathSeeder
+{
+    private final Roadmap roadmap;
+
+    public RoadmapPlanner(Roadmap roadmap) {
+        this.roadmap = roadmap;
+    }
+
+    public Roadmap getRoadmap() {
+        return roadmap;
+    }
+
+    /**
+     * Finds a path through the roadmap.
+     * @param conf the problem to solve; its size must be the size of the roadmap
+     * @return a path, or null if the roadmap does not connect the start to the end
+     */
+    public IPath findPath(IUIConfiguration conf) {
+        if (conf.getWidth() != roadmap.getWidth() || conf.getHeight() != roadmap.getHeight())
+            throw new IllegalArgumentException("the roadmap was built for a " + roadmap.getWidth() + "x"
+                    + roadmap.getHeight() + " map, not " + conf.getWidth() + "x" + conf.getHeight());
+        return roadmap.findPath(conf.getStart(), conf.getEnd(), conf.getObstacles());
+    }
+
+    @Override
+    public IPath seed(IUIConfiguration conf) {
+        return findPath(conf);
+    }
+
+    @Override
+    public IPlanningTask newTask(IUIConfiguration conf, CancelToken cancel) {
+        return new SingleQueryTask(conf, cancel, this);
+    }
+}
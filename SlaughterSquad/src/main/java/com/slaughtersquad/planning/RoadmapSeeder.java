@@ -0,0 +1,78 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.collision.ConfigurationSpace;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPathSeeder;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Seeder for a planner that receives maps of any size, such as the one behind the {@link PlanningServer}. It builds
+ * the {@link Roadmap} of the empty battlefield (only the walls, grown by a margin) the first time it sees a size,
+ * keeps the roadmaps of the last few sizes and answers with a {@link RoadmapPlanner} query, exactly like a robot that
+ * seeds its own genetic planner.
+ * <p>
+ * The first request for a size pays for building its roadmap. Can be shared between threads.
+ */
+public class RoadmapSeeder implements IPathSeeder
+{
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private final int margin;
+    private final Map<Long, RoadmapPlanner> roadmaps;
+
+    /**
+     * Creates a seeder for requests in the configuration space of a robot (see {@link ConfigurationSpace}).
+     */
+    public RoadmapSeeder() {
+        this(ConfigurationSpace.ROBOT_HALF_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a seeder.
+     * @param margin how much the walls grow before the roadmap is built
+     * @param capacity how many roadmaps (one per map size) are kept
+     */
+    public RoadmapSeeder(int margin, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+
+        this.margin = margin;
+        this.roadmaps = new LinkedHashMap<Long, RoadmapPlanner>(2 * capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RoadmapPlanner> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public IPath seed(IUIConfiguration conf) {
+        if (conf.getWidth() <= 0 || conf.getHeight() <= 0)
+            return null;
+        return planner(conf.getWidth(), conf.getHeight()).findPath(conf);
+    }
+
+    /**
+     * Returns the roadmap planner of a map size, building its roadmap if it is not cached.
+     * @param width the width of the map
+     * @param height the height of the map
+     * @return the planner over the roadmap of the empty battlefield
+     */
+    public synchronized RoadmapPlanner planner(int width, int height) {
+        long key = ((long) width << 32) | (height & 0xFFFFFFFFL);
+        RoadmapPlanner planner = roadmaps.get(key);
+        if (planner == null)
+        {
+            Roadmap roadmap = new Roadmap(width, height,
+                    ConfigurationSpace.inflate(Collections.emptyList(), width, height, margin, true),
+                    Roadmap.DEFAULT_SAMPLES, Roadmap.DEFAULT_NEIGHBOURS, 0);
+            planner = new RoadmapPlanner(roadmap);
+            roadmaps.put(key, planner);
+        }
+        return planner;
+    }
+}
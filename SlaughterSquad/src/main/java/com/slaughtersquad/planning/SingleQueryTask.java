@@ -0,0 +1,81 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPathSeeder;
+import com.slaughtersquad.interf.IPlannerListener;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.util.List;
+
+/**
+ * Planning task of a deterministic planner that answers with a single query. The first call to
+ * {@link #resume(long)} runs the query to the end, whatever the deadline, and the fitness is the length of the path.
+ */
+final class SingleQueryTask implements IPlanningTask
+{
+    private final IUIConfiguration conf;
+    private final CancelToken cancel;
+    private final IPathSeeder query;
+
+    private IPlannerListener listener;
+    private boolean done;
+    private IPath bestPath;
+    private double bestLength = Double.POSITIVE_INFINITY;
+
+    SingleQueryTask(IUIConfiguration conf, CancelToken cancel, IPathSeeder query) {
+        this.conf = conf;
+        this.cancel = cancel == null ? new CancelToken() : cancel;
+        this.query = query;
+    }
+
+    @Override
+    public boolean resume(long deadlineNanos) {
+        if (isFinished())
+            return false;
+
+        bestPath = query.seed(conf);
+        done = true;
+        if (bestPath != null)
+        {
+            bestLength = length(bestPath);
+            if (listener != null)
+                listener.onImprovement(bestPath, bestLength, 1);
+        }
+        return false;
+    }
+
+    @Override
+    public IPath getBestPath() {
+        return bestPath;
+    }
+
+    @Override
+    public double getBestFitness() {
+        return bestLength;
+    }
+
+    @Override
+    public int getGeneration() {
+        return done ? 1 : 0;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return done || cancel.isCancelled();
+    }
+
+    @Override
+    public void setListener(IPlannerListener listener) {
+        this.listener = listener;
+    }
+
+    static double length(IPath path) {
+        List<IPoint> points = path.getPoints();
+        double length = 0;
+        for (int i = 1; i < points.size(); i++)
+            length += Math.hypot(points.get(i).getX() - points.get(i - 1).getX(), points.get(i).getY() - points.get(i - 1).getY());
+        return length;
+    }
+}
@@ -0,0 +1,145 @@
+package com.slaughtersquad.planning;
+
+/**
+ * Estimates how many ticks a Robocode robot takes to follow a path, using tables built once from the movement rules
+ * of the game: robots accelerate at 1 px/tick, brake at 2 px/tick, never go faster than 8 px/tick and turn at
+ * {@code 10 - 0.75 * |velocity|} degrees per tick.
+ * <p>
+ * The model assumes the robot stops at every waypoint, turns in place and then drives the next segment, braking so
+ * that it stops exactly at the next waypoint. Since a robot can drive backwards (as {@code Utils.advancedRobotGoTo}
+ * does) it never turns more than 90 degrees. The turn at the start is not counted, because the heading of the robot
+ * is not known when the path is planned.
+ * <p>
+ * After the tables are built, estimating a segment or a turn is a table lookup, so the estimate costs about the same
+ * as computing the length of the path.
+ */
+public final class TraversalTimeModel
+{
+    public static final double MAX_VELOCITY = 8;
+    public static final double ACCELERATION = 1;
+    public static final double DECELERATION = 2;
+    public static final double MAX_TURN_RATE = 10;
+
+    // distances (in pixels) covered by the drive table; longer segments are extrapolated at full speed
+    private static final int DRIVE_TABLE_SIZE = 1024;
+    // number of steps of |cos| in the turn table
+    private static final int TURN_TABLE_SIZE = 1024;
+
+    private static final TraversalTimeModel DEFAULT = new TraversalTimeModel();
+
+    private final double[] driveTicks = new double[DRIVE_TABLE_SIZE + 1];
+    private final double[] turnTicks = new double[TURN_TABLE_SIZE + 1];
+
+    private TraversalTimeModel() {
+        for (int d = 0; d <= DRIVE_TABLE_SIZE; d++)
+            driveTicks[d] = simulateDrive(d);
+
+        // the robot is stopped at the waypoint, so it turns at the maximum rate
+        for (int i = 0; i <= TURN_TABLE_SIZE; i++)
+        {
+            double degrees = Math.toDegrees(Math.acos((double) i / TURN_TABLE_SIZE));
+            turnTicks[i] = Math.max(0, Math.ceil(degrees / turnRate(0) - 1e-9));
+        }
+    }
+
+    /**
+     * Returns the shared model. The tables are built the first time this method is called.
+     * @return the model
+     */
+    public static TraversalTimeModel getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the maximum turn rate at the given velocity, in degrees per tick.
+     * @param velocity the velocity of the robot
+     * @return the maximum turn rate
+     */
+    public static double turnRate(double velocity) {
+        return MAX_TURN_RATE - 0.75 * Math.abs(velocity);
+    }
+
+    /**
+     * Returns the ticks needed to drive a straight line, starting and ending at rest.
+     * @param distance the length of the line
+     * @return the estimated number of ticks
+     */
+    public double driveTicks(double distance) {
+        if (distance >= DRIVE_TABLE_SIZE)
+            return driveTicks[DRIVE_TABLE_SIZE] + (distance - DRIVE_TABLE_SIZE) / MAX_VELOCITY;
+
+        int i = (int) distance;
+        double f = distance - i;
+        return driveTicks[i] + f * (driveTicks[i + 1] - driveTicks[i]);
+    }
+
+    /**
+     * Returns the ticks needed to turn between two consecutive segments.
+     * @param dx1 the x displacement of the first segment
+     * @param dy1 the y displacement of the first segment
+     * @param length1 the length of the first segment
+     * @param dx2 the x displacement of the second segment
+     * @param dy2 the y displacement of the second segment
+     * @param length2 the length of the second segment
+     * @return the estimated number of ticks (0 if one of the segments is empty)
+     */
+    public double turnTicks(double dx1, double dy1, double length1, double dx2, double dy2, double length2) {
+        if (length1 == 0 || length2 == 0)
+            return 0;
+
+        double cos = Math.abs(dx1 * dx2 + dy1 * dy2) / (length1 * length2);
+        return turnTicks[(int) (Math.min(1, cos) * TURN_TABLE_SIZE)];
+    }
+
+    /**
+     * Estimates the ticks needed to follow a whole path.
+     * @param xs the x coordinates of the points of the path, start and end included
+     * @param ys the y coordinates of the points of the path, start and end included
+     * @param n the number of points
+     * @return the estimated number of ticks
+     */
+    public double pathTicks(int[] xs, int[] ys, int n) {
+        double ticks = 0;
+        double pdx = 0, pdy = 0, plength = 0;
+
+        for (int i = 1; i < n; i++)
+        {
+            double dx = xs[i] - xs[i - 1], dy = ys[i] - ys[i - 1];
+            double length = Math.hypot(dx, dy);
+
+            ticks += driveTicks(length) + turnTicks(pdx, pdy, plength, dx, dy, length);
+            pdx = dx;
+            pdy = dy;
+            plength = length;
+        }
+
+        return ticks;
+    }
+
+    /**
+     * Drives a robot from rest for the given distance, tick by tick, like the game does.
+     */
+    private static double simulateDrive(double distance) {
+        double velocity = 0, remaining = distance;
+        int ticks = 0;
+
+        while (remaining > 1e-6)
+        {
+            velocity = Math.min(Math.min(velocity + ACCELERATION, MAX_VELOCITY), maxVelocity(remaining));
+            remaining -= velocity;
+            ticks++;
+        }
+
+        return ticks;
+    }
+
+    /**
+     * Returns the highest velocity from which the robot can still stop within the given distance
+     * (the same rule used by Robocode to stop a robot at the end of {@code setAhead}).
+     */
+    private static double maxVelocity(double distance) {
+        double decelTime = Math.max(1, Math.ceil((Math.sqrt((4 * 2 / DECELERATION) * distance + 1) - 1) / 2));
+        double decelDistance = (decelTime / 2) * (decelTime - 1) * DECELERATION;
+        return ((decelTime - 1) * DECELERATION) + ((distance - decelDistance) / decelTime);
+    }
+}
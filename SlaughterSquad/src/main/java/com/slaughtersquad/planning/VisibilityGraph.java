@@ -0,0 +1,452 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.collision.GridIndex;
+import com.slaughtersquad.collision.SegmentCollider;
+import com.slaughtersquad.impl.Path;
+import com.slaughtersquad.impl.Point;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Visibility graph over the corners of a set of axis-aligned obstacles, with A* queries between any two points.
+ * <p>
+ * Every obstacle contributes the four points just outside its corners (one pixel away by default, since touching an
+ * obstacle counts as a collision). A corner that lies inside another obstacle or outside the map is inactive. Two
+ * active corners are linked when the segment between them does not touch any obstacle. The usual tangency pruning
+ * is not applied: the vertices lie outside the corners, and on maps built from many small squares it discards
+ * edges of the shortest path.
+ * <p>
+ * The edges of a corner are only computed the first time a query reaches it, and the visibility tests go through a
+ * {@link GridIndex}. Obstacles can be added, moved and removed at any time: only the edges crossing the changed
+ * obstacle and the corners it covers or uncovers are updated, the rest of the graph is kept. The obstacles are used
+ * as given, so a robot should pass the grown obstacles of a {@link com.slaughtersquad.collision.ConfigurationSpace}.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class VisibilityGraph
+{
+    private final int width, height;
+    private final int offset;
+    private final GridIndex index;
+
+    // bounds of each obstacle (closed, like Rectangle.intersectsLine)
+    private int[] minX = new int[16], minY = new int[16], maxX = new int[16], maxY = new int[16];
+    private boolean[] present = new boolean[16];
+
+    // corner k of obstacle o is vertex 4 * o + k: 0 top-left, 1 top-right, 2 bottom-left, 3 bottom-right
+    private int[] vx = new int[64], vy = new int[64];
+    private boolean[] active = new boolean[64];
+    private boolean[] expanded = new boolean[64];
+    private int[][] adjacency = new int[64][];
+    private int[] degree = new int[64];
+    private int activeCount;
+
+    // marks used to test membership in an adjacency list
+    private int[] seen = new int[64];
+    private int stamp;
+
+    // A* state, indexed by vertex; the two extra entries are the start and the goal of the query
+    private double[] cost = new double[0];
+    private int[] parent = new int[0];
+    private int[] visited = new int[0];
+    private int query;
+    private final NodeHeap open = new NodeHeap();
+
+    private long expansions;
+
+    /**
+     * Builds the visibility graph of the obstacles of a configuration. The obstacle ids are their positions in
+     * {@link IUIConfiguration#getObstacles()}.
+     * @param conf the configuration
+     * @return the visibility graph
+     */
+    public static VisibilityGraph of(IUIConfiguration conf) {
+        List<Rectangle> obstacles = conf.getObstacles();
+        VisibilityGraph graph = new VisibilityGraph(conf.getWidth(), conf.getHeight(),
+                GridIndex.suggestCellSize(conf.getWidth(), conf.getHeight(), obstacles));
+        for (int i = 0; i < obstacles.size(); i++)
+            graph.add(i, obstacles.get(i));
+        return graph;
+    }
+
+    /**
+     * Creates an empty graph whose vertices lie one pixel away from the corners of the obstacles.
+     * @param width the width of the map
+     * @param height the height of the map
+     * @param cellSize the cell size of the spatial index
+     */
+    public VisibilityGraph(int width, int height, int cellSize) {
+        this(width, height, cellSize, 1);
+    }
+
+    /**
+     * Creates an empty graph.
+     * @param width the width of the map
+     * @param height the height of the map
+     * @param cellSize the cell size of the spatial index
+     * @param offset the distance between each corner of an obstacle and the vertex placed next to it (at least 1)
+     */
+    public VisibilityGraph(int width, int height, int cellSize, int offset) {
+        if (offset < 1)
+            throw new IllegalArgumentException("offset must be at least 1");
+
+        this.width = width;
+        this.height = height;
+        this.offset = offset;
+        this.index = new GridIndex(width, height, cellSize);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of active vertices (corners that are not covered by an obstacle).
+     * @return the number of active vertices
+     */
+    public int getVertexCount() {
+        return activeCount;
+    }
+
+    /**
+     * Returns how many vertices had their edges computed so far. Each vertex is expanded at most once until an
+     * obstacle covers it.
+     * @return the number of expansions
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Adds an obstacle to the graph. If the id is already present the obstacle is moved.
+     * @param id the (non negative) id of the obstacle
+     * @param r the bounds of the obstacle; empty rectangles block nothing and only remove the previous bounds
+     */
+    public void add(int id, Rectangle r) {
+        if (id < 0)
+            throw new IllegalArgumentException("id must not be negative");
+
+        remove(id);
+        if (r.width <= 0 || r.height <= 0)
+            return;
+
+        ensureCapacity(id + 1);
+        int x0 = r.x, y0 = r.y, x1 = r.x + r.width, y1 = r.y + r.height;
+        minX[id] = x0;
+        minY[id] = y0;
+        maxX[id] = x1;
+        maxY[id] = y1;
+        present[id] = true;
+        index.insert(id, r);
+
+        // edges that cross the new obstacle are no longer valid
+        for (int u = 0; u < degree.length; u++)
+        {
+            int[] adj = adjacency[u];
+            int n = degree[u];
+            for (int i = 0; i < n; i++)
+            {
+                int v = adj[i];
+                if (SegmentCollider.intersects(x0, y0, x1, y1, vx[u], vy[u], vx[v], vy[v]))
+                    adj[i--] = adj[--n];
+            }
+            degree[u] = n;
+        }
+
+        // corners of other obstacles covered by the new one (a corner lies up to offset pixels outside its obstacle)
+        index.query(x0 - offset, y0 - offset, r.width + 2 * offset, r.height + 2 * offset, o -> {
+            if (o == id)
+                return;
+            for (int k = 0; k < 4; k++)
+            {
+                int v = 4 * o + k;
+                if (active[v] && vx[v] >= x0 && vx[v] <= x1 && vy[v] >= y0 && vy[v] <= y1)
+                    deactivate(v);
+            }
+        });
+
+        // the corners of the new obstacle
+        vx[4 * id] = vx[4 * id + 2] = x0 - offset;
+        vx[4 * id + 1] = vx[4 * id + 3] = x1 + offset;
+        vy[4 * id] = vy[4 * id + 1] = y0 - offset;
+        vy[4 * id + 2] = vy[4 * id + 3] = y1 + offset;
+        for (int k = 0; k < 4; k++)
+            activate(4 * id + k);
+    }
+
+    /**
+     * Removes an obstacle from the graph.
+     * @param id the id of the obstacle
+     * @return true if the obstacle was present
+     */
+    public boolean remove(int id) {
+        if (id < 0 || id >= present.length || !present[id])
+            return false;
+
+        int x0 = minX[id], y0 = minY[id], x1 = maxX[id], y1 = maxY[id];
+        index.remove(id);
+        present[id] = false;
+        for (int k = 0; k < 4; k++)
+            if (active[4 * id + k])
+                deactivate(4 * id + k);
+
+        // pairs of vertices that could only be blocked by the removed obstacle
+        for (int u = 0; u < active.length; u++)
+        {
+            if (!expanded[u])
+                continue;
+            markNeighbours(u);
+            for (int v = 0; v < active.length; v++)
+                if (v != u && active[v] && seen[v] != stamp && (!expanded[v] || v > u)
+                        && SegmentCollider.intersects(x0, y0, x1, y1, vx[u], vy[u], vx[v], vy[v])
+                        && isEdge(u, v))
+                    link(u, v);
+        }
+
+        // corners of other obstacles that were covered by the removed one
+        List<Integer> uncovered = new ArrayList<>();
+        index.query(x0 - offset, y0 - offset, x1 - x0 + 2 * offset, y1 - y0 + 2 * offset, o -> {
+            for (int k = 0; k < 4; k++)
+                if (!active[4 * o + k])
+                    uncovered.add(4 * o + k);
+        });
+        for (int v : uncovered)
+            activate(v);
+
+        return true;
+    }
+
+    /**
+     * Checks whether a segment does not touch any obstacle.
+     * @param x1 the x coordinate of the first end of the segment
+     * @param y1 the y coordinate of the first end of the segment
+     * @param x2 the x coordinate of the second end of the segment
+     * @param y2 the y coordinate of the second end of the segment
+     * @return true if the segment is free
+     */
+    public boolean isVisible(int x1, int y1, int x2, int y2) {
+        return !index.anyAlongSegment(x1, y1, x2, y2,
+                o -> SegmentCollider.intersects(minX[o], minY[o], maxX[o], maxY[o], x1, y1, x2, y2));
+    }
+
+    /**
+     * Finds the shortest path between two points with A*, going around the corners of the obstacles.
+     * @param start the first point of the path
+     * @param end the last point of the path
+     * @return the shortest path (including start and end), or null if the end cannot be reached
+     */
+    public IPath findPath(IPoint start, IPoint end) {
+        int sx = start.getX(), sy = start.getY(), gx = end.getX(), gy = end.getY();
+        if (isVisible(sx, sy, gx, gy))
+            return toPath(sx, sy, gx, gy, new int[0], 0);
+
+        int n = active.length, source = n, goal = n + 1;
+        prepareQuery(n + 2);
+
+        cost[source] = 0;
+        parent[source] = -1;
+        visited[source] = query;
+        open.push(distance(sx, sy, gx, gy), source);
+
+        while (!open.isEmpty())
+        {
+            double f = open.peekKey();
+            int u = open.pop();
+
+            // the heuristic is consistent, so the goal is reached through the shortest path the first time it is popped
+            if (u == goal)
+            {
+                int count = 0;
+                for (int v = parent[goal]; v != source; v = parent[v])
+                    count++;
+                int[] corners = new int[count];
+                for (int v = parent[goal], i = count - 1; v != source; v = parent[v], i--)
+                    corners[i] = v;
+                return toPath(sx, sy, gx, gy, corners, count);
+            }
+
+            int ux = u == source ? sx : vx[u], uy = u == source ? sy : vy[u];
+            // stale entry, the vertex was reached again through a shorter path
+            if (f > cost[u] + distance(ux, uy, gx, gy) + 1e-9)
+                continue;
+
+            if (u == source)
+            {
+                for (int v = 0; v < n; v++)
+                    if (active[v] && isVisible(sx, sy, vx[v], vy[v]))
+                        relax(source, v, distance(sx, sy, vx[v], vy[v]), gx, gy);
+                continue;
+            }
+
+            if (isVisible(ux, uy, gx, gy))
+                relax(u, goal, cost[u] + distance(ux, uy, gx, gy), gx, gy);
+
+            expand(u);
+            int[] adj = adjacency[u];
+            for (int i = 0; i < degree[u]; i++)
+            {
+                int v = adj[i];
+                relax(u, v, cost[u] + distance(ux, uy, vx[v], vy[v]), gx, gy);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Computes the edges of a vertex. Edges to vertices that were expanded before are already known.
+     */
+    private void expand(int u) {
+        if (expanded[u])
+            return;
+
+        expanded[u] = true;
+        expansions++;
+        markNeighbours(u);
+        for (int v = 0; v < active.length; v++)
+            if (v != u && active[v] && !expanded[v] && seen[v] != stamp && isEdge(u, v))
+                link(u, v);
+    }
+
+    /**
+     * Makes a corner a vertex if it lies inside the map and outside every obstacle, and links it to the vertices
+     * that were already expanded.
+     */
+    private void activate(int v) {
+        int x = vx[v], y = vy[v];
+        if (x < 0 || y < 0 || x > width || y > height || isBlocked(x, y))
+            return;
+
+        active[v] = true;
+        activeCount++;
+        for (int u = 0; u < active.length; u++)
+            if (expanded[u] && u != v && isEdge(u, v))
+                link(u, v);
+    }
+
+    private void deactivate(int v) {
+        int[] adj = adjacency[v];
+        for (int i = 0; i < degree[v]; i++)
+            unlink(adj[i], v);
+        degree[v] = 0;
+        active[v] = false;
+        expanded[v] = false;
+        activeCount--;
+    }
+
+    private boolean isBlocked(int x, int y) {
+        return index.anyAlongSegment(x, y, x, y, o -> x >= minX[o] && x <= maxX[o] && y >= minY[o] && y <= maxY[o]);
+    }
+
+    private boolean isEdge(int u, int v) {
+        return isVisible(vx[u], vy[u], vx[v], vy[v]);
+    }
+
+    private void link(int u, int v) {
+        append(u, v);
+        append(v, u);
+    }
+
+    private void append(int u, int v) {
+        int[] adj = adjacency[u];
+        if (adj == null)
+            adj = adjacency[u] = new int[8];
+        else if (degree[u] == adj.length)
+            adj = adjacency[u] = Arrays.copyOf(adj, adj.length * 2);
+        adj[degree[u]++] = v;
+    }
+
+    private void unlink(int u, int v) {
+        int[] adj = adjacency[u];
+        for (int i = 0; i < degree[u]; i++)
+            if (adj[i] == v)
+            {
+                adj[i] = adj[--degree[u]];
+                return;
+            }
+    }
+
+    private void markNeighbours(int u) {
+        if (++stamp == 0)
+        {
+            Arrays.fill(seen, 0);
+            stamp = 1;
+        }
+        int[] adj = adjacency[u];
+        for (int i = 0; i < degree[u]; i++)
+            seen[adj[i]] = stamp;
+    }
+
+    private void relax(int u, int v, double g, int gx, int gy) {
+        if (visited[v] == query && g >= cost[v])
+            return;
+
+        visited[v] = query;
+        cost[v] = g;
+        parent[v] = u;
+        open.push(v == active.length + 1 ? g : g + distance(vx[v], vy[v], gx, gy), v);
+    }
+
+    private void prepareQuery(int size) {
+        if (cost.length < size)
+        {
+            cost = new double[size];
+            parent = new int[size];
+            visited = new int[size];
+            query = 0;
+        }
+        if (++query == 0)
+        {
+            Arrays.fill(visited, 0);
+            query = 1;
+        }
+        open.clear();
+    }
+
+    private IPath toPath(int sx, int sy, int gx, int gy, int[] corners, int count) {
+        List<IPoint> points = new ArrayList<>(count + 2);
+        points.add(new Point(sx, sy));
+        for (int i = 0; i < count; i++)
+            points.add(new Point(vx[corners[i]], vy[corners[i]]));
+        points.add(new Point(gx, gy));
+
+        Path path = new Path();
+        path.setPoints(Collections.unmodifiableList(points));
+        return path;
+    }
+
+    private static double distance(int x1, int y1, int x2, int y2) {
+        return Math.hypot(x2 - x1, y2 - y1);
+    }
+
+    private void ensureCapacity(int obstacles) {
+        if (obstacles <= present.length)
+            return;
+
+        int n = Math.max(obstacles, present.length * 2);
+        minX = Arrays.copyOf(minX, n);
+        minY = Arrays.copyOf(minY, n);
+        maxX = Arrays.copyOf(maxX, n);
+        maxY = Arrays.copyOf(maxY, n);
+        present = Arrays.copyOf(present, n);
+
+        vx = Arrays.copyOf(vx, 4 * n);
+        vy = Arrays.copyOf(vy, 4 * n);
+        active = Arrays.copyOf(active, 4 * n);
+        expanded = Arrays.copyOf(expanded, 4 * n);
+        adjacency = Arrays.copyOf(adjacency, 4 * n);
+        degree = Arrays.copyOf(degree, 4 * n);
+        seen = Arrays.copyOf(seen, 4 * n);
+    }
+}
@@ -0,0 +1,90 @@
+package com.slaughtersquad.planning;
+
+import com.slaughtersquad.collision.GridIndex;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPathSeeder;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic planner that returns the shortest path around the corners of the obstacles, found with A* on a
+ * {@link VisibilityGraph}. It is a baseline for the genetic planners and can seed them (see
+ * {@link com.slaughtersquad.ga.GeneticPlanner#setSeeder(IPathSeeder)}).
+ * <p>
+ * The planner keeps the graph of the last configuration it saw. When the next configuration has the same size, the
+ * obstacles are compared by position in {@link IUIConfiguration#getObstacles()} and only the ones that changed are
+ * added to or removed from the graph, so a robot that moves one enemy per scan pays for one obstacle, not for the
+ * whole map. The planner is thread safe; queries are serialised.
+ */
+public class VisibilityGraphPlanner implements IPlanner, IPathSeeder
+{
+    private VisibilityGraph graph;
+    private final List<Rectangle> obstacles = new ArrayList<>();
+
+    /**
+     * Finds the shortest path of a configuration.
+     * @param conf the problem to solve
+     * @return the shortest path, or null if the end cannot be reached
+     */
+    public synchronized IPath findPath(IUIConfiguration conf) {
+        return graphFor(conf).findPath(conf.getStart(), conf.getEnd());
+    }
+
+    @Override
+    public IPath seed(IUIConfiguration conf) {
+        return findPath(conf);
+    }
+
+    @Override
+    public IPlanningTask newTask(IUIConfiguration conf, CancelToken cancel) {
+        return new SingleQueryTask(conf, cancel, this);
+    }
+
+    /**
+     * Brings the graph up to date with the obstacles of a configuration.
+     */
+    private VisibilityGraph graphFor(IUIConfiguration conf) {
+        List<Rectangle> current = conf.getObstacles();
+
+        int changes = Math.abs(current.size() - obstacles.size());
+        for (int i = 0; i < Math.min(current.size(), obstacles.size()) && graph != null; i++)
+            if (!current.get(i).equals(obstacles.get(i)))
+                changes++;
+
+        // past this point rebuilding is cheaper than updating the graph one obstacle at a time
+        if (graph == null || graph.getWidth() != conf.getWidth() || graph.getHeight() != conf.getHeight()
+                || changes > current.size() / 2 + 1)
+        {
+            graph = new VisibilityGraph(conf.getWidth(), conf.getHeight(),
+                    GridIndex.suggestCellSize(conf.getWidth(), conf.getHeight(), current));
+            obstacles.clear();
+        }
+
+        for (int i = 0; i < current.size(); i++)
+        {
+            Rectangle r = current.get(i);
+            if (i == obstacles.size())
+            {
+                graph.add(i, r);
+                obstacles.add(new Rectangle(r));
+            }
+            else if (!r.equals(obstacles.get(i)))
+            {
+                graph.add(i, r);
+                obstacles.set(i, new Rectangle(r));
+            }
+        }
+        while (obstacles.size() > current.size())
+        {
+            graph.remove(obstacles.size() - 1);
+            obstacles.remove(obstacles.size() - 1);
+        }
+
+        return graph;
+    }
+}
@@ -0,0 +1,267 @@
+package com.slaughtersquad.sampleRobots;
+
+import com.slaughtersquad.collision.ConfigurationSpace;
+import com.slaughtersquad.collision.ObstacleStore;
+import com.slaughtersquad.ga.GeneticPlanner;
+import com.slaughtersquad.impl.Point;
+import com.slaughtersquad.impl.UIConfiguration;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPlanner;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+import com.slaughtersquad.planning.BackgroundPlanner;
+import com.slaughtersquad.planning.PathCache;
+import com.slaughtersquad.planning.PathSmoother;
+import com.slaughtersquad.planning.Roadmap;
+import com.slaughtersquad.planning.RoadmapPlanner;
+import com.slaughtersquad.utils.PathFollower;
+import com.slaughtersquad.utils.Utils;
+import robocode.Robot;
+import robocode.*;
+
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.util.List;
+
+/**
+ * Base dos robots que vão para o ponto clicado: regista os inimigos como obstáculos, planeia o caminho em segundo
+ * plano com o algoritmo genético (começando pelo caminho do roadmap) e segue-o sem parar nas curvas.
+ * <p>
+ * As subclasses só escolhem o planeador ({@link #createPlanner(GeneticPlanner)}) e a forma de rodar o radar
+ * ({@link #startRadar()} e {@link #updateRadar()}).
+ */
+public abstract class PathPlanningRobot extends AdvancedRobot
+{
+    /*
+     * obstáculos (um retângulo por inimigo), preenchidos ao fazer scan
+     * */
+    private ObstacleStore obstacles;
+    //os mesmos obstáculos aumentados metade do tamanho do robot (e as paredes), usados pelo planeamento
+    private ConfigurationSpace espacoConfiguracoes;
+    public static UIConfiguration conf;
+    private List<IPoint> points;
+
+    //roda e anda ao mesmo tempo ao longo do caminho, abrandando antes das curvas
+    private PathFollower seguidor;
+
+    //tempo (ns) que o algoritmo genético corre de seguida, e tempo total durante o qual o caminho é melhorado
+    private static final long PLANNING_SLICE = 2_000_000L;
+    private static final long PLANNING_TIME = 500_000_000L;
+
+    //o algoritmo genético corre numa thread própria, para o robot continuar a andar e a fazer scan
+    private BackgroundPlanner planner;
+
+    //caminhos já planeados, reutilizados quando se volta a clicar perto do mesmo sítio
+    private PathCache caminhos;
+    //versão dos obstáculos quando foi feito o pedido em curso (para saber o que mudou desde então)
+    private long versaoPedido;
+    //retira os pontos desnecessários dos caminhos do pedido em curso (cada ponto é uma curva em que o robot abranda)
+    private PathSmoother suavizador;
+
+    /**
+     * Devolve o planeador usado pelo robot
+     *
+     * @param genetico o algoritmo genético, já semeado com o caminho do roadmap
+     * @return o planeador a correr em segundo plano
+     * */
+    protected abstract IPlanner createPlanner(GeneticPlanner genetico);
+
+    /**
+     * Chamado uma vez, antes do ciclo principal
+     * */
+    protected void startRadar()
+    {
+    }
+
+    /**
+     * Chamado em cada tick, antes de execute()
+     * */
+    protected void updateRadar()
+    {
+    }
+
+    @Override
+    public void run()
+    {
+        super.run();
+
+        obstacles = new ObstacleStore((int) getBattleFieldWidth(), (int) getBattleFieldHeight());
+        espacoConfiguracoes = new ConfigurationSpace(obstacles);
+        conf = new UIConfiguration((int) getBattleFieldWidth(), (int) getBattleFieldHeight() , obstacles.snapshot().getObstacles());
+        //o campo de batalha (só as paredes) não muda durante a ronda: o roadmap é construído uma vez (ou lido do
+        //diretório de dados) e os inimigos são verificados em cada pedido; o caminho do roadmap é a primeira geração
+        //do algoritmo genético
+        Roadmap roadmap = Utils.loadRoadmap(this);
+        GeneticPlanner genetico = new GeneticPlanner();
+        genetico.setSeeder(new RoadmapPlanner(roadmap));
+        planner = new BackgroundPlanner(createPlanner(genetico), PLANNING_SLICE, PLANNING_TIME);
+        caminhos = new PathCache(obstacles);
+        seguidor = new PathFollower(this);
+
+        startRadar();
+
+        while(true){
+            updateRadar();
+
+            //se o algoritmo genético encontrou um caminho melhor, passa a segui-lo
+            IPath novo = planner.poll();
+            if (novo != null)
+            {
+                novo = suavizador.smooth(novo);
+                caminhos.put(novo, versaoPedido);
+                points = novo.getPoints();
+                seguidor.setPath(points);
+            }
+
+            //em vez de parar para rodar em cada ponto, o seguidor dá as ordens do tick sem bloquear; um novo clique
+            //é tido em conta logo no tick seguinte; execute() é chamado uma única vez por tick
+            seguidor.update();
+            this.execute();
+        }
+    }
+
+    @Override
+    public void onMouseClicked(MouseEvent e) {
+        super.onMouseClicked(e);
+
+        conf.setStart(new Point((int) this.getX(), (int) this.getY()));
+        conf.setEnd(new Point(e.getX(), e.getY()));
+        conf.setObstacles(obstacles.snapshot().getObstacles());
+
+        System.out.println("Choo Choo!!!");
+
+        //abandona o planeamento anterior; os resultados do novo chegam ao ciclo principal
+        //o caminho é planeado para o centro do robot, com os obstáculos aumentados em vez do robot
+        long versao = obstacles.getVersion();
+        IUIConfiguration pedido = espacoConfiguracoes.toConfiguration(conf.getStart(), conf.getEnd());
+
+        //se já há um caminho para perto destes pontos e ainda está livre, segue-o sem voltar a planear
+        IPath guardado = caminhos.get(pedido);
+        if (guardado != null)
+        {
+            planner.cancel();
+            points = guardado.getPoints();
+            seguidor.setPath(points);
+            return;
+        }
+
+        versaoPedido = versao;
+        suavizador = PathSmoother.of(pedido);
+        planner.submit(pedido);
+
+        points = null;
+        seguidor.stop();
+    }
+
+    /**
+     * ******** TODO: Necessário selecionar a opção Paint na consola do Robot *******
+     * @param g
+     */
+    @Override
+    public void onPaint(Graphics2D g) {
+        super.onPaint(g);
+
+        g.setColor(Color.RED);
+        obstacles.snapshot().getObstacles().forEach(x -> g.drawRect(x.x, x.y, (int) x.getWidth(), (int) x.getHeight()));
+
+        //no espaço de configurações o centro do robot não pode entrar nestas áreas
+        g.setColor(Color.ORANGE);
+        espacoConfiguracoes.getObstacles().forEach(x -> g.drawRect(x.x, x.y, (int) x.getWidth(), (int) x.getHeight()));
+
+        if (points != null)
+        {
+            for (int i=1;i<points.size();i++)
+                drawThickLine(g, points.get(i-1).getX(), points.get(i-1).getY(), points.get(i).getX(), points.get(i).getY(), 2, Color.green);
+        }
+    }
+
+    @Override
+    public void onScannedRobot(ScannedRobotEvent event) {
+        super.onScannedRobot(event);
+
+        System.out.println("Enemy spotted: "+event.getName());
+
+        Point2D.Double ponto = getEnemyCoordinates(this, event.getBearing(), event.getDistance());
+        //guarda apenas a área ocupada pelo inimigo; o tamanho do nosso robot é tido em conta no espaço de configurações
+        ponto.x -= this.getWidth() / 2;
+        ponto.y -= this.getHeight() / 2;
+
+        Rectangle rect = new Rectangle((int)ponto.x, (int)ponto.y, (int)this.getWidth(), (int)this.getHeight());
+
+        //substitui o retângulo anterior deste inimigo, se existir
+        obstacles.update(event.getName(), rect);
+    }
+
+    @Override
+    public void onRobotDeath(RobotDeathEvent event) {
+        super.onRobotDeath(event);
+
+        obstacles.remove(event.getName());
+    }
+
+    @Override
+    public void onDeath(DeathEvent event) {
+        super.onDeath(event);
+        planner.shutdown();
+    }
+
+    @Override
+    public void onWin(WinEvent event) {
+        super.onWin(event);
+        planner.shutdown();
+    }
+
+    @Override
+    public void onRoundEnded(RoundEndedEvent event) {
+        super.onRoundEnded(event);
+        planner.shutdown();
+        System.out.println(caminhos);
+    }
+
+    /**
+     * Devolve as coordenadas de um alvo
+     *
+     * @param robot o meu robot
+     * @param bearing ângulo para o alvo, em graus
+     * @param distance distância ao alvo
+     * @return coordenadas do alvo
+     * */
+    public static Point2D.Double getEnemyCoordinates(Robot robot, double bearing, double distance){
+        double angle = Math.toRadians((robot.getHeading() + bearing) % 360);
+
+        return new Point2D.Double((robot.getX() + Math.sin(angle) * distance), (robot.getY() + Math.cos(angle) * distance));
+    }
+
+    private void drawThickLine(Graphics g, int x1, int y1, int x2, int y2, int thickness, Color c) {
+
+        g.setColor(c);
+        int dX = x2 - x1;
+        int dY = y2 - y1;
+
+        double lineLength = Math.sqrt(dX * dX + dY * dY);
+
+        double scale = (double) (thickness) / (2 * lineLength);
+
+        double ddx = -scale * (double) dY;
+        double ddy = scale * (double) dX;
+        ddx += (ddx > 0) ? 0.5 : -0.5;
+        ddy += (ddy > 0) ? 0.5 : -0.5;
+        int dx = (int) ddx;
+        int dy = (int) ddy;
+
+        int xPoints[] = new int[4];
+        int yPoints[] = new int[4];
+
+        xPoints[0] = x1 + dx;
+        yPoints[0] = y1 + dy;
+        xPoints[1] = x1 - dx;
+        yPoints[1] = y1 - dy;
+        xPoints[2] = x2 - dx;
+        yPoints[2] = y2 - dy;
+        xPoints[3] = x2 + dx;
+        yPoints[3] = y2 + dy;
+
+        g.fillPolygon(xPoints, yPoints, 4);
+    }
+}
@@ -0,0 +1,313 @@
+package com.slaughtersquad.utils;
+
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.planning.TraversalTimeModel;
+import robocode.AdvancedRobot;
+
+import java.util.List;
+
+import static robocode.util.Utils.normalRelativeAngle;
+
+/**
+ * Segue um caminho com um AdvancedRobot sem parar nos pontos intermédios (pure pursuit)
+ *
+ * Em cada tick o robot roda em direção a um ponto do caminho que está um pouco à frente da sua posição (a distância
+ * de antecipação cresce com a velocidade) e anda ao mesmo tempo. A velocidade é limitada antes de cada curva, para
+ * que o robot a faça sem se afastar do caminho mais do que a tolerância dada (no espaço de configurações os cantos dos
+ * obstáculos estão encostados ao caminho), e antes do fim do caminho, para parar em cima do último ponto.
+ *
+ * O seguidor só dá ordens com os métodos set* do robot: o ciclo principal do robot deve chamar {@link #update()} e
+ * depois execute() uma única vez por tick
+ */
+public class PathFollower
+{
+    //distância a que se considera que o robot chegou ao fim do caminho
+    private static final double ARRIVAL_DISTANCE = 1.5;
+    //curvas mais apertadas do que isto (quase meia volta) são feitas com o robot parado
+    private static final double MAX_CORNER_TURN = Math.toRadians(170);
+    //o robot troca de sentido quando o alvo fica mais do que isto fora da direção em que anda
+    private static final double DIRECTION_MARGIN = Math.toRadians(120);
+
+    private final AdvancedRobot robot;
+
+    private double minLookahead = 6;
+    private double lookaheadPerSpeed = 3;
+    private double cornerTolerance = 4;
+
+    private List<IPoint> points;
+    //comprimento do caminho desde o início até cada ponto
+    private double[] distances;
+    //segmento em que o robot está (entre os pontos segment e segment + 1)
+    private int segment;
+    //sentido em que o robot anda (1 para a frente, -1 para trás, 0 enquanto não foi escolhido)
+    private int direction;
+
+    /**
+     * Cria um seguidor de caminhos
+     *
+     * @param robot o meu robot
+     * */
+    public PathFollower(AdvancedRobot robot)
+    {
+        this.robot = robot;
+    }
+
+    /**
+     * Começa a seguir um caminho, abandonando o anterior
+     *
+     * @param points os pontos do caminho; o primeiro é normalmente a posição atual do robot
+     * */
+    public void setPath(List<IPoint> points)
+    {
+        if (points == null || points.isEmpty())
+        {
+            stop();
+            return;
+        }
+
+        this.points = points;
+        this.distances = new double[points.size()];
+        for (int i = 1; i < points.size(); i++)
+            distances[i] = distances[i - 1] + distance(points.get(i - 1), points.get(i));
+        this.segment = 0;
+        this.direction = 0;
+    }
+
+    /**
+     * Abandona o caminho atual; o robot trava até parar
+     * */
+    public void stop()
+    {
+        if (points != null)
+            robot.setAhead(0);
+        points = null;
+        distances = null;
+    }
+
+    /**
+     * Indica se o robot ainda está a seguir um caminho
+     *
+     * @return true enquanto o robot não chegou ao fim do caminho
+     * */
+    public boolean isFollowing()
+    {
+        return points != null;
+    }
+
+    /**
+     * Devolve o caminho que está a ser seguido
+     *
+     * @return os pontos do caminho, ou null se o robot não está a seguir nenhum
+     * */
+    public List<IPoint> getPath()
+    {
+        return points;
+    }
+
+    public double getMinLookahead()
+    {
+        return minLookahead;
+    }
+
+    /**
+     * Distância de antecipação com o robot parado, em píxeis
+     *
+     * @param minLookahead a distância de antecipação mínima
+     * */
+    public void setMinLookahead(double minLookahead)
+    {
+        if (!(minLookahead > 0))
+            throw new IllegalArgumentException("minLookahead must be positive: " + minLookahead);
+        this.minLookahead = minLookahead;
+    }
+
+    public double getLookaheadPerSpeed()
+    {
+        return lookaheadPerSpeed;
+    }
+
+    /**
+     * Quanto cresce a distância de antecipação por cada píxel/tick de velocidade
+     *
+     * @param lookaheadPerSpeed o aumento da distância de antecipação
+     * */
+    public void setLookaheadPerSpeed(double lookaheadPerSpeed)
+    {
+        if (!(lookaheadPerSpeed >= 0))
+            throw new IllegalArgumentException("lookaheadPerSpeed must not be negative: " + lookaheadPerSpeed);
+        this.lookaheadPerSpeed = lookaheadPerSpeed;
+    }
+
+    public double getCornerTolerance()
+    {
+        return cornerTolerance;
+    }
+
+    /**
+     * Quanto o robot pode cortar cada curva, em píxeis; quanto menor, mais devagar faz as curvas
+     *
+     * @param cornerTolerance a distância máxima entre o canto e a curva feita pelo robot
+     * */
+    public void setCornerTolerance(double cornerTolerance)
+    {
+        if (!(cornerTolerance > 0))
+            throw new IllegalArgumentException("cornerTolerance must be positive: " + cornerTolerance);
+        this.cornerTolerance = cornerTolerance;
+    }
+
+    /**
+     * Dá as ordens de movimento deste tick (rotação, velocidade máxima e distância a percorrer). Não chama execute()
+     *
+     * @return true se o robot ainda está a seguir o caminho
+     * */
+    public boolean update()
+    {
+        if (points == null)
+            return false;
+
+        double x = robot.getX(), y = robot.getY();
+        int last = points.size() - 1;
+        IPoint end = points.get(last);
+
+        //passa ao segmento seguinte quando o robot já passou o fim do atual ou está mais perto do seguinte
+        while (segment < last - 1 && (projection(segment, x, y) >= 1
+                || distanceToSegment(segment + 1, x, y) < distanceToSegment(segment, x, y)))
+            segment++;
+
+        double toEnd = Math.hypot(end.getX() - x, end.getY() - y);
+        if (segment >= last - 1 && (toEnd < ARRIVAL_DISTANCE || last == 0))
+        {
+            stop();
+            return false;
+        }
+
+        //posição do robot medida ao longo do caminho
+        double t = last == 0 ? 0 : Math.max(0, Math.min(1, projection(segment, x, y)));
+        double along = distances[segment] + t * (distances[segment + 1] - distances[segment]);
+        double remaining = Math.max(distances[last] - along, toEnd);
+
+        //ponto do caminho para onde o robot se dirige; perto de um canto fica pouco depois dele, para não o cortar
+        double velocity = robot.getVelocity();
+        double lookahead = minLookahead + lookaheadPerSpeed * Math.abs(velocity);
+        if (segment + 1 < last)
+            lookahead = Math.min(lookahead, distances[segment + 1] - along + minLookahead);
+        double[] target = remaining <= lookahead ? new double[] { end.getX(), end.getY() } : pointAt(along + lookahead);
+
+        //anda para trás se o alvo ficar atrás do robot, como em Utils.advancedRobotGoTo; só troca de sentido com uma
+        //margem, para não hesitar quando o alvo está de lado
+        double forward = normalRelativeAngle(Math.atan2(target[0] - x, target[1] - y) - robot.getHeadingRadians());
+        double backward = normalRelativeAngle(forward + Math.PI);
+        if (direction == 0)
+            direction = Math.abs(forward) <= Math.abs(backward) ? 1 : -1;
+        else if (Math.abs(direction > 0 ? forward : backward) > DIRECTION_MARGIN)
+            direction = -direction;
+        double turn = direction > 0 ? forward : backward;
+
+        //velocidade: abranda com o erro de direção, antes das curvas e antes do fim
+        double speed = Math.min(alignSpeed(Math.abs(turn)), speedToStopWithin(0, remaining));
+        double corner = distances[segment + 1] - along;
+        for (int k = segment + 1; k < last && corner < brakingDistance(TraversalTimeModel.MAX_VELOCITY) + lookahead; k++)
+        {
+            speed = Math.min(speed, speedToStopWithin(cornerSpeed(k), corner));
+            corner += distances[k + 1] - distances[k];
+        }
+
+        //com velocidade 0 o robot roda sem sair do sítio
+        robot.setTurnRightRadians(turn);
+        robot.setMaxVelocity(speed);
+        robot.setAhead(direction * remaining);
+        return true;
+    }
+
+    /**
+     * Velocidade máxima a que o robot pode passar no ponto k sem cortar a curva mais do que a tolerância: a andar à
+     * velocidade v o robot roda no máximo 10 - 0.75v graus por tick, o que dá uma curva de raio v / rotação
+     * */
+    private double cornerSpeed(int k)
+    {
+        IPoint a = points.get(k - 1), b = points.get(k), c = points.get(k + 1);
+        double ux = b.getX() - a.getX(), uy = b.getY() - a.getY(), vx = c.getX() - b.getX(), vy = c.getY() - b.getY();
+        double angle = Math.atan2(Math.abs(ux * vy - uy * vx), ux * vx + uy * vy);
+        if (angle > MAX_CORNER_TURN)
+            return 0;
+
+        //distância entre o canto e um arco de raio r tangente aos dois segmentos
+        double cut = 1 / Math.cos(angle / 2) - 1;
+        double speed = TraversalTimeModel.MAX_VELOCITY;
+        while (speed > 0 && turningRadius(speed) * cut > cornerTolerance)
+            speed -= 0.25;
+        return Math.max(0, speed);
+    }
+
+    /**
+     * Velocidade máxima enquanto o robot ainda tem de rodar o ângulo dado: o que anda até ficar alinhado afasta-o do
+     * caminho mais ou menos distância * seno do ângulo, o que não pode passar da tolerância
+     * */
+    private double alignSpeed(double angle)
+    {
+        double speed = TraversalTimeModel.MAX_VELOCITY;
+        while (speed > 0 && speed * angle / Math.toRadians(TraversalTimeModel.turnRate(speed)) * Math.sin(Math.min(angle, Math.PI / 2)) > cornerTolerance)
+            speed -= 0.25;
+        return Math.max(0, speed);
+    }
+
+    private static double turningRadius(double speed)
+    {
+        return speed / Math.toRadians(TraversalTimeModel.turnRate(speed));
+    }
+
+    /**
+     * Velocidade máxima a partir da qual o robot ainda consegue travar até à velocidade final na distância dada
+     * */
+    private static double speedToStopWithin(double finalSpeed, double distance)
+    {
+        return Math.min(TraversalTimeModel.MAX_VELOCITY,
+                Math.sqrt(finalSpeed * finalSpeed + 2 * TraversalTimeModel.DECELERATION * Math.max(0, distance)));
+    }
+
+    private static double brakingDistance(double speed)
+    {
+        return speed * speed / (2 * TraversalTimeModel.DECELERATION);
+    }
+
+    /**
+     * Ponto do caminho a uma dada distância do início (o fim, se a distância for maior do que o caminho)
+     * */
+    private double[] pointAt(double along)
+    {
+        int last = points.size() - 1;
+        int k = segment;
+        while (k < last - 1 && distances[k + 1] < along)
+            k++;
+        if (last == 0 || along >= distances[last])
+            return new double[] { points.get(last).getX(), points.get(last).getY() };
+
+        IPoint a = points.get(k), b = points.get(k + 1);
+        double length = distances[k + 1] - distances[k];
+        double t = length == 0 ? 1 : Math.max(0, Math.min(1, (along - distances[k]) / length));
+        return new double[] { a.getX() + t * (b.getX() - a.getX()), a.getY() + t * (b.getY() - a.getY()) };
+    }
+
+    /**
+     * Posição da projeção do ponto na reta do segmento k (0 no início do segmento, 1 no fim)
+     * */
+    private double projection(int k, double x, double y)
+    {
+        IPoint a = points.get(k), b = points.get(k + 1);
+        double dx = b.getX() - a.getX(), dy = b.getY() - a.getY();
+        double length2 = dx * dx + dy * dy;
+        return length2 == 0 ? 1 : ((x - a.getX()) * dx + (y - a.getY()) * dy) / length2;
+    }
+
+    private double distanceToSegment(int k, double x, double y)
+    {
+        IPoint a = points.get(k), b = points.get(k + 1);
+        double t = Math.max(0, Math.min(1, projection(k, x, y)));
+        return Math.hypot(a.getX() + t * (b.getX() - a.getX()) - x, a.getY() + t * (b.getY() - a.getY()) - y);
+    }
+
+    private static double distance(IPoint a, IPoint b)
+    {
+        return Math.hypot(b.getX() - a.getX(), b.getY() - a.getY());
+    }
+}
@@ -1,10 +1,18 @@
 package com.slaughtersquad.utils;
 
+import com.slaughtersquad.collision.ConfigurationSpace;
+import com.slaughtersquad.impl.UIConfiguration;
+import com.slaughtersquad.planning.PlannerArtifacts;
+import com.slaughtersquad.planning.Roadmap;
 import robocode.AdvancedRobot;
 import robocode.Robot;
+import robocode.RobocodeFileOutputStream;
 import static robocode.util.Utils.normalRelativeAngle;
 
 import java.awt.geom.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.GregorianCalendar;
 
 
@@ -120,6 +128,48 @@ public final class Utils
         robot.execute();
     }
 
+    /**
+     * Devolve o roadmap do campo de batalha vazio (só as paredes, no espaço de configurações). Se já foi guardado no
+     * diretório de dados do robot é mapeado do ficheiro, sem ser reconstruído; senão é construído e guardado para as
+     * próximas rondas e batalhas
+     *
+     * @param robot o meu robot
+     * @return o roadmap do campo de batalha
+     * */
+    public static Roadmap loadRoadmap(AdvancedRobot robot)
+    {
+        int width = (int) robot.getBattleFieldWidth(), height = (int) robot.getBattleFieldHeight();
+        UIConfiguration campo = new UIConfiguration(width, height,
+                ConfigurationSpace.inflate(Collections.emptyList(), width, height, ConfigurationSpace.ROBOT_HALF_SIZE, true));
+        File ficheiro = robot.getDataFile(PlannerArtifacts.fileName(campo));
+
+        try
+        {
+            PlannerArtifacts guardados = PlannerArtifacts.load(ficheiro, campo);
+            //um roadmap construído com outras definições (p.ex. depois de mudar os valores por omissão) é reconstruído
+            if (guardados != null && guardados.getRoadmap() != null
+                    && guardados.getRoadmap().isBuiltWith(Roadmap.DEFAULT_SAMPLES, Roadmap.DEFAULT_NEIGHBOURS, 0))
+                return guardados.getRoadmap();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            //ficheiro ilegível ou corrompido: é reconstruído e escrito de novo
+            e.printStackTrace();
+        }
+
+        Roadmap roadmap = new Roadmap(width, height, campo.getObstacles(), Roadmap.DEFAULT_SAMPLES, Roadmap.DEFAULT_NEIGHBOURS, 0);
+        //os robots só podem escrever no diretório de dados através de RobocodeFileOutputStream
+        try (RobocodeFileOutputStream out = new RobocodeFileOutputStream(ficheiro.getCanonicalPath(), false))
+        {
+            new PlannerArtifacts(null, roadmap).write(out, campo);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+        return roadmap;
+    }
+
     /**
      * Devolve a data atual no formato yyyy-MM-dd HH:mm:ss
      *
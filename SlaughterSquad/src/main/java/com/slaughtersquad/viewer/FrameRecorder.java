@@ -0,0 +1,236 @@
+package com.slaughtersquad.viewer;
+
+import com.slaughtersquad.interf.IFrameSink;
+import com.slaughtersquad.interf.IPath;
+import com.slaughtersquad.interf.IPlannerListener;
+import com.slaughtersquad.interf.IPlanningTask;
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Records the best path of a planning task as frames, without a display, at most once every {@link #getEvery()}
+ * generations. It must be {@link #close() closed} once the task has stopped.
+ * <p>
+ * A task only reports its improvements, so the recorder has two inputs: set it as the listener of the task (or call
+ * it from the listener) to record the improvements, and call {@link #sample(IPlanningTask)} between the slices of
+ * the task so the generations go on being recorded while the best path does not change. Without the samples, a long
+ * plateau gives no frames.
+ * <p>
+ * The planner only copies the points of the path into a bounded queue. A background thread draws the frames with
+ * its own {@link PathRenderer} and writes them to the {@link IFrameSink}, so encoding never stalls the planner: when
+ * the queue is full the frame is dropped (see {@link #getDropped()}) instead of waiting for the sink. The last state
+ * seen is always recorded, on close.
+ */
+public class FrameRecorder implements IPlannerListener, AutoCloseable
+{
+    private static final int DEFAULT_QUEUE_CAPACITY = 64;
+    // tells the background thread that no more frames will come
+    private static final Snapshot END = new Snapshot(Collections.emptyList(), 0, -1, null);
+
+    private final IFrameSink sink;
+    private final int every;
+    private final BlockingQueue<Snapshot> queue;
+    private final Thread worker;
+
+    // only used by the planner thread, and by close() once the planner stopped
+    private int lastQueued = Integer.MIN_VALUE;
+    private IPath pending;
+    private double pendingFitness;
+    private int pendingGeneration;
+    private int dropped;
+    private boolean closed;
+
+    private volatile int recorded;
+    private volatile IOException failure;
+
+    /**
+     * Creates a recorder that records at most one frame every {@code every} generations.
+     * @param conf the map the task plans in
+     * @param sink where the frames are written; closed with the recorder
+     * @param every the minimum number of generations between two frames
+     */
+    public FrameRecorder(IUIConfiguration conf, IFrameSink sink, int every) {
+        this(conf, sink, every, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a recorder.
+     * @param conf the map the task plans in
+     * @param sink where the frames are written; closed with the recorder
+     * @param every the minimum number of generations between two frames
+     * @param queueCapacity how many frames may wait for the sink before new ones are dropped
+     */
+    public FrameRecorder(IUIConfiguration conf, IFrameSink sink, int every, int queueCapacity) {
+        if (every <= 0)
+            throw new IllegalArgumentException("every must be positive: " + every);
+        if (queueCapacity <= 0)
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        this.sink = sink;
+        this.every = every;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        PathRenderer renderer = new PathRenderer(conf);
+        worker = new Thread(() -> drain(renderer), "FrameRecorder");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public int getEvery() {
+        return every;
+    }
+
+    /**
+     * Returns how many frames were written to the sink so far.
+     */
+    public int getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * Returns how many frames were dropped because the sink could not keep up.
+     */
+    public synchronized int getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public synchronized void onImprovement(IPath path, double fitness, int generation) {
+        offer(path, fitness, generation);
+    }
+
+    /**
+     * Records the best path of a task if at least {@link #getEvery()} generations passed since the last frame, even
+     * if it did not improve. Meant to be called by the thread running the task, between two calls to
+     * {@link IPlanningTask#resume(long)}.
+     * @param task the task being recorded
+     */
+    public synchronized void sample(IPlanningTask task) {
+        IPath best = task.getBestPath();
+        if (best != null)
+            offer(best, task.getBestFitness(), task.getGeneration());
+    }
+
+    private void offer(IPath path, double fitness, int generation) {
+        if (closed || failure != null)
+            return;
+        if (lastQueued != Integer.MIN_VALUE && generation - lastQueued < every)
+        {
+            // kept, without copying it, so the last state can be recorded on close
+            pending = path;
+            pendingFitness = fitness;
+            pendingGeneration = generation;
+            return;
+        }
+        if (queue.offer(snapshot(path, fitness, generation)))
+        {
+            lastQueued = generation;
+            pending = null;
+        }
+        else
+        {
+            dropped++;
+            pending = path;
+            pendingFitness = fitness;
+            pendingGeneration = generation;
+        }
+    }
+
+    /**
+     * Records the last state seen, waits for the queued frames to be written and closes the sink. Must be called
+     * after the task stopped calling {@link #onImprovement(IPath, double, int)}.
+     * @throws IOException if a frame could not be written or the sink could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try
+        {
+            if (pending != null && pendingGeneration != lastQueued && failure == null)
+                queue.put(snapshot(pending, pendingFitness, pendingGeneration));
+            pending = null;
+            queue.put(END);
+            worker.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            worker.interrupt();
+            throw new IOException("interrupted while writing the frames", e);
+        }
+        finally
+        {
+            try
+            {
+                sink.close();
+            }
+            catch (IOException e)
+            {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    private static Snapshot snapshot(IPath path, double fitness, int generation) {
+        // copied, so the planner may keep changing its path
+        return new Snapshot(new ArrayList<>(path.getPoints()), fitness, generation, path.toString());
+    }
+
+    /**
+     * Runs on the background thread until {@link #END}. After a failure the remaining frames are discarded.
+     */
+    private void drain(PathRenderer renderer) {
+        try
+        {
+            for (Snapshot s = queue.take(); s != END; s = queue.take())
+            {
+                if (failure != null)
+                    continue;
+                try
+                {
+                    sink.write(renderer.render(s.points, PathRenderer.caption(s.generation, s.description, s.fitness)), s.generation);
+                    recorded++;
+                }
+                catch (IOException e)
+                {
+                    failure = e;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The state of the task when a frame was queued.
+     */
+    private static final class Snapshot
+    {
+        private final List<IPoint> points;
+        private final double fitness;
+        private final int generation;
+        private final String description;
+
+        private Snapshot(List<IPoint> points, double fitness, int generation, String description) {
+            this.points = points;
+            this.fitness = fitness;
+            this.generation = generation;
+            this.description = description;
+        }
+    }
+}
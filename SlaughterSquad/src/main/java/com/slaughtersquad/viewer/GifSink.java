@@ -0,0 +1,117 @@
+package com.slaughtersquad.viewer;
+
+import com.slaughtersquad.interf.IFrameSink;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Saves the frames as an animated GIF, written frame by frame with the GIF writer of {@link ImageIO}, so the
+ * animation never has to be held in memory. The writer reduces every frame to a palette of 256 colours, which suits
+ * the few flat colours of the viewer.
+ */
+public class GifSink implements IFrameSink
+{
+    private static final String FORMAT = "javax_imageio_gif_image_1.0";
+
+    private final ImageOutputStream out;
+    private final ImageWriter writer;
+    private final int delayMillis;
+    private final boolean loop;
+    private int count;
+
+    /**
+     * Creates a sink.
+     * @param file the GIF file, replaced if it exists
+     * @param delayMillis how long each frame is shown, in milliseconds (GIF keeps hundredths of a second)
+     * @param loop whether the animation starts again after the last frame
+     * @throws IOException if the file cannot be created
+     */
+    public GifSink(File file, int delayMillis, boolean loop) throws IOException {
+        if (delayMillis < 0)
+            throw new IllegalArgumentException("delayMillis must not be negative: " + delayMillis);
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+        if (!writers.hasNext())
+            throw new IOException("no GIF writer");
+
+        if (file.exists() && !file.delete())
+            throw new IOException("cannot replace " + file);
+        this.out = ImageIO.createImageOutputStream(file);
+        if (out == null)
+            throw new IOException("cannot write " + file);
+        this.writer = writers.next();
+        this.delayMillis = delayMillis;
+        this.loop = loop;
+
+        writer.setOutput(out);
+        writer.prepareWriteSequence(null);
+    }
+
+    /**
+     * Returns how many frames were written.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(BufferedImage frame, int generation) throws IOException {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(frame), null);
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(FORMAT);
+
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", Integer.toString(Math.round(delayMillis / 10f)));
+        control.setAttribute("transparentColorIndex", "0");
+
+        // the NETSCAPE2.0 extension of the first frame makes the animation repeat forever
+        if (loop && count == 0)
+        {
+            IIOMetadataNode extension = new IIOMetadataNode("ApplicationExtension");
+            extension.setAttribute("applicationID", "NETSCAPE");
+            extension.setAttribute("authenticationCode", "2.0");
+            extension.setUserObject(new byte[] { 1, 0, 0 });
+            child(root, "ApplicationExtensions").appendChild(extension);
+        }
+
+        metadata.setFromTree(FORMAT, root);
+        writer.writeToSequence(new IIOImage(frame, null, metadata), null);
+        count++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try
+        {
+            writer.endWriteSequence();
+        }
+        finally
+        {
+            writer.dispose();
+            out.close();
+        }
+    }
+
+    /**
+     * Returns the child of a metadata node with the given name, adding it if there is none.
+     */
+    private static IIOMetadataNode child(IIOMetadataNode node, String name) {
+        for (int i = 0; i < node.getLength(); i++)
+            if (node.item(i).getNodeName().equalsIgnoreCase(name))
+                return (IIOMetadataNode) node.item(i);
+        IIOMetadataNode child = new IIOMetadataNode(name);
+        node.appendChild(child);
+        return child;
+    }
+}
@@ -0,0 +1,152 @@
+package com.slaughtersquad.viewer;
+
+import com.slaughtersquad.interf.IPoint;
+import com.slaughtersquad.interf.IUIConfiguration;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Draws a configuration and a path the way the {@link PathViewer} shows them, onto any {@link Graphics} or into a new
+ * image, so runs can be drawn without a display (e.g. on a headless build machine, with
+ * {@code -Djava.awt.headless=true}).
+ * <p>
+ * The obstacles and the start and end labels are drawn once into an image that every frame copies. A renderer is not
+ * thread safe: each thread that draws needs its own.
+ */
+public class PathRenderer
+{
+    private static final Color PATH_COLOR = Color.GRAY;
+    private static final int PATH_THICKNESS = 2;
+
+    private final IUIConfiguration conf;
+    private BufferedImage background;
+
+    /**
+     * Creates a renderer for a configuration. The obstacles are read on the first frame and assumed not to change.
+     * @param conf the map, with its start and end
+     */
+    public PathRenderer(IUIConfiguration conf) {
+        this.conf = conf;
+    }
+
+    public int getWidth() {
+        return conf.getWidth();
+    }
+
+    public int getHeight() {
+        return conf.getHeight();
+    }
+
+    /**
+     * Returns the caption the viewer shows above the map.
+     * @param generation the generation (or number of improvements) shown
+     * @param path the description of the path
+     * @param fitness the fitness of the path
+     * @return the caption
+     */
+    public static String caption(int generation, String path, double fitness) {
+        return "Generation "+generation+" Best Solution: "+path+" ("+fitness+")";
+    }
+
+    /**
+     * Draws a frame into a new image.
+     * @param path the path, or null to draw only the map
+     * @param caption the text shown at the top left, or null
+     * @return an RGB image the size of the map
+     */
+    public BufferedImage render(List<IPoint> path, String caption) {
+        BufferedImage image = new BufferedImage(Math.max(1, getWidth()), Math.max(1, getHeight()), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try
+        {
+            paint(g, path, caption);
+        }
+        finally
+        {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Draws a frame.
+     * @param g where to draw, with the origin at the top left corner of the map
+     * @param path the path, or null to draw only the map
+     * @param caption the text shown at the top left, or null
+     */
+    public void paint(Graphics g, List<IPoint> path, String caption) {
+        if (background == null)
+            background = drawBackground();
+        g.drawImage(background, 0, 0, null);
+
+        // over the obstacles, so an invalid path shows the obstacles it crosses
+        if (path != null)
+            for (int i=1;i<path.size();i++)
+                drawThickLine(g, path.get(i-1).getX(), path.get(i-1).getY(), path.get(i).getX(), path.get(i).getY(), PATH_THICKNESS, PATH_COLOR);
+
+        if (caption != null)
+        {
+            g.setColor(Color.black);
+            g.drawString(caption, 20, 20);
+        }
+    }
+
+    private BufferedImage drawBackground() {
+        int width = getWidth(), height = getHeight();
+        BufferedImage image = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try
+        {
+            g.setColor(Color.white);
+            g.fillRect(0, 0, width, height);
+
+            g.setColor(Color.red);
+            conf.getObstacles().forEach(x -> g.fillRect(x.x, x.y, x.width, x.height));
+
+            g.setColor(Color.green);
+            if (conf.getStart() != null)
+                g.drawString("START", conf.getStart().getX(), conf.getStart().getY());
+            if (conf.getEnd() != null)
+                g.drawString("END", conf.getEnd().getX(), conf.getEnd().getY());
+        }
+        finally
+        {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static void drawThickLine(Graphics g, int x1, int y1, int x2, int y2, int thickness, Color c) {
+
+        g.setColor(c);
+        int dX = x2 - x1;
+        int dY = y2 - y1;
+
+        double lineLength = Math.sqrt(dX * dX + dY * dY);
+
+        double scale = (double) (thickness) / (2 * lineLength);
+
+        double ddx = -scale * (double) dY;
+        double ddy = scale * (double) dX;
+        ddx += (ddx > 0) ? 0.5 : -0.5;
+        ddy += (ddy > 0) ? 0.5 : -0.5;
+        int dx = (int) ddx;
+        int dy = (int) ddy;
+
+        int xPoints[] = new int[4];
+        int yPoints[] = new int[4];
+
+        xPoints[0] = x1 + dx;
+        yPoints[0] = y1 + dy;
+        xPoints[1] = x1 - dx;
+        yPoints[1] = y1 - dy;
+        xPoints[2] = x2 - dx;
+        yPoints[2] = y2 - dy;
+        xPoints[3] = x2 + dx;
+        yPoints[3] = y2 + dy;
+
+        g.fillPolygon(xPoints, yPoints, 4);
+    }
+}
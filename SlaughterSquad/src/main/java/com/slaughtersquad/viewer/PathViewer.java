@@ -2,32 +2,45 @@ package com.slaughtersquad.viewer;
 
 import com.slaughtersquad.interf.IPoint;
 import javax.swing.*;
+import javax.swing.Timer;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import com.slaughtersquad.interf.IUIConfiguration;
 
 
 /**
  * Class that shows a path in a GUI
+ * <p>
+ * The methods that change what is shown can be called from any thread, e.g. from the listener of a planning task,
+ * and only publish the new state: they never touch Swing nor wait for it. A Swing timer checks for a new state at
+ * most {@link #getTargetFps()} times per second and repaints on the event dispatch thread, so a planner that improves
+ * its path thousands of times per second costs one repaint per frame. Frames are drawn by a {@link PathRenderer},
+ * which can also draw them without a display.
  */
 public class PathViewer
 {
-    private UI ui;
-    private double fitness;
-    private String stringPath;
+    private static final int DEFAULT_FPS = 30;
+
+    private final UI ui;
+    private final Timer timer;
+    private final AtomicReference<Frame> frame = new AtomicReference<>(new Frame(Collections.emptyList(), 0, 0, null));
     private IUIConfiguration conf;
 
     public PathViewer(IUIConfiguration conf) {
-        ui = new UI(conf.getWidth(), conf.getHeight(), conf.getObstacles());
-        JFrame frame = new JFrame("PathViewer");
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.add(ui);
-        frame.setSize(conf.getWidth(), conf.getHeight());
-        frame.setVisible(true);
         this.conf = conf;
+        ui = new UI();
+        JFrame window = new JFrame("PathViewer");
+        window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        window.add(ui);
+        window.setSize(conf.getWidth(), conf.getHeight());
+        window.setVisible(true);
+
+        timer = new Timer(1000 / DEFAULT_FPS, e -> ui.refresh());
+        timer.start();
     }
 
     /**
@@ -35,7 +48,9 @@ public class PathViewer
      * @param path the list of points to paint in the map
      */
     public void paintPath(List<IPoint> path){
-        ui.paintPath(path);
+        // copied, so the caller may keep changing its list
+        List<IPoint> points = Collections.unmodifiableList(new ArrayList<>(path));
+        frame.updateAndGet(f -> new Frame(points, f.iteration + 1, f.fitness, f.stringPath));
     }
 
     /**
@@ -43,7 +58,7 @@ public class PathViewer
      * @param fitness the value of fitness to be shown in the map
      */
     public void setFitness(double fitness) {
-        this.fitness = fitness;
+        frame.updateAndGet(f -> new Frame(f.path, f.iteration, fitness, f.stringPath));
     }
 
     /**
@@ -51,30 +66,55 @@ public class PathViewer
      * @param stringPath the string that desceibes thepath being drawn
      */
     public void setStringPath(String stringPath) {
-        this.stringPath = stringPath;
+        frame.updateAndGet(f -> new Frame(f.path, f.iteration, f.fitness, stringPath));
+    }
+
+    public int getTargetFps() {
+        return 1000 / timer.getDelay();
+    }
+
+    /**
+     * Changes how many times per second, at most, the viewer is repainted.
+     * @param fps the number of frames per second
+     */
+    public void setTargetFps(int fps) {
+        if (fps <= 0 || fps > 1000)
+            throw new IllegalArgumentException("fps must be in [1, 1000]: " + fps);
+        timer.setDelay(1000 / fps);
+    }
+
+    /**
+     * What is shown in one frame. Never changed after it is published.
+     */
+    private static final class Frame
+    {
+        private final List<IPoint> path;
+        private final int iteration;
+        private final double fitness;
+        private final String stringPath;
+
+        private Frame(List<IPoint> path, int iteration, double fitness, String stringPath) {
+            this.path = path;
+            this.iteration = iteration;
+            this.fitness = fitness;
+            this.stringPath = stringPath;
+        }
     }
 
     private class UI extends JPanel
     {
-        private final Color COR_CAMINHO = Color.GRAY;
-        private final Color COR_LETRAS = Color.BLACK;
-        private final Color COR_PROCESSAMENTO = Color.green;
-        private final Color COR_SILO = Color.BLACK;
-        private int largura, altura;
-        private List<IPoint> path;
-        private List<Rectangle> obstacles;
-        private int iteration = 0;
+        // only used on the event dispatch thread
+        private final PathRenderer renderer;
+        // the last frame painted, to skip the repaints of the timer when nothing changed
+        private Frame painted;
 
         /**
          * Creates new form FormigueiroGUI
          */
-        private UI(int largura, int altura, List<Rectangle> obstacles)
+        private UI()
         {
             initComponents();
-            this.largura = largura;
-            this.altura = altura;
-            this.path = new ArrayList<>();
-            this.obstacles = obstacles;
+            this.renderer = new PathRenderer(conf);
 
             addMouseListener(new MouseAdapter() {
                 @Override
@@ -86,71 +126,20 @@ public class PathViewer
             });
         }
 
-        private void paintPath(List<IPoint> caminho) {
-            path = caminho;
-            iteration++;
-            this.repaint();
-        }
-
-        private void clearPath() {
-            this.path = new ArrayList<>();
-            this.repaint();
+        /**
+         * Called by the timer, on the event dispatch thread.
+         */
+        private void refresh() {
+            if (frame.get() != painted)
+                this.repaint();
         }
 
-
-
-
         @Override
         public void paintComponent(Graphics g) {
-            g.setColor(Color.white);
-            g.fillRect(0, 0, largura, altura);
-
-            for (int i=1;i<path.size();i++)
-            {
-                drawThickLine(g, path.get(i-1).getX(), path.get(i-1).getY(), path.get(i).getX(), path.get(i).getY(), 2, COR_CAMINHO);
-            }
-
-            g.setColor(Color.red);
-            obstacles.stream().forEach(x -> g.fillRect((int)x.getX(), (int)x.getY(), (int)x.getWidth(), (int)x.getHeight()));
-
-            g.setColor(Color.green);
-            g.drawString("START", conf.getStart().getX(), conf.getStart().getY());
-            g.drawString("END", conf.getEnd().getX(), conf.getEnd().getY());
-
-            g.setColor(Color.black);
-            g.drawString("Generation "+iteration+" Best Solution: "+stringPath+" ("+fitness+")", 20,20);
-        }
-
-        private void drawThickLine(Graphics g, int x1, int y1, int x2, int y2, int thickness, Color c) {
-
-            g.setColor(c);
-            int dX = x2 - x1;
-            int dY = y2 - y1;
-
-            double lineLength = Math.sqrt(dX * dX + dY * dY);
-
-            double scale = (double) (thickness) / (2 * lineLength);
-
-            double ddx = -scale * (double) dY;
-            double ddy = scale * (double) dX;
-            ddx += (ddx > 0) ? 0.5 : -0.5;
-            ddy += (ddy > 0) ? 0.5 : -0.5;
-            int dx = (int) ddx;
-            int dy = (int) ddy;
-
-            int xPoints[] = new int[4];
-            int yPoints[] = new int[4];
-
-            xPoints[0] = x1 + dx;
-            yPoints[0] = y1 + dy;
-            xPoints[1] = x1 - dx;
-            yPoints[1] = y1 - dy;
-            xPoints[2] = x2 - dx;
-            yPoints[2] = y2 - dy;
-            xPoints[3] = x2 + dx;
-            yPoints[3] = y2 + dy;
+            Frame f = frame.get();
+            painted = f;
 
-            g.fillPolygon(xPoints, yPoints, 4);
+            renderer.paint(g, f.path, PathRenderer.caption(f.iteration, f.stringPath, f.fitness));
         }
 
         private void initComponents()
@@ -0,0 +1,51 @@
+package com.slaughtersquad.viewer;
+
+import com.slaughtersquad.interf.IFrameSink;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Saves every frame as a numbered PNG file ({@code prefix00000.png}, {@code prefix00001.png}, ...), which tools such
+ * as ffmpeg can turn into a video.
+ */
+public class PngSequenceSink implements IFrameSink
+{
+    private final File directory;
+    private final String prefix;
+    private int count;
+
+    /**
+     * Creates a sink.
+     * @param directory where the images are saved; created if it does not exist
+     * @param prefix the start of the name of every image
+     * @throws IOException if the directory cannot be created
+     */
+    public PngSequenceSink(File directory, String prefix) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("cannot create " + directory);
+        this.directory = directory;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Returns how many images were saved.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(BufferedImage frame, int generation) throws IOException {
+        File file = new File(directory, String.format("%s%05d.png", prefix, count));
+        if (!ImageIO.write(frame, "png", file))
+            throw new IOException("no PNG writer");
+        count++;
+    }
+
+    @Override
+    public void close() {
+    }
+}